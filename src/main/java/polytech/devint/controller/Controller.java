@@ -1,6 +1,8 @@
 package polytech.devint.controller;
 
+import java.awt.EventQueue;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import polytech.devint.controller.input.InputConfiguration;
 import polytech.devint.event.Observable;
@@ -15,6 +17,7 @@ public abstract class Controller<M extends Model, V extends View<M>> extends Obs
   private final InputConfiguration inputConfiguration;
   private final List<V> views;
   private final M model;
+  private final AtomicBoolean viewsUpdatePending;
 
   /**
    * Create a controller from a unique model and input configuration (see MVC pattern)
@@ -26,6 +29,7 @@ public abstract class Controller<M extends Model, V extends View<M>> extends Obs
     this.model = model;
     this.inputConfiguration = inputConfiguration;
     this.views = new ArrayList<>();
+    this.viewsUpdatePending = new AtomicBoolean();
   }
 
   /**
@@ -68,6 +72,20 @@ public abstract class Controller<M extends Model, V extends View<M>> extends Obs
     });
   }
 
+  /**
+   * Ask for an update of all active views on the event dispatch thread.
+   * All the requests made before this update runs are coalesced into it, so a burst of
+   * requests (a held key, a rapid palette cycling...) costs one update per frame.
+   */
+  public void requestViewsUpdate() {
+    if (viewsUpdatePending.compareAndSet(false, true)) {
+      EventQueue.invokeLater(() -> {
+        viewsUpdatePending.set(false);
+        updateViews();
+      });
+    }
+  }
+
   /**
    * @return All view currently linked to this controller.
    */
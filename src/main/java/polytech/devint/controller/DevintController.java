@@ -3,6 +3,8 @@ package polytech.devint.controller;
 import polytech.devint.controller.input.InputConfiguration;
 import polytech.devint.controller.input.SwingInputConfiguration;
 import polytech.devint.event.EventHandler;
+import polytech.devint.event.EventPriority;
+import polytech.devint.event.HandlerThread;
 import polytech.devint.event.basic.*;
 import polytech.devint.model.Model;
 import polytech.devint.view.DevintView;
@@ -42,26 +44,26 @@ public abstract class DevintController<M extends Model, V extends DevintView<M>>
     this(model, new InputConfiguration().addConfig(SWING_CONFIG_KEY, new SwingInputConfiguration()));
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.SOUND)
   public final void askForHelp(final F1Event event) {
     getViews().forEach(DevintView::playHelp);
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.SOUND)
   public final void askForDetailedHelp(final F2Event event) {
     getViews().forEach(DevintView::playDetailedHelp);
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.EDT)
   public final void onPaletteChange(final F3Event event) {
     DisplayConfiguration.getDefaultDisplay().nextPalette();
-    updateViews();
+    requestViewsUpdate();
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.EDT)
   public final void onFontChange(final F4Event event) {
     DisplayConfiguration.getDefaultDisplay().nextFont();
-    updateViews();
+    requestViewsUpdate();
   }
 
 
@@ -69,10 +71,13 @@ public abstract class DevintController<M extends Model, V extends DevintView<M>>
    * Method called when the escape key is pressed.
    * The default behavior of this method is to destroy the current views
    * and initialize all registered main views.
+   * It has a low priority, so the handlers of a game can handle the escape key first and
+   * cancel the event to prevent this behavior. A game cancelling every escape event takes away
+   * this way out, so it should only cancel the presses it handles itself.
    *
    * @param escapeEvent Event triggered when the escape key is being pressed.
    */
-  @EventHandler
+  @EventHandler(priority = EventPriority.LOW)
   public void onEscape(final EscapeEvent escapeEvent) {
     if (!mainViews.isEmpty()) {
       destroyViews();
@@ -0,0 +1,139 @@
+package polytech.devint.controller.input;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import polytech.devint.event.Event;
+
+/**
+ * Table of the key chords, indexed by the key that triggers them, so that a key press only
+ * checks the chords it can complete. Like the {@link KeyBindingTable}, looking up the chords of
+ * a key allocates nothing, and each modification publishes new arrays as a whole.
+ *
+ * @author Loris Friedel
+ */
+public class ChordTable {
+
+  private static final KeyChord[] NO_CHORDS = new KeyChord[0];
+  private static final int INITIAL_CAPACITY = 16;
+
+  // Replaced as a whole on each modification, under the lock of the table
+  private volatile Slots slots;
+
+  /**
+   * Create an empty chord table.
+   */
+  public ChordTable() {
+    this.slots = new Slots(new int[INITIAL_CAPACITY], new KeyChord[INITIAL_CAPACITY][], 0);
+  }
+
+  /**
+   * @param triggerKey Key code of a pressed key.
+   * @return The chords triggered by the key, or an empty array. The returned array is shared
+   * and must not be modified.
+   */
+  public KeyChord[] get(int triggerKey) {
+    Slots current = slots;
+    KeyChord[] chords = current.values[KeyBindingTable.slot(current.keys, current.values, triggerKey)];
+    return chords != null ? chords : NO_CHORDS;
+  }
+
+  /**
+   * Add a chord after the chords already triggered by the same key.
+   *
+   * @param chord Chord to add.
+   */
+  public synchronized void add(KeyChord chord) {
+    Slots current = slots;
+    int[] keys = current.keys.clone();
+    KeyChord[][] values = current.values.clone();
+    int size = current.size;
+    int slot = KeyBindingTable.slot(keys, values, chord.getTriggerKey());
+    KeyChord[] chords = values[slot];
+    if (chords == null) {
+      keys[slot] = chord.getTriggerKey();
+      values[slot] = new KeyChord[] {chord};
+      size++;
+    } else {
+      KeyChord[] newChords = Arrays.copyOf(chords, chords.length + 1);
+      newChords[chords.length] = chord;
+      values[slot] = newChords;
+    }
+    slots = size * 2 > keys.length ? rehash(keys, values, size, keys.length * 2)
+            : new Slots(keys, values, size);
+  }
+
+  /**
+   * Remove the chords triggering the given event.
+   *
+   * @param event Class of the event to unbind.
+   */
+  public synchronized void remove(Class<? extends Event> event) {
+    Slots current = slots;
+    KeyChord[][] values = current.values.clone();
+    int size = current.size;
+    for (int i = 0; i < values.length; i++) {
+      KeyChord[] chords = values[i];
+      if (chords != null) {
+        List<KeyChord> remaining = new ArrayList<>(chords.length);
+        for (KeyChord chord : chords) {
+          if (chord.getEvent().getEventType() != event) {
+            remaining.add(chord);
+          }
+        }
+        if (remaining.size() != chords.length) {
+          values[i] = remaining.isEmpty() ? null : remaining.toArray(new KeyChord[remaining.size()]);
+          size -= remaining.isEmpty() ? 1 : 0;
+        }
+      }
+    }
+    // Removing breaks the probe sequences, the remaining chords are placed again
+    slots = rehash(current.keys, values, size, current.keys.length);
+  }
+
+  /**
+   * @return The number of keys triggering at least one chord.
+   */
+  public int size() {
+    return slots.size;
+  }
+
+  /**
+   * Place every chord again in new arrays of the given capacity.
+   *
+   * @param keys     Key array of the chords.
+   * @param values   Value array of the chords, a null value marks a free slot.
+   * @param size     Number of keys triggering a chord.
+   * @param capacity New capacity of the table, a power of two.
+   * @return The new slots of the table.
+   */
+  private static Slots rehash(int[] keys, KeyChord[][] values, int size, int capacity) {
+    int[] newKeys = new int[capacity];
+    KeyChord[][] newValues = new KeyChord[capacity][];
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        int slot = KeyBindingTable.slot(newKeys, newValues, keys[i]);
+        newKeys[slot] = keys[i];
+        newValues[slot] = values[i];
+      }
+    }
+    return new Slots(newKeys, newValues, size);
+  }
+
+  /**
+   * Arrays of the table, never modified once published.
+   */
+  private static final class Slots {
+
+    private final int[] keys;
+    private final KeyChord[][] values;
+    private final int size;
+
+    private Slots(int[] keys, KeyChord[][] values, int size) {
+      this.keys = keys;
+      this.values = values;
+      this.size = size;
+    }
+  }
+}
@@ -2,10 +2,13 @@ package polytech.devint.controller.input;
 
 import polytech.devint.controller.DevintController;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * The configurations can be replaced while the game runs: key dispatchers look their
+ * configuration up on each key event, and always see either the old or the new one.
+ *
  * @author Loris Friedel
  */
 public class InputConfiguration {
@@ -14,7 +17,7 @@ public class InputConfiguration {
   private final Map<String, IConfiguration> configMap;
 
   public InputConfiguration() {
-    this.configMap = new HashMap<>();
+    this.configMap = new ConcurrentHashMap<>();
   }
 
   /**
@@ -25,14 +28,16 @@ public class InputConfiguration {
    * @throws ConfigNotFoundException If the configuration is not in the configurations map.
    */
   public <C extends IConfiguration> C getConfig(String key) {
-    if(configMap.containsKey(key)) {
-      return (C) configMap.get(key);
+    IConfiguration configuration = configMap.get(key);
+    if (configuration != null) {
+      return (C) configuration;
     }
     throw new ConfigNotFoundException(key);
   }
 
   /**
    * Add an input configuration in the map of all configurations.
+   * A configuration already registered with the same key is replaced atomically.
    *
    * @param key Key that the configuration will have in the map.
    * @param configuration Configuration to be added.
@@ -0,0 +1,164 @@
+package polytech.devint.controller.input;
+
+import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import polytech.devint.configuration.ConfigurationLoader;
+import polytech.devint.event.Event;
+import polytech.devint.util.time.RateLimit;
+
+/**
+ * Loads the key bindings of a swing input configuration from a JSON file like:
+ * <pre>
+ * {
+ *   "press_once": [{"key": "F1", "event": "polytech.devint.event.basic.F1Event"}],
+ *   "press": [],
+ *   "release": [],
+ *   "chords": [{"keys": ["CONTROL", "F1"], "event": "polytech.devint.event.basic.F2Event"}],
+ *   "sequences": [{"keys": ["UP", "UP", "DOWN"], "event": "polytech.devint.event.basic.F3Event"}],
+ *   "sequence_timeout": 1000,
+ *   "rate_limits": [{"event": "polytech.devint.event.basic.F1Event", "mode": "DEBOUNCE",
+ *                    "edge": "LEADING", "interval": 50}]
+ * }
+ * </pre>
+ * Every section is optional. Keys are given by the name of their {@link KeyEvent} constant
+ * without the VK_ prefix, or by their code. Key names and event classes are resolved once here,
+ * so the loaded configuration is as fast as one built in code.
+ *
+ * @author Loris Friedel
+ */
+public class InputConfigurationLoader extends ConfigurationLoader {
+
+  private final JSONObject content;
+  private final SwingInputConfiguration swingConfiguration;
+
+  /**
+   * Load a swing input configuration from a configuration file
+   *
+   * @param configurationFile the configuration file
+   * @throws IOException              If the file cannot be read.
+   * @throws JSONException            If the file is not valid JSON.
+   * @throws IllegalArgumentException If a key or an event of the file does not exist.
+   */
+  public InputConfigurationLoader(InputStream configurationFile) throws IOException {
+    super(configurationFile);
+
+    content = getContentAsJSONObject();
+    swingConfiguration = new SwingInputConfiguration(false);
+    bind(swingConfiguration);
+    swingConfiguration.recordChanges();
+  }
+
+  /**
+   * Add the bindings of the file to a swing configuration
+   *
+   * @param target the configuration to bind
+   * @throws JSONException            If a section of the file is malformed.
+   * @throws IllegalArgumentException If a key or an event of the file does not exist.
+   */
+  void bind(SwingInputConfiguration target) {
+    JSONArray pressOnce = content.optJSONArray("press_once");
+    for (int i = 0; pressOnce != null && i < pressOnce.length(); i++) {
+      JSONObject binding = pressOnce.getJSONObject(i);
+      target.bindOnPressOnce(extractKey(binding.get("key")), extractEvent(binding));
+    }
+    JSONArray press = content.optJSONArray("press");
+    for (int i = 0; press != null && i < press.length(); i++) {
+      JSONObject binding = press.getJSONObject(i);
+      target.bindOnPress(extractKey(binding.get("key")), extractEvent(binding));
+    }
+    JSONArray release = content.optJSONArray("release");
+    for (int i = 0; release != null && i < release.length(); i++) {
+      JSONObject binding = release.getJSONObject(i);
+      target.bindOnRelease(extractKey(binding.get("key")), extractEvent(binding));
+    }
+    JSONArray chords = content.optJSONArray("chords");
+    for (int i = 0; chords != null && i < chords.length(); i++) {
+      JSONObject binding = chords.getJSONObject(i);
+      target.bindChord(extractEvent(binding), extractKeys(binding.getJSONArray("keys")));
+    }
+    JSONArray sequences = content.optJSONArray("sequences");
+    for (int i = 0; sequences != null && i < sequences.length(); i++) {
+      JSONObject binding = sequences.getJSONObject(i);
+      target.bindSequence(extractEvent(binding), extractKeys(binding.getJSONArray("keys")));
+    }
+    JSONArray rateLimits = content.optJSONArray("rate_limits");
+    for (int i = 0; rateLimits != null && i < rateLimits.length(); i++) {
+      JSONObject limit = rateLimits.getJSONObject(i);
+      target.setRateLimit(extractEvent(limit), extractRateLimit(limit));
+    }
+    target.setSequenceTimeout(
+            content.optLong("sequence_timeout", SwingInputConfiguration.DEFAULT_SEQUENCE_TIMEOUT_MS));
+  }
+
+  /**
+   * Extract key codes from a JSON array
+   *
+   * @param JSONKeys json containing names or codes of keys
+   * @return the key codes
+   */
+  private static int[] extractKeys(JSONArray JSONKeys) {
+    int[] keyCodes = new int[JSONKeys.length()];
+    for (int i = 0; i < keyCodes.length; i++) {
+      keyCodes[i] = extractKey(JSONKeys.get(i));
+    }
+    return keyCodes;
+  }
+
+  /**
+   * Extract a key code from its name or its code
+   *
+   * @param key name of a {@link KeyEvent} constant without the VK_ prefix, or a key code
+   * @return the key code
+   */
+  private static int extractKey(Object key) {
+    if (key instanceof Number) {
+      return ((Number) key).intValue();
+    }
+    try {
+      return KeyEvent.class.getField("VK_" + key).getInt(null);
+    } catch (NoSuchFieldException | IllegalAccessException e) {
+      throw new IllegalArgumentException("Unknown key " + key, e);
+    }
+  }
+
+  /**
+   * Extract a rate limit
+   *
+   * @param JSONLimit json containing the mode, the edge and the interval in milliseconds
+   * @return the rate limit
+   */
+  private static RateLimit extractRateLimit(JSONObject JSONLimit) {
+    return new RateLimit(RateLimit.Mode.valueOf(JSONLimit.getString("mode").toUpperCase()),
+            RateLimit.Edge.valueOf(JSONLimit.optString("edge", "LEADING").toUpperCase()),
+            JSONLimit.getLong("interval"), TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Extract the event class of a binding
+   *
+   * @param JSONBinding json containing the name of the event class
+   * @return the event class
+   */
+  private static Class<? extends Event> extractEvent(JSONObject JSONBinding) {
+    String name = JSONBinding.getString("event");
+    try {
+      return Class.forName(name).asSubclass(Event.class);
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IllegalArgumentException("Unknown event " + name, e);
+    }
+  }
+
+  /**
+   * @return the loaded swing configuration
+   */
+  public SwingInputConfiguration getSwingConfiguration() {
+    return swingConfiguration;
+  }
+}
@@ -0,0 +1,122 @@
+package polytech.devint.controller.input;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
+
+import polytech.devint.controller.DevintController;
+
+/**
+ * Watches a JSON input configuration file and loads it again into an input configuration each
+ * time it changes, so keys can be remapped without restarting a running game.
+ * The new swing configuration replaces the old one atomically; a file that cannot be loaded
+ * is logged and the current configuration is kept. The bindings made by the code on the current
+ * swing configuration are made again on the loaded one, so they survive the reloads.
+ *
+ * @author Loris Friedel
+ */
+public class InputConfigurationWatcher implements Closeable {
+
+  private static final Logger LOGGER = LogManager.getLogger(InputConfigurationWatcher.class);
+
+  private final Path file;
+  private final InputConfiguration target;
+  private final WatchService watchService;
+  private final Thread thread;
+
+  /**
+   * Load the given file into the input configuration, then start watching it.
+   *
+   * @param file   JSON input configuration file.
+   * @param target Input configuration whose swing configuration is replaced.
+   * @throws IOException If the file cannot be loaded or watched.
+   */
+  public InputConfigurationWatcher(Path file, InputConfiguration target) throws IOException {
+    this.file = file.toAbsolutePath();
+    this.target = target;
+    target.addConfig(DevintController.SWING_CONFIG_KEY, load());
+
+    this.watchService = this.file.getFileSystem().newWatchService();
+    this.file.getParent().register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+            StandardWatchEventKinds.ENTRY_MODIFY);
+    this.thread = new Thread(this::watch, "devint-input-watcher-" + this.file.getFileName());
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Load the file again into the input configuration.
+   *
+   * @return True if the file was loaded, false if it is invalid and was ignored.
+   */
+  public boolean reload() {
+    try {
+      target.addConfig(DevintController.SWING_CONFIG_KEY, load());
+      LOGGER.info("Input configuration reloaded from " + file);
+      return true;
+    } catch (IOException | JSONException | IllegalArgumentException e) {
+      LOGGER.error("Cannot reload the input configuration from " + file + ":", e);
+      return false;
+    }
+  }
+
+  /**
+   * @return The swing configuration described by the file, with the changes made by the code on
+   *         the current one.
+   * @throws IOException If the file cannot be read.
+   */
+  private SwingInputConfiguration load() throws IOException {
+    SwingInputConfiguration loaded;
+    try (InputStream input = Files.newInputStream(file)) {
+      loaded = new InputConfigurationLoader(input).getSwingConfiguration();
+    }
+    try {
+      loaded.replayChanges(target.getConfig(DevintController.SWING_CONFIG_KEY));
+    } catch (ConfigNotFoundException e) {
+      // No current configuration, nothing was bound by the code
+    }
+    return loaded;
+  }
+
+  /**
+   * Wait for changes of the directory of the file until the watcher is closed.
+   */
+  private void watch() {
+    try {
+      while (true) {
+        WatchKey key = watchService.take();
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+          changed |= file.getFileName().equals(event.context());
+        }
+        key.reset();
+        if (changed) {
+          reload();
+        }
+      }
+    } catch (InterruptedException | ClosedWatchServiceException e) {
+      // The watcher is closed
+    }
+  }
+
+  /**
+   * Stop watching the file. The current configuration stays in place.
+   *
+   * @throws IOException If the watch service cannot be closed.
+   */
+  @Override
+  public void close() throws IOException {
+    watchService.close();
+  }
+}
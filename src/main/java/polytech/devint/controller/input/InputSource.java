@@ -0,0 +1,24 @@
+package polytech.devint.controller.input;
+
+/**
+ * Produces key input from something else than the keyboard of the window, like a replayed
+ * session, a remote control or a virtual keyboard.
+ * A source is started with the sink it feeds, and may then call it from any thread until it is
+ * stopped.
+ *
+ * @author Loris Friedel
+ */
+public interface InputSource {
+
+  /**
+   * Start feeding the given sink.
+   *
+   * @param sink Receives the keys produced by this source.
+   */
+  void start(KeySink sink);
+
+  /**
+   * Stop feeding the sink this source was started with.
+   */
+  void stop();
+}
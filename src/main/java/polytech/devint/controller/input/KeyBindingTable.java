@@ -0,0 +1,186 @@
+package polytech.devint.controller.input;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import polytech.devint.event.Event;
+import polytech.devint.event.EventFactory;
+
+/**
+ * Table of the events bound to key codes.
+ * Key codes are stored unboxed in an open-addressing hash table, so that looking up the events
+ * of a key allocates nothing. The table is meant to be read on each key press and modified
+ * rarely: each modification copies the arrays and publishes them together, so a lookup from
+ * any input thread sees either the old or the new bindings, never a mix of both.
+ *
+ * @author Loris Friedel
+ */
+public class KeyBindingTable {
+
+  private static final EventFactory<?>[] NO_EVENTS = new EventFactory<?>[0];
+  private static final int INITIAL_CAPACITY = 32;
+
+  // Replaced as a whole on each modification, under the lock of the table
+  private volatile Slots slots;
+
+  /**
+   * Create an empty binding table.
+   */
+  public KeyBindingTable() {
+    this.slots = new Slots(new int[INITIAL_CAPACITY], new EventFactory<?>[INITIAL_CAPACITY][], 0);
+  }
+
+  /**
+   * Find the events bound to the given key.
+   *
+   * @param keyCode Key code to look for.
+   * @return The factories of the events bound to the key, or an empty array. The returned array
+   * is shared and must not be modified.
+   */
+  public EventFactory<?>[] get(int keyCode) {
+    Slots current = slots;
+    EventFactory<?>[] events = current.values[slot(current.keys, current.values, keyCode)];
+    return events != null ? events : NO_EVENTS;
+  }
+
+  /**
+   * Bind an event to a key, after the events already bound to this key.
+   *
+   * @param keyCode Key code that will trigger the event.
+   * @param event   Factory of the triggered event.
+   */
+  public synchronized void add(int keyCode, EventFactory<?> event) {
+    Slots current = slots;
+    int[] keys = current.keys.clone();
+    EventFactory<?>[][] values = current.values.clone();
+    int size = current.size;
+    int slot = slot(keys, values, keyCode);
+    EventFactory<?>[] events = values[slot];
+    if (events == null) {
+      keys[slot] = keyCode;
+      values[slot] = new EventFactory<?>[] {event};
+      size++;
+    } else {
+      EventFactory<?>[] newEvents = Arrays.copyOf(events, events.length + 1);
+      newEvents[events.length] = event;
+      values[slot] = newEvents;
+    }
+    slots = size * 2 > keys.length ? rehash(keys, values, size, keys.length * 2)
+            : new Slots(keys, values, size);
+  }
+
+  /**
+   * Remove all the events bound to the given key.
+   *
+   * @param keyCode Key code to unbind.
+   */
+  public synchronized void remove(int keyCode) {
+    Slots current = slots;
+    int slot = slot(current.keys, current.values, keyCode);
+    if (current.values[slot] != null) {
+      EventFactory<?>[][] values = current.values.clone();
+      values[slot] = null;
+      // Removing breaks the probe sequences, the remaining bindings are placed again
+      slots = rehash(current.keys, values, current.size - 1, current.keys.length);
+    }
+  }
+
+  /**
+   * Remove the given event from every key it is bound to.
+   * Keys that have no event left are unbound.
+   *
+   * @param event Class of the event to unbind.
+   */
+  public synchronized void remove(Class<? extends Event> event) {
+    Slots current = slots;
+    EventFactory<?>[][] values = current.values.clone();
+    int size = current.size;
+    boolean changed = false;
+    for (int i = 0; i < values.length; i++) {
+      EventFactory<?>[] events = values[i];
+      if (events != null) {
+        List<EventFactory<?>> remaining = new ArrayList<>(events.length);
+        for (EventFactory<?> factory : events) {
+          if (factory.getEventType() != event) {
+            remaining.add(factory);
+          }
+        }
+        if (remaining.isEmpty()) {
+          values[i] = null;
+          size--;
+          changed = true;
+        } else if (remaining.size() != events.length) {
+          values[i] = remaining.toArray(new EventFactory<?>[remaining.size()]);
+          changed = true;
+        }
+      }
+    }
+    if (changed) {
+      slots = rehash(current.keys, values, size, current.keys.length);
+    }
+  }
+
+  /**
+   * @return The number of keys that have at least one event bound.
+   */
+  public int size() {
+    return slots.size;
+  }
+
+  /**
+   * Place every binding again in new arrays of the given capacity.
+   *
+   * @param keys     Key array of the bindings.
+   * @param values   Value array of the bindings, a null value marks a free slot.
+   * @param size     Number of bindings.
+   * @param capacity New capacity of the table, a power of two.
+   * @return The new slots of the table.
+   */
+  private static Slots rehash(int[] keys, EventFactory<?>[][] values, int size, int capacity) {
+    int[] newKeys = new int[capacity];
+    EventFactory<?>[][] newValues = new EventFactory<?>[capacity][];
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] != null) {
+        int slot = slot(newKeys, newValues, keys[i]);
+        newKeys[slot] = keys[i];
+        newValues[slot] = values[i];
+      }
+    }
+    return new Slots(newKeys, newValues, size);
+  }
+
+  /**
+   * Find the slot of the given key with linear probing.
+   * Shared by the tables of this package indexed by key codes.
+   *
+   * @param keys    Key array of the table, of a power of two length.
+   * @param values  Value array of the table, a null value marks a free slot.
+   * @param keyCode Key code to look for.
+   * @return The slot holding the key, or the free slot where it should be inserted.
+   */
+  static int slot(int[] keys, Object[] values, int keyCode) {
+    int mask = keys.length - 1;
+    int slot = (keyCode * 0x9E3779B9) >>> 16 & mask;
+    while (values[slot] != null && keys[slot] != keyCode) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  /**
+   * Arrays of the table, never modified once published.
+   */
+  private static final class Slots {
+
+    private final int[] keys;
+    private final EventFactory<?>[][] values;
+    private final int size;
+
+    private Slots(int[] keys, EventFactory<?>[][] values, int size) {
+      this.keys = keys;
+      this.values = values;
+      this.size = size;
+    }
+  }
+}
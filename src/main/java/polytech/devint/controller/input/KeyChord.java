@@ -0,0 +1,55 @@
+package polytech.devint.controller.input;
+
+import java.util.Arrays;
+
+import polytech.devint.event.EventFactory;
+
+/**
+ * An event bound to a combination of keys, like Ctrl+F1: it is triggered by the first press of
+ * its last key while the other keys are held down.
+ *
+ * @author Loris Friedel
+ */
+public final class KeyChord {
+
+  private final int[] heldKeys;
+  private final int triggerKey;
+  private final EventFactory<?> event;
+
+  /**
+   * @param keyCodes Keys of the chord, the last one triggering it.
+   * @param event    Factory of the triggered event.
+   */
+  KeyChord(int[] keyCodes, EventFactory<?> event) {
+    this.heldKeys = Arrays.copyOf(keyCodes, keyCodes.length - 1);
+    this.triggerKey = keyCodes[keyCodes.length - 1];
+    this.event = event;
+  }
+
+  /**
+   * @return The key whose press triggers the chord.
+   */
+  public int getTriggerKey() {
+    return triggerKey;
+  }
+
+  /**
+   * @return The factory of the triggered event.
+   */
+  public EventFactory<?> getEvent() {
+    return event;
+  }
+
+  /**
+   * @param keyState Keys currently held down.
+   * @return True if all the keys of the chord but the trigger are held down.
+   */
+  public boolean isHeld(KeyState keyState) {
+    for (int keyCode : heldKeys) {
+      if (!keyState.isPressed(keyCode)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
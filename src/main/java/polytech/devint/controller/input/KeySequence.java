@@ -0,0 +1,39 @@
+package polytech.devint.controller.input;
+
+import java.util.Arrays;
+
+import polytech.devint.event.EventFactory;
+
+/**
+ * An event bound to a sequence of key presses, like Up, Up, Down.
+ *
+ * @author Loris Friedel
+ */
+public final class KeySequence {
+
+  private final int[] keyCodes;
+  private final EventFactory<?> event;
+
+  /**
+   * @param keyCodes Keys to press in order.
+   * @param event    Factory of the triggered event.
+   */
+  KeySequence(int[] keyCodes, EventFactory<?> event) {
+    this.keyCodes = Arrays.copyOf(keyCodes, keyCodes.length);
+    this.event = event;
+  }
+
+  /**
+   * @return The keys to press in order. The returned array must not be modified.
+   */
+  int[] getKeyCodes() {
+    return keyCodes;
+  }
+
+  /**
+   * @return The factory of the triggered event.
+   */
+  public EventFactory<?> getEvent() {
+    return event;
+  }
+}
@@ -0,0 +1,24 @@
+package polytech.devint.controller.input;
+
+/**
+ * Receives the key presses and releases of {@link InputSource}s.
+ * Its methods can be called concurrently by several sources.
+ *
+ * @author Loris Friedel
+ */
+public interface KeySink {
+
+  /**
+   * A key has been pressed, or is repeated while held down.
+   *
+   * @param keyCode Code of the key, as in {@link java.awt.event.KeyEvent}.
+   */
+  void pressKey(int keyCode);
+
+  /**
+   * A key has been released.
+   *
+   * @param keyCode Code of the key, as in {@link java.awt.event.KeyEvent}.
+   */
+  void releaseKey(int keyCode);
+}
@@ -0,0 +1,77 @@
+package polytech.devint.controller.input;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free set of the keys currently held down.
+ * Key codes are bits of an atomic array of longs, changed by compare-and-set, so several threads
+ * can press and release keys concurrently: exactly one of the threads pressing a released key
+ * sees the transition. Key codes outside of the array, like extended key codes, are kept in a
+ * concurrent set.
+ *
+ * @author Loris Friedel
+ */
+public class KeyState {
+
+  private static final int KEY_CODES = 1 << 16;
+
+  private final AtomicLongArray bits = new AtomicLongArray(KEY_CODES / Long.SIZE);
+  private final Set<Integer> otherKeys = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Mark a key as held down.
+   *
+   * @param keyCode Code of the pressed key.
+   * @return True if the key was released before, false if it was already held down.
+   */
+  public boolean press(int keyCode) {
+    if (keyCode < 0 || keyCode >= KEY_CODES) {
+      return otherKeys.add(keyCode);
+    }
+    int index = keyCode >>> 6;
+    long mask = 1L << keyCode;
+    long current;
+    do {
+      current = bits.get(index);
+      if ((current & mask) != 0) {
+        return false;
+      }
+    } while (!bits.compareAndSet(index, current, current | mask));
+    return true;
+  }
+
+  /**
+   * Mark a key as released.
+   *
+   * @param keyCode Code of the released key.
+   * @return True if the key was held down before, false if it was already released.
+   */
+  public boolean release(int keyCode) {
+    if (keyCode < 0 || keyCode >= KEY_CODES) {
+      return otherKeys.remove(keyCode);
+    }
+    int index = keyCode >>> 6;
+    long mask = 1L << keyCode;
+    long current;
+    do {
+      current = bits.get(index);
+      if ((current & mask) == 0) {
+        return false;
+      }
+    } while (!bits.compareAndSet(index, current, current & ~mask));
+    return true;
+  }
+
+  /**
+   * @param keyCode Code of a key.
+   * @return True if the key is held down.
+   */
+  public boolean isPressed(int keyCode) {
+    if (keyCode < 0 || keyCode >= KEY_CODES) {
+      return otherKeys.contains(keyCode);
+    }
+    return (bits.get(keyCode >>> 6) & 1L << keyCode) != 0;
+  }
+}
@@ -0,0 +1,181 @@
+package polytech.devint.controller.input;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import polytech.devint.event.EventFactory;
+
+/**
+ * Key sequences compiled into a deterministic automaton.
+ * The sequences form a trie whose missing transitions are filled like in the Aho-Corasick
+ * algorithm, so a key press moves from a state to the next with a single array access, and
+ * overlapping sequences (Up, Up, Down typed as Up, Up, Up, Down) are still recognized.
+ * State 0 is the initial state. The automaton is immutable.
+ *
+ * @author Loris Friedel
+ */
+public final class SequenceAutomaton {
+
+  private static final EventFactory<?>[] NO_EVENTS = new EventFactory<?>[0];
+  static final SequenceAutomaton EMPTY = compile(new ArrayList<>());
+
+  // Open-addressing table giving the symbol of each key used by a sequence
+  private final int[] alphabetKeys;
+  private final int[] alphabetSymbols;
+  private final int alphabetSize;
+  // Next state for each state and symbol, at state * alphabetSize + symbol
+  private final int[] transitions;
+  // Events of the sequences ending at each state
+  private final EventFactory<?>[][] matches;
+
+  private SequenceAutomaton(int[] alphabetKeys, int[] alphabetSymbols, int alphabetSize,
+                            int[] transitions, EventFactory<?>[][] matches) {
+    this.alphabetKeys = alphabetKeys;
+    this.alphabetSymbols = alphabetSymbols;
+    this.alphabetSize = alphabetSize;
+    this.transitions = transitions;
+    this.matches = matches;
+  }
+
+  /**
+   * @param state   Current state.
+   * @param keyCode Code of a pressed key.
+   * @return The state after pressing the key.
+   */
+  public int next(int state, int keyCode) {
+    int symbol = symbolOf(keyCode);
+    return symbol < 0 ? 0 : transitions[state * alphabetSize + symbol];
+  }
+
+  /**
+   * @param state A state of the automaton.
+   * @return The events of the sequences completed when reaching this state, or an empty array.
+   * The returned array is shared and must not be modified.
+   */
+  public EventFactory<?>[] matches(int state) {
+    return matches[state];
+  }
+
+  /**
+   * @return True if no sequence is bound.
+   */
+  public boolean isEmpty() {
+    return alphabetSize == 0;
+  }
+
+  /**
+   * @param keyCode Code of a key.
+   * @return The symbol of the key, or -1 if no sequence uses it.
+   */
+  private int symbolOf(int keyCode) {
+    int mask = alphabetKeys.length - 1;
+    int slot = (keyCode * 0x9E3779B9) >>> 16 & mask;
+    while (alphabetSymbols[slot] >= 0) {
+      if (alphabetKeys[slot] == keyCode) {
+        return alphabetSymbols[slot];
+      }
+      slot = (slot + 1) & mask;
+    }
+    return -1;
+  }
+
+  /**
+   * Build the automaton recognizing the given sequences.
+   *
+   * @param sequences Bound key sequences.
+   * @return A new automaton.
+   */
+  static SequenceAutomaton compile(List<KeySequence> sequences) {
+    // Number the keys used by the sequences
+    Map<Integer, Integer> alphabet = new HashMap<>();
+    for (KeySequence sequence : sequences) {
+      for (int keyCode : sequence.getKeyCodes()) {
+        alphabet.putIfAbsent(keyCode, alphabet.size());
+      }
+    }
+    int alphabetSize = alphabet.size();
+
+    // Build the trie of the sequences
+    List<int[]> children = new ArrayList<>();
+    List<List<EventFactory<?>>> outputs = new ArrayList<>();
+    children.add(newNode(alphabetSize));
+    outputs.add(new ArrayList<>());
+    for (KeySequence sequence : sequences) {
+      int state = 0;
+      for (int keyCode : sequence.getKeyCodes()) {
+        int symbol = alphabet.get(keyCode);
+        if (children.get(state)[symbol] < 0) {
+          children.get(state)[symbol] = children.size();
+          children.add(newNode(alphabetSize));
+          outputs.add(new ArrayList<>());
+        }
+        state = children.get(state)[symbol];
+      }
+      outputs.get(state).add(sequence.getEvent());
+    }
+
+    // Fill the missing transitions with the ones of the longest suffix in the trie
+    int states = children.size();
+    int[] transitions = new int[states * alphabetSize];
+    int[] fallback = new int[states];
+    Deque<Integer> queue = new ArrayDeque<>();
+    for (int symbol = 0; symbol < alphabetSize; symbol++) {
+      int child = children.get(0)[symbol];
+      transitions[symbol] = child < 0 ? 0 : child;
+      if (child >= 0) {
+        queue.add(child);
+      }
+    }
+    while (!queue.isEmpty()) {
+      int state = queue.poll();
+      outputs.get(state).addAll(outputs.get(fallback[state]));
+      for (int symbol = 0; symbol < alphabetSize; symbol++) {
+        int child = children.get(state)[symbol];
+        int viaFallback = transitions[fallback[state] * alphabetSize + symbol];
+        if (child < 0) {
+          transitions[state * alphabetSize + symbol] = viaFallback;
+        } else {
+          transitions[state * alphabetSize + symbol] = child;
+          fallback[child] = viaFallback;
+          queue.add(child);
+        }
+      }
+    }
+
+    EventFactory<?>[][] matches = new EventFactory<?>[states][];
+    for (int state = 0; state < states; state++) {
+      List<EventFactory<?>> output = outputs.get(state);
+      matches[state] = output.isEmpty() ? NO_EVENTS : output.toArray(new EventFactory<?>[output.size()]);
+    }
+
+    int capacity = Integer.highestOneBit(Math.max(1, alphabetSize) * 4);
+    int[] alphabetKeys = new int[capacity];
+    int[] alphabetSymbols = new int[capacity];
+    Arrays.fill(alphabetSymbols, -1);
+    alphabet.forEach((keyCode, symbol) -> {
+      int slot = (keyCode * 0x9E3779B9) >>> 16 & (capacity - 1);
+      while (alphabetSymbols[slot] >= 0) {
+        slot = (slot + 1) & (capacity - 1);
+      }
+      alphabetKeys[slot] = keyCode;
+      alphabetSymbols[slot] = symbol;
+    });
+
+    return new SequenceAutomaton(alphabetKeys, alphabetSymbols, alphabetSize, transitions, matches);
+  }
+
+  /**
+   * @param alphabetSize Number of keys used by the sequences.
+   * @return The children of a new trie node, none yet.
+   */
+  private static int[] newNode(int alphabetSize) {
+    int[] node = new int[alphabetSize];
+    Arrays.fill(node, -1);
+    return node;
+  }
+}
@@ -0,0 +1,50 @@
+package polytech.devint.controller.input;
+
+import polytech.devint.event.EventFactory;
+import polytech.devint.util.time.Timeout;
+
+/**
+ * Follows the key presses of one key dispatcher through the sequence automaton of its input
+ * configuration. A sequence is abandoned if the delay between two of its keys exceeds the
+ * sequence timeout of the configuration, or if the configuration is replaced.
+ * Advancing allocates nothing; it is synchronized so several input sources can share a matcher.
+ *
+ * @author Loris Friedel
+ */
+public class SequenceMatcher {
+
+  private SequenceAutomaton automaton;
+  private Timeout timeout;
+  private int state;
+
+  /**
+   * Move forward with a key press.
+   *
+   * @param configuration Configuration binding the sequences.
+   * @param keyCode       Code of the pressed key.
+   * @return The events of the sequences completed by this key, or an empty array. The returned
+   * array is shared and must not be modified.
+   */
+  public synchronized EventFactory<?>[] advance(SwingInputConfiguration configuration, int keyCode) {
+    SequenceAutomaton current = configuration.getSequenceAutomaton();
+    long timeoutMs = configuration.getSequenceTimeout();
+    if (current != automaton || timeout == null || timeout.getTimeToWaitMs() != timeoutMs) {
+      // The bindings changed, the sequences are matched again from the start
+      automaton = current;
+      timeout = new Timeout(timeoutMs);
+      state = 0;
+    } else if (timeout.canProceed()) {
+      state = 0;
+    }
+    timeout.proceed();
+    state = automaton.next(state, keyCode);
+    return automaton.matches(state);
+  }
+
+  /**
+   * Forget the keys pressed so far.
+   */
+  public synchronized void reset() {
+    state = 0;
+  }
+}
@@ -1,81 +1,158 @@
 package polytech.devint.controller.input;
 
-import java.awt.event.KeyEvent;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.json.JSONException;
 
 import polytech.devint.event.Event;
-import polytech.devint.event.basic.DownEvent;
-import polytech.devint.event.basic.EnterEvent;
-import polytech.devint.event.basic.EscapeEvent;
-import polytech.devint.event.basic.F1Event;
-import polytech.devint.event.basic.F2Event;
-import polytech.devint.event.basic.F3Event;
-import polytech.devint.event.basic.F4Event;
-import polytech.devint.event.basic.F5Event;
-import polytech.devint.event.basic.F6Event;
-import polytech.devint.event.basic.LeftEvent;
-import polytech.devint.event.basic.RightEvent;
-import polytech.devint.event.basic.SpaceEvent;
-import polytech.devint.event.basic.UpEvent;
+import polytech.devint.event.EventFactory;
+import polytech.devint.util.time.RateLimit;
 
 /**
  * Represent a configuration of inputs in the current environment.
  * It define the key binding.
+ * The events are resolved into factories when they are bound, so that pressing a key does not
+ * need any reflection, and stateless events are not instantiated again on each press.
+ * Besides single keys, events can be bound to chords (keys pressed together, like Ctrl+F1) and
+ * to sequences (keys pressed one after the other, like Up, Up, Down). The sequences are compiled
+ * into a {@link SequenceAutomaton} each time they change.
+ * A {@link RateLimit} can be set on a bound event to debounce or throttle it, for keyboards and
+ * switches producing bursts of presses.
+ * The default bindings are read from the {@code polytech/devint/defaultInput.conf} resource.
+ * The changes made by the code once the configuration is built are recorded, so that an
+ * {@link InputConfigurationWatcher} can apply them again on a configuration reloaded from a file.
  *
  * @author Loris Friedel
  */
 public class SwingInputConfiguration implements IConfiguration {
 
-  final Map<Integer, List<Class<? extends Event>>> keyPressedControls;
-  final Map<Integer, List<Class<? extends Event>>> keyPressedOnceControls;
-  final Map<Integer, List<Class<? extends Event>>> keyReleasedControls;
+  public static final long DEFAULT_SEQUENCE_TIMEOUT_MS = 1000;
+
+  private static final Logger LOGGER = LogManager.getLogger(SwingInputConfiguration.class);
+  private static final String DEFAULT_CONFIGURATION = "polytech/devint/defaultInput.conf";
+
+  final KeyBindingTable keyPressedControls;
+  final KeyBindingTable keyPressedOnceControls;
+  final KeyBindingTable keyReleasedControls;
+  final ChordTable chords;
+  private final List<KeySequence> sequences;
+  private volatile SequenceAutomaton sequenceAutomaton;
+  private volatile long sequenceTimeoutMs;
+  private final Map<Class<? extends Event>, RateLimit> rateLimits;
+  // Changes made by the code, in order, applied again on a reloaded configuration
+  private final List<Consumer<SwingInputConfiguration>> changes;
+  private volatile boolean recording;
 
   /**
-   * Create an empty input configuration
+   * Create an input configuration with the default key bindings
    */
   public SwingInputConfiguration() {
-    this.keyPressedControls = new HashMap<>();
-    this.keyPressedOnceControls = new HashMap<>();
-    this.keyReleasedControls = new HashMap<>();
-    loadDefault();
+    this(true);
+  }
+
+  /**
+   * @param withDefaults True to load the default key bindings and record the following changes,
+   *                     false to start without binding nor recording.
+   */
+  SwingInputConfiguration(boolean withDefaults) {
+    this.keyPressedControls = new KeyBindingTable();
+    this.keyPressedOnceControls = new KeyBindingTable();
+    this.keyReleasedControls = new KeyBindingTable();
+    this.chords = new ChordTable();
+    this.sequences = new ArrayList<>();
+    this.sequenceAutomaton = SequenceAutomaton.EMPTY;
+    this.sequenceTimeoutMs = DEFAULT_SEQUENCE_TIMEOUT_MS;
+    this.rateLimits = new ConcurrentHashMap<>();
+    this.changes = new CopyOnWriteArrayList<>();
+    if (withDefaults) {
+      loadDefault();
+      recordChanges();
+    }
   }
 
   /**
    * Load the default input configuration
    */
   private void loadDefault() {
-    bindOnPressOnce(KeyEvent.VK_F1, F1Event.class);
-    bindOnPressOnce(KeyEvent.VK_F2, F2Event.class);
-    bindOnPressOnce(KeyEvent.VK_F3, F3Event.class);
-    bindOnPressOnce(KeyEvent.VK_F4, F4Event.class);
-    bindOnPressOnce(KeyEvent.VK_F5, F5Event.class);
-    bindOnPressOnce(KeyEvent.VK_F6, F6Event.class);
-
-    // EN
-    bindOnPressOnce(KeyEvent.VK_SPACE, SpaceEvent.class);
-    bindOnPressOnce(KeyEvent.VK_ESCAPE, EscapeEvent.class);
-    bindOnPressOnce(KeyEvent.VK_ENTER, EnterEvent.class);
-    bindOnPressOnce(KeyEvent.VK_UP, UpEvent.class);
-    bindOnPressOnce(KeyEvent.VK_DOWN, DownEvent.class);
-    bindOnPressOnce(KeyEvent.VK_LEFT, LeftEvent.class);
-    bindOnPressOnce(KeyEvent.VK_RIGHT, RightEvent.class);
+    InputConfigurationLoader defaults = DefaultConfiguration.LOADER;
+    if (defaults != null) {
+      defaults.bind(this);
+    }
   }
 
-  public void bindOnPress(Integer keyCode, Class<? extends Event> event) {
+  /**
+   * Start recording the changes made to this configuration.
+   */
+  void recordChanges() {
+    recording = true;
+  }
+
+  /**
+   * Apply to this configuration the changes recorded by another one, in the same order.
+   * They are recorded again by this configuration.
+   *
+   * @param previous Configuration replaced by this one.
+   */
+  void replayChanges(SwingInputConfiguration previous) {
+    previous.changes.forEach(change -> change.accept(this));
+  }
+
+  /**
+   * @param change Change just made to this configuration, recorded if the code made it.
+   */
+  private void record(Consumer<SwingInputConfiguration> change) {
+    if (recording) {
+      changes.add(change);
+    }
+  }
+
+  public void bindOnPress(int keyCode, Class<? extends Event> event) {
     bind(keyPressedControls, keyCode, event);
+    record(config -> config.bindOnPress(keyCode, event));
   }
 
-  public void bindOnPressOnce(Integer keyCode, Class<? extends Event> event) {
+  /**
+   * @deprecated Key codes are primitive, use {@link #bindOnPress(int, Class)}.
+   */
+  @Deprecated
+  public void bindOnPress(Integer keyCode, Class<? extends Event> event) {
+    bindOnPress(keyCode.intValue(), event);
+  }
+
+  public void bindOnPressOnce(int keyCode, Class<? extends Event> event) {
     bind(keyPressedOnceControls, keyCode, event);
+    record(config -> config.bindOnPressOnce(keyCode, event));
   }
 
-  public void bindOnRelease(Integer keyCode, Class<? extends Event> event) {
+  /**
+   * @deprecated Key codes are primitive, use {@link #bindOnPressOnce(int, Class)}.
+   */
+  @Deprecated
+  public void bindOnPressOnce(Integer keyCode, Class<? extends Event> event) {
+    bindOnPressOnce(keyCode.intValue(), event);
+  }
+
+  public void bindOnRelease(int keyCode, Class<? extends Event> event) {
     bind(keyReleasedControls, keyCode, event);
+    record(config -> config.bindOnRelease(keyCode, event));
+  }
+
+  /**
+   * @deprecated Key codes are primitive, use {@link #bindOnRelease(int, Class)}.
+   */
+  @Deprecated
+  public void bindOnRelease(Integer keyCode, Class<? extends Event> event) {
+    bindOnRelease(keyCode.intValue(), event);
   }
 
   /**
@@ -84,42 +161,166 @@ public class SwingInputConfiguration implements IConfiguration {
    * @param controls Binding map in which we need to register the given key binding.
    * @param keyCode  Key that will trigger the event
    * @param event    Event triggered
+   * @throws IllegalArgumentException If the event cannot be instantiated.
    */
-  private void bind(Map<Integer, List<Class<? extends Event>>> controls, Integer keyCode, Class<? extends Event> event) {
-    // The key is already in the map
-    if (controls.containsKey(keyCode)) {
-      controls.get(keyCode).add(event);
+  private void bind(KeyBindingTable controls, int keyCode, Class<? extends Event> event) {
+    controls.add(keyCode, EventFactory.of(event));
+  }
+
+  /**
+   * Bind an event to a chord: it is triggered by the first press of the last key while the
+   * other keys are held down. The events bound to the first press of the last key alone are then
+   * not triggered.
+   *
+   * @param event    Event triggered
+   * @param keyCodes Keys of the chord, the last one triggering it.
+   * @throws IllegalArgumentException If there are less than two keys or if the event cannot be
+   *                                  instantiated.
+   */
+  public void bindChord(Class<? extends Event> event, int... keyCodes) {
+    checkLength(keyCodes);
+    chords.add(new KeyChord(keyCodes, EventFactory.of(event)));
+    record(config -> config.bindChord(event, keyCodes));
+  }
+
+  /**
+   * Bind an event to a sequence of keys pressed one after the other, each one within the
+   * sequence timeout after the previous one.
+   *
+   * @param event    Event triggered
+   * @param keyCodes Keys of the sequence, in order.
+   * @throws IllegalArgumentException If there are less than two keys or if the event cannot be
+   *                                  instantiated.
+   */
+  public synchronized void bindSequence(Class<? extends Event> event, int... keyCodes) {
+    checkLength(keyCodes);
+    sequences.add(new KeySequence(keyCodes, EventFactory.of(event)));
+    sequenceAutomaton = SequenceAutomaton.compile(sequences);
+    record(config -> config.bindSequence(event, keyCodes));
+  }
+
+  /**
+   * @param keyCodes Keys of a chord or a sequence.
+   * @throws IllegalArgumentException If there are less than two keys.
+   */
+  private static void checkLength(int[] keyCodes) {
+    if (keyCodes.length < 2) {
+      throw new IllegalArgumentException("At least two keys are needed, got " + keyCodes.length);
     }
-    // The key is not in the map
-    else {
-      List<Class<? extends Event>> events = new ArrayList<>();
-      events.add(event);
-      controls.put(keyCode, events);
+  }
+
+  public void unbindChords(Class<? extends Event> event) {
+    chords.remove(event);
+    record(config -> config.unbindChords(event));
+  }
+
+  public void unbindSequences(Class<? extends Event> event) {
+    removeSequences(event);
+    record(config -> config.unbindSequences(event));
+  }
+
+  /**
+   * @param event Event whose sequences are removed.
+   */
+  private synchronized void removeSequences(Class<? extends Event> event) {
+    if (sequences.removeIf(sequence -> sequence.getEvent().getEventType() == event)) {
+      sequenceAutomaton = SequenceAutomaton.compile(sequences);
     }
   }
 
-  public void unbindKeyPressed(Integer keyCode) {
+  /**
+   * @param timeoutMs Maximum delay between two keys of a sequence, in milliseconds.
+   */
+  public void setSequenceTimeout(long timeoutMs) {
+    this.sequenceTimeoutMs = timeoutMs;
+    record(config -> config.setSequenceTimeout(timeoutMs));
+  }
+
+  /**
+   * @return The maximum delay between two keys of a sequence, in milliseconds.
+   */
+  public long getSequenceTimeout() {
+    return sequenceTimeoutMs;
+  }
+
+  /**
+   * Limit how often an event is triggered, whatever binding triggers it.
+   *
+   * @param event Event to limit.
+   * @param limit Debounce or throttle policy of the event.
+   */
+  public void setRateLimit(Class<? extends Event> event, RateLimit limit) {
+    rateLimits.put(event, limit);
+    record(config -> config.setRateLimit(event, limit));
+  }
+
+  public void removeRateLimit(Class<? extends Event> event) {
+    rateLimits.remove(event);
+    record(config -> config.removeRateLimit(event));
+  }
+
+  /**
+   * Allocation-free lookup of the rate limit of an event, meant for key dispatchers.
+   *
+   * @param event Class of a bound event.
+   * @return The rate limit of the event, or null if it is not limited.
+   */
+  public RateLimit getRateLimit(Class<? extends Event> event) {
+    return rateLimits.get(event);
+  }
+
+  public void unbindKeyPressed(int keyCode) {
     keyPressedControls.remove(keyCode);
+    record(config -> config.unbindKeyPressed(keyCode));
+  }
+
+  /**
+   * @deprecated Key codes are primitive, use {@link #unbindKeyPressed(int)}.
+   */
+  @Deprecated
+  public void unbindKeyPressed(Integer keyCode) {
+    unbindKeyPressed(keyCode.intValue());
   }
 
   public void unbindKeyPressed(Class<? extends Event> event) {
     unbind(keyPressedControls, event);
+    record(config -> config.unbindKeyPressed(event));
   }
 
-  public void unbindKeyPressedOnce(Integer keyCode) {
+  public void unbindKeyPressedOnce(int keyCode) {
     keyPressedOnceControls.remove(keyCode);
+    record(config -> config.unbindKeyPressedOnce(keyCode));
+  }
+
+  /**
+   * @deprecated Key codes are primitive, use {@link #unbindKeyPressedOnce(int)}.
+   */
+  @Deprecated
+  public void unbindKeyPressedOnce(Integer keyCode) {
+    unbindKeyPressedOnce(keyCode.intValue());
   }
 
   public void unbindKeyPressedOnce(Class<? extends Event> event) {
     unbind(keyPressedOnceControls, event);
+    record(config -> config.unbindKeyPressedOnce(event));
   }
 
-  public void unbindKeyReleased(Integer keyCode) {
+  public void unbindKeyReleased(int keyCode) {
     keyReleasedControls.remove(keyCode);
+    record(config -> config.unbindKeyReleased(keyCode));
+  }
+
+  /**
+   * @deprecated Key codes are primitive, use {@link #unbindKeyReleased(int)}.
+   */
+  @Deprecated
+  public void unbindKeyReleased(Integer keyCode) {
+    unbindKeyReleased(keyCode.intValue());
   }
 
   public void unbindKeyReleased(Class<? extends Event> event) {
     unbind(keyReleasedControls, event);
+    record(config -> config.unbindKeyReleased(event));
   }
 
   /**
@@ -129,10 +330,19 @@ public class SwingInputConfiguration implements IConfiguration {
    *
    * @param keyCode Key code of the key to remove its binding
    */
-  public void unbind(Integer keyCode) {
+  public void unbind(int keyCode) {
     keyPressedControls.remove(keyCode);
     keyPressedOnceControls.remove(keyCode);
     keyReleasedControls.remove(keyCode);
+    record(config -> config.unbind(keyCode));
+  }
+
+  /**
+   * @deprecated Key codes are primitive, use {@link #unbind(int)}.
+   */
+  @Deprecated
+  public void unbind(Integer keyCode) {
+    unbind(keyCode.intValue());
   }
 
   /**
@@ -145,6 +355,9 @@ public class SwingInputConfiguration implements IConfiguration {
     unbind(keyPressedControls, event);
     unbind(keyPressedOnceControls, event);
     unbind(keyReleasedControls, event);
+    chords.remove(event);
+    removeSequences(event);
+    record(config -> config.unbind(event));
   }
 
   /**
@@ -154,38 +367,98 @@ public class SwingInputConfiguration implements IConfiguration {
    * @param event    Event(s) that should now be bind anymore.
    * @param controls Binding map in which to remove the binding.
    */
-  private void unbind(Map<Integer, List<Class<? extends Event>>> controls, Class<? extends Event> event) {
-    Iterator<Map.Entry<Integer, List<Class<? extends Event>>>> iterator =
-            controls.entrySet().iterator();
-
-    // for all entries
-    while (iterator.hasNext()) {
-      List<Class<? extends Event>> events = iterator.next().getValue();
-
-      // if the list of event contains the one we want to remove
-      if (events.contains(event)) {
-        events.remove(event);
+  private void unbind(KeyBindingTable controls, Class<? extends Event> event) {
+    controls.remove(event);
+  }
 
-        // if no event left in the list, remove the entry
-        if (events.isEmpty()) {
-          iterator.remove();
-        }
-      }
-    }
+  public Optional<List<Class<? extends Event>>> getKeyPressedEvents(int keyCode) {
+    return getEvents(keyPressedControls, keyCode);
   }
 
+  /**
+   * @deprecated Key codes are primitive, use {@link #getKeyPressedEvents(int)}.
+   */
+  @Deprecated
   public Optional<List<Class<? extends Event>>> getKeyPressedEvents(Integer keyCode) {
-    return getEvents(keyPressedControls, keyCode);
+    return getKeyPressedEvents(keyCode.intValue());
   }
 
-  public Optional<List<Class<? extends Event>>> getKeyPressedOnceEvents(Integer keyCode) {
+  public Optional<List<Class<? extends Event>>> getKeyPressedOnceEvents(int keyCode) {
     return getEvents(keyPressedOnceControls, keyCode);
   }
 
-  public Optional<List<Class<? extends Event>>> getKeyReleasedEvents(Integer keyCode) {
+  /**
+   * @deprecated Key codes are primitive, use {@link #getKeyPressedOnceEvents(int)}.
+   */
+  @Deprecated
+  public Optional<List<Class<? extends Event>>> getKeyPressedOnceEvents(Integer keyCode) {
+    return getKeyPressedOnceEvents(keyCode.intValue());
+  }
+
+  public Optional<List<Class<? extends Event>>> getKeyReleasedEvents(int keyCode) {
     return getEvents(keyReleasedControls, keyCode);
   }
 
+  /**
+   * @deprecated Key codes are primitive, use {@link #getKeyReleasedEvents(int)}.
+   */
+  @Deprecated
+  public Optional<List<Class<? extends Event>>> getKeyReleasedEvents(Integer keyCode) {
+    return getKeyReleasedEvents(keyCode.intValue());
+  }
+
+  /**
+   * Allocation-free lookup of the events bound to a key press, meant for key dispatchers.
+   *
+   * @param keyCode Key code of the pressed key.
+   * @return The factories of the events bound to the key, or an empty array.
+   * The returned array is shared and must not be modified.
+   */
+  public EventFactory<?>[] getKeyPressedFactories(int keyCode) {
+    return keyPressedControls.get(keyCode);
+  }
+
+  /**
+   * Allocation-free lookup of the events bound to the first press of a key.
+   *
+   * @param keyCode Key code of the pressed key.
+   * @return The factories of the events bound to the key, or an empty array.
+   * The returned array is shared and must not be modified.
+   */
+  public EventFactory<?>[] getKeyPressedOnceFactories(int keyCode) {
+    return keyPressedOnceControls.get(keyCode);
+  }
+
+  /**
+   * Allocation-free lookup of the events bound to a key release.
+   *
+   * @param keyCode Key code of the released key.
+   * @return The factories of the events bound to the key, or an empty array.
+   * The returned array is shared and must not be modified.
+   */
+  public EventFactory<?>[] getKeyReleasedFactories(int keyCode) {
+    return keyReleasedControls.get(keyCode);
+  }
+
+  /**
+   * Allocation-free lookup of the chords a key press can complete.
+   *
+   * @param keyCode Key code of the pressed key.
+   * @return The chords triggered by the key, or an empty array.
+   * The returned array is shared and must not be modified.
+   */
+  public KeyChord[] getChords(int keyCode) {
+    return chords.get(keyCode);
+  }
+
+  /**
+   * @return The automaton recognizing the bound sequences. A new instance is compiled each time
+   * the sequences change.
+   */
+  public SequenceAutomaton getSequenceAutomaton() {
+    return sequenceAutomaton;
+  }
+
   /**
    * Retrieve the associated event from its key in the given controls map.
    *
@@ -193,7 +466,39 @@ public class SwingInputConfiguration implements IConfiguration {
    * @param keyCode  Key of the event (need to be registered in the input configuration file).
    * @return the event linked to the given key
    */
-  private Optional<List<Class<? extends Event>>> getEvents(Map<Integer, List<Class<? extends Event>>> controls, Integer keyCode) {
-    return Optional.ofNullable(controls.get(keyCode));
+  private Optional<List<Class<? extends Event>>> getEvents(KeyBindingTable controls, int keyCode) {
+    EventFactory<?>[] factories = controls.get(keyCode);
+    if (factories.length == 0) {
+      return Optional.empty();
+    }
+    List<Class<? extends Event>> events = new ArrayList<>(factories.length);
+    for (EventFactory<?> factory : factories) {
+      events.add(factory.getEventType());
+    }
+    return Optional.of(events);
+  }
+
+  /**
+   * Holds the default configuration, read once from its resource.
+   */
+  private static final class DefaultConfiguration {
+
+    private static final InputConfigurationLoader LOADER = load();
+
+    /**
+     * @return The loader of the default configuration, or null if it cannot be read.
+     */
+    private static InputConfigurationLoader load() {
+      try (InputStream input = SwingInputConfiguration.class.getClassLoader()
+              .getResourceAsStream(DEFAULT_CONFIGURATION)) {
+        if (input == null) {
+          throw new IOException("Resource not found");
+        }
+        return new InputConfigurationLoader(input);
+      } catch (IOException | JSONException | IllegalArgumentException e) {
+        LOGGER.error("Couldn't read the input configuration resource " + DEFAULT_CONFIGURATION, e);
+        return null;
+      }
+    }
   }
 }
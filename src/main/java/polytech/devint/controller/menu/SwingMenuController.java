@@ -1,19 +1,27 @@
 package polytech.devint.controller.menu;
 
+import java.util.Objects;
+
 import polytech.devint.controller.DevintController;
 import polytech.devint.controller.input.InputConfiguration;
 import polytech.devint.controller.input.SwingInputConfiguration;
 import polytech.devint.event.EventHandler;
+import polytech.devint.event.HandlerThread;
 import polytech.devint.event.basic.DownEvent;
 import polytech.devint.event.basic.EnterEvent;
 import polytech.devint.event.basic.UpEvent;
 import polytech.devint.model.menu.SwingMenuModel;
+import polytech.devint.scheduler.SchedulerReady;
 import polytech.devint.view.View;
 import polytech.devint.view.swing.menu.Button;
 import polytech.devint.view.swing.menu.SwingMenuView;
 import polytech.devint.view.swing.menu.event.ButtonTriggeredEvent;
 
 /**
+ * Moves the selection of the active menu views and triggers their buttons.
+ * The selection is Swing state: it is changed and read on the EDT, in the order of the key
+ * events. Only the actions of the buttons run on background threads.
+ *
  * @author Loris Friedel
  */
 public class SwingMenuController<M extends SwingMenuModel> extends DevintController<M, SwingMenuView<M>> {
@@ -26,35 +34,44 @@ public class SwingMenuController<M extends SwingMenuModel> extends DevintControl
     super(model);
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.EDT)
   public final void onUp(UpEvent event) {
     getViews().stream()
             .filter(View::isActive)
             .forEach(v -> v.changeButtonSelection(SwingMenuView.Direction.UP));
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.EDT)
   public final void onDown(DownEvent event) {
     getViews().stream()
             .filter(View::isActive)
             .forEach(v -> v.changeButtonSelection(SwingMenuView.Direction.DOWN));
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.EDT)
   public final void onEnter(EnterEvent event) {
+    // The selection is captured now, a later key press cannot change the triggered button
     getViews().stream()
-            .filter(v -> v.isActive() && v.getCurrentSelectedButton() != null)
-            .forEach(v -> triggerButton(v.getCurrentSelectedButton()));
+            .filter(View::isActive)
+            .map(SwingMenuView::getCurrentSelectedButton)
+            .filter(Objects::nonNull)
+            .forEach(button -> SchedulerReady.execute(() -> triggerButton(button)));
   }
 
-  @EventHandler
+  @EventHandler(thread = HandlerThread.BACKGROUND)
   public final void onButtonTrigger(ButtonTriggeredEvent event) {
     triggerButton(event.getButton());
   }
 
+  /**
+   * Run the action of the given button. Button actions are called from background threads,
+   * so they never block the input.
+   *
+   * @param button Button to trigger.
+   */
   private void triggerButton(Button button) {
     if (button!= null) {
-      new Thread(button.getAction()).start();
+      button.getAction().run();
     }
   }
 }
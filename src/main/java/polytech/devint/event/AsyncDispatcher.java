@@ -0,0 +1,257 @@
+package polytech.devint.event;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Bounded event queue drained by a dedicated dispatcher thread.
+ * Any thread can submit events. They are delivered one at a time, in submission order,
+ * so every observer receives them in the order they were notified.
+ * A {@link Coalescible} event submitted while another event of its class is pending replaces it:
+ * the pending one is dropped and the new one is queued last, so it still follows the events
+ * submitted before it.
+ * A dispatcher replacing another one only starts delivering once the previous one has delivered
+ * all its events, so the order is kept when the dispatch mode changes.
+ *
+ * @author Loris Friedel
+ */
+final class AsyncDispatcher {
+
+  private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+  private final Consumer<Event> sink;
+  private final int capacity;
+  private final BackpressurePolicy policy;
+  private final ArrayDeque<Slot> queue;
+  // Latest queued slot of each event class, dropped to coalesce an event
+  private final Map<Class<?>, Slot> latest;
+  private final ReentrantLock lock;
+  private final Condition notEmpty;
+  private final Condition notFull;
+  private final Condition done;
+  private final Thread thread;
+  private volatile AsyncDispatcher predecessor;
+  private boolean running;
+  private boolean terminated;
+
+  /**
+   * Create a dispatcher and start its thread.
+   *
+   * @param sink     Called on the dispatcher thread for each submitted event.
+   * @param capacity Maximum number of pending events.
+   * @param policy   What to do when an event is submitted while the queue is full.
+   */
+  AsyncDispatcher(Consumer<Event> sink, int capacity, BackpressurePolicy policy) {
+    this(sink, capacity, policy, null);
+  }
+
+  /**
+   * Create a dispatcher and start its thread, which waits for the given dispatcher to terminate
+   * before delivering the submitted events.
+   *
+   * @param sink        Called on the dispatcher thread for each submitted event.
+   * @param capacity    Maximum number of pending events.
+   * @param policy      What to do when an event is submitted while the queue is full.
+   * @param predecessor Dispatcher replaced by this one, or null.
+   */
+  AsyncDispatcher(Consumer<Event> sink, int capacity, BackpressurePolicy policy,
+          AsyncDispatcher predecessor) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("The capacity must be positive: " + capacity);
+    }
+    this.sink = sink;
+    this.capacity = capacity;
+    this.policy = policy;
+    this.queue = new ArrayDeque<>(capacity);
+    this.latest = new HashMap<>();
+    this.lock = new ReentrantLock();
+    this.notEmpty = lock.newCondition();
+    this.notFull = lock.newCondition();
+    this.done = lock.newCondition();
+    this.predecessor = predecessor;
+    this.running = true;
+    this.thread = new Thread(this::drain, "devint-event-dispatcher-" + THREAD_COUNT.incrementAndGet());
+    this.thread.setDaemon(true);
+    this.thread.start();
+  }
+
+  /**
+   * Queue an event for delivery, applying the backpressure policy if the queue is full.
+   * Events submitted by the dispatcher thread itself, or by the thread of a dispatcher it waits
+   * for (from a handler), are always queued, since waiting for a free slot there would never end.
+   * Once the dispatcher thread has terminated, events are delivered on the calling thread.
+   *
+   * @param event Event to deliver.
+   */
+  void submit(Event event) {
+    lock.lock();
+    try {
+      if (!terminated) {
+        if (event instanceof Coalescible && dropLatest(event)) {
+          enqueue(event);
+          return;
+        }
+        if (!isDispatcherThread(Thread.currentThread())) {
+          while (running && queue.size() >= capacity) {
+            if (policy == BackpressurePolicy.DROP_OLDEST) {
+              poll();
+            } else if (policy == BackpressurePolicy.COALESCE && dropLatest(event)) {
+              break;
+            } else {
+              notFull.awaitUninterruptibly();
+            }
+          }
+        }
+        enqueue(event);
+        return;
+      }
+    } finally {
+      lock.unlock();
+    }
+    sink.accept(event);
+  }
+
+  /**
+   * Queue an event last. The lock must be held.
+   *
+   * @param event Event to deliver.
+   */
+  private void enqueue(Event event) {
+    Slot slot = new Slot(event);
+    queue.addLast(slot);
+    latest.put(event.getClass(), slot);
+    notEmpty.signal();
+  }
+
+  /**
+   * Drop the latest pending event of the same class as the given one, which replaces it. The
+   * lock must be held. The pending event is searched from the end of the queue, where the
+   * events coalesced at a high rate are.
+   *
+   * @param event New event.
+   * @return True if a pending event has been dropped.
+   */
+  private boolean dropLatest(Event event) {
+    Slot slot = latest.remove(event.getClass());
+    if (slot == null) {
+      return false;
+    }
+    queue.removeLastOccurrence(slot);
+    return true;
+  }
+
+  /**
+   * Remove the oldest event from the queue. The lock must be held and the queue not empty.
+   *
+   * @return The removed event.
+   */
+  private Event poll() {
+    Slot slot = queue.pollFirst();
+    latest.remove(slot.event.getClass(), slot);
+    return slot.event;
+  }
+
+  /**
+   * Stop the dispatcher thread once the pending events have been delivered.
+   * This method does not wait for the pending events.
+   */
+  void shutdown() {
+    lock.lock();
+    try {
+      running = false;
+      notEmpty.signalAll();
+      notFull.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Wait until the dispatcher thread has delivered the pending events and stopped.
+   * The dispatcher must have been shut down.
+   * Called from a handler on the dispatcher thread, the pending events are delivered before this
+   * method returns, on the calling thread. Called from the thread of a dispatcher this one waits
+   * for, it returns immediately since waiting there would never end.
+   */
+  void awaitTermination() {
+    Thread current = Thread.currentThread();
+    if (current == thread) {
+      deliverPending();
+    } else if (!isDispatcherThread(current)) {
+      lock.lock();
+      try {
+        while (!terminated) {
+          done.awaitUninterruptibly();
+        }
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * @param candidate Thread to check.
+   * @return True if the given thread delivers the events of this dispatcher or of a dispatcher
+   *         this one waits for.
+   */
+  private boolean isDispatcherThread(Thread candidate) {
+    AsyncDispatcher previous = predecessor;
+    return candidate == thread || (previous != null && previous.isDispatcherThread(candidate));
+  }
+
+  /**
+   * Loop of the dispatcher thread: wait for the replaced dispatcher, then deliver the queued
+   * events until the dispatcher is shut down and its queue is empty.
+   */
+  private void drain() {
+    AsyncDispatcher previous = predecessor;
+    if (previous != null) {
+      previous.awaitTermination();
+      predecessor = null;
+    }
+    deliverPending();
+  }
+
+  /**
+   * Deliver the queued events until the dispatcher is shut down and its queue is empty.
+   */
+  private void deliverPending() {
+    while (true) {
+      Event event;
+      lock.lock();
+      try {
+        while (queue.isEmpty() && running) {
+          notEmpty.awaitUninterruptibly();
+        }
+        if (queue.isEmpty()) {
+          terminated = true;
+          done.signalAll();
+          return;
+        }
+        event = poll();
+        notFull.signal();
+      } finally {
+        lock.unlock();
+      }
+      sink.accept(event);
+    }
+  }
+
+  /**
+   * Place of an event in the queue, found by identity when a newer one of the same class
+   * replaces it.
+   */
+  private static final class Slot {
+
+    private final Event event;
+
+    private Slot(Event event) {
+      this.event = event;
+    }
+  }
+}
@@ -0,0 +1,25 @@
+package polytech.devint.event;
+
+/**
+ * What an asynchronous {@link Observable} does when an event is notified while its queue is full.
+ *
+ * @author Loris Friedel
+ */
+public enum BackpressurePolicy {
+
+  /**
+   * The notifying thread waits until the dispatcher thread frees a slot in the queue.
+   */
+  BLOCK,
+
+  /**
+   * The oldest pending event is discarded to make room for the new one.
+   */
+  DROP_OLDEST,
+
+  /**
+   * The new event replaces the latest pending event of the same class, which is dropped, and is
+   * queued last. If no such event is pending, the notifying thread waits as with {@link #BLOCK}.
+   */
+  COALESCE
+}
@@ -0,0 +1,29 @@
+package polytech.devint.event;
+
+import java.util.List;
+
+/**
+ * Carries the events of a batch through the dispatch of an {@link Observable}, so a batch takes
+ * a single place in the asynchronous queue and is delivered in one pass.
+ * It is never passed to the handlers.
+ *
+ * @author Loris Friedel
+ */
+final class BatchEvent implements Event {
+
+  private final List<Event> events;
+
+  /**
+   * @param events Events of the batch, in delivery order.
+   */
+  BatchEvent(List<Event> events) {
+    this.events = events;
+  }
+
+  /**
+   * @return The events of the batch, in delivery order.
+   */
+  List<Event> getEvents() {
+    return events;
+  }
+}
@@ -0,0 +1,25 @@
+package polytech.devint.event;
+
+/**
+ * An observer told about the batches of events published by the observables it observes.
+ * When a batch is published, its listeners receiving at least one event of it are told before
+ * the first event is delivered and after the last one, so they can defer their expensive work
+ * (like repainting) and do it once for the whole batch.
+ * Both methods are called on the thread that delivers the batch, or on the event dispatch thread
+ * if the listener has handlers of the batch running there, so they surround these handlers too.
+ *
+ * @author Loris Friedel
+ */
+public interface BatchListener {
+
+  /**
+   * Called before the events of a batch are delivered.
+   */
+  default void onBatchStart() {
+  }
+
+  /**
+   * Called once all the events of a batch have been delivered.
+   */
+  void onBatchEnd();
+}
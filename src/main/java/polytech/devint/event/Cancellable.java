@@ -0,0 +1,22 @@
+package polytech.devint.event;
+
+/**
+ * An event whose propagation can be stopped by one of its handlers.
+ * Handlers are called by decreasing priority, and once a handler cancels the event, the
+ * remaining handlers are skipped. Only the handlers called on the dispatching thread can stop the
+ * propagation, since the other ones run after the dispatch has gone on.
+ *
+ * @author Loris Friedel
+ */
+public interface Cancellable extends Event {
+
+  /**
+   * @return True if a handler has cancelled this event.
+   */
+  boolean isCancelled();
+
+  /**
+   * Stop the propagation of this event: the handlers of lower priority will not be called.
+   */
+  void cancel();
+}
@@ -0,0 +1,23 @@
+package polytech.devint.event;
+
+/**
+ * Base class of the events that can be cancelled.
+ * A cancellable event carries its cancellation state, so a new instance is created for each
+ * notification.
+ *
+ * @author Loris Friedel
+ */
+public abstract class CancellableEvent implements Cancellable {
+
+  private volatile boolean cancelled;
+
+  @Override
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  @Override
+  public void cancel() {
+    cancelled = true;
+  }
+}
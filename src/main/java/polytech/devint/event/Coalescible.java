@@ -0,0 +1,15 @@
+package polytech.devint.event;
+
+/**
+ * Marks an event that can be collapsed with the pending events of the same class.
+ * When an asynchronous {@link Observable} queues a coalescible event while another event of the
+ * same class is still waiting to be delivered, only the newest one is delivered: the pending one
+ * is dropped and the newest one is queued after the events notified before it, so the order of
+ * the events of different classes is kept.
+ * Use it for high-frequency notifications where only the latest one matters, like repaint
+ * requests or state updates on a held key.
+ *
+ * @author Loris Friedel
+ */
+public interface Coalescible extends Event {
+}
@@ -0,0 +1,141 @@
+package polytech.devint.event;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Immutable snapshot of the subscriptions of an {@link Observable}, by event type.
+ * Each registration change builds a new table with a higher version, which the observable
+ * publishes at once; dispatching threads read whichever table is current without locking,
+ * and always see a complete state.
+ *
+ * @author Loris Friedel
+ */
+final class DispatchTable {
+
+  static final DispatchTable EMPTY = new DispatchTable(0, Collections.emptyMap());
+
+  private final long version;
+  private final Map<Class<? extends Event>, List<Subscription>> subscriptions;
+  // Subscriptions to call for each concrete event class, derived from the immutable index
+  private final Map<Class<? extends Event>, Subscription[]> resolved;
+
+  /**
+   * @param version       Version of the table, higher than the one it replaces.
+   * @param subscriptions Subscriptions by event type, that must not be modified afterwards.
+   */
+  private DispatchTable(long version, Map<Class<? extends Event>, List<Subscription>> subscriptions) {
+    this.version = version;
+    this.subscriptions = subscriptions;
+    this.resolved = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @return The version of this table, incremented on each registration change.
+   */
+  long getVersion() {
+    return version;
+  }
+
+  /**
+   * @return The subscriptions by declared event type. The returned map is read-only.
+   */
+  Map<Class<? extends Event>, List<Subscription>> getSubscriptions() {
+    return subscriptions;
+  }
+
+  /**
+   * Build the table following this one, with the subscriptions of a new observer.
+   *
+   * @param handlers     Handlers of the observer, by event type.
+   * @param subscription Creates the subscription of the observer to one of its handlers.
+   * @return A new table.
+   */
+  DispatchTable with(Map<Class<? extends Event>, List<HandlerMethod>> handlers,
+                     Function<HandlerMethod, Subscription> subscription) {
+    Map<Class<? extends Event>, List<Subscription>> copy = new HashMap<>(subscriptions);
+    handlers.forEach((eventType, methods) -> {
+      List<Subscription> eventSubscriptions = new ArrayList<>(copy.getOrDefault(eventType,
+              Collections.emptyList()));
+      methods.forEach(method -> eventSubscriptions.add(subscription.apply(method)));
+      copy.put(eventType, Collections.unmodifiableList(eventSubscriptions));
+    });
+    return new DispatchTable(version + 1, Collections.unmodifiableMap(copy));
+  }
+
+  /**
+   * Build the table following this one, without the subscriptions of an observer.
+   * The removed subscriptions are deactivated, so the calls already scheduled with an older
+   * table skip them.
+   *
+   * @param handlers     Handlers of the observer, by event type.
+   * @param subscription Tells whether a subscription belongs to the observer.
+   * @return A new table.
+   */
+  DispatchTable without(Map<Class<? extends Event>, List<HandlerMethod>> handlers,
+                        Predicate<Subscription> subscription) {
+    Map<Class<? extends Event>, List<Subscription>> copy = new HashMap<>(subscriptions);
+    handlers.keySet().forEach(eventType -> {
+      List<Subscription> eventSubscriptions = copy.get(eventType);
+      if (eventSubscriptions == null) {
+        return;
+      }
+      List<Subscription> remaining = new ArrayList<>(eventSubscriptions.size());
+      for (Subscription current : eventSubscriptions) {
+        if (subscription.test(current)) {
+          current.deactivate();
+        } else {
+          remaining.add(current);
+        }
+      }
+      if (remaining.isEmpty()) {
+        copy.remove(eventType);
+      } else {
+        copy.put(eventType, Collections.unmodifiableList(remaining));
+      }
+    });
+    return new DispatchTable(version + 1, Collections.unmodifiableMap(copy));
+  }
+
+  /**
+   * Build the table following this one, without any subscription.
+   * Every subscription of this table is deactivated.
+   *
+   * @return A new empty table.
+   */
+  DispatchTable cleared() {
+    subscriptions.values().forEach(eventSubscriptions ->
+            eventSubscriptions.forEach(Subscription::deactivate));
+    return new DispatchTable(version + 1, Collections.emptyMap());
+  }
+
+  /**
+   * Find the subscriptions that must be called for the given class of event.
+   * The result is computed once per event class for this table, so the type hierarchy is not
+   * walked and the handlers are not sorted on each dispatch.
+   *
+   * @param type Concrete class of a dispatched event.
+   * @return The subscriptions to call, in the order they must be called.
+   */
+  Subscription[] resolve(Class<? extends Event> type) {
+    Subscription[] result = resolved.get(type);
+    if (result == null) {
+      List<Subscription> matching = new ArrayList<>();
+      subscriptions.values().forEach(eventSubscriptions -> eventSubscriptions.forEach(subscription -> {
+        if (subscription.getHandler().accepts(type)) {
+          matching.add(subscription);
+        }
+      }));
+      matching.sort(Subscription.DISPATCH_ORDER);
+      result = matching.toArray(new Subscription[matching.size()]);
+      resolved.put(type, result);
+    }
+    return result;
+  }
+}
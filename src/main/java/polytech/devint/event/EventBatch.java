@@ -0,0 +1,58 @@
+package polytech.devint.event;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects events to publish them together once closed.
+ * Use it in a try-with-resources statement when a change of state produces several events:
+ * <pre>
+ * try (EventBatch batch = model.beginBatch()) {
+ *   batch.add(new ScoreEvent());
+ *   batch.add(new LevelEvent());
+ * }
+ * </pre>
+ *
+ * @author Loris Friedel
+ * @see Observable#publishBatch(java.util.Collection)
+ */
+public final class EventBatch implements AutoCloseable {
+
+  private final Observable observable;
+  private final List<Event> events;
+  private boolean closed;
+
+  /**
+   * @param observable Observable that will publish the events.
+   */
+  EventBatch(Observable observable) {
+    this.observable = observable;
+    this.events = new ArrayList<>();
+  }
+
+  /**
+   * Add an event to the batch. It will be delivered after the events already added.
+   *
+   * @param event Event to publish.
+   * @return This batch.
+   * @throws IllegalStateException If the batch has already been published.
+   */
+  public EventBatch add(Event event) {
+    if (closed) {
+      throw new IllegalStateException("The batch has already been published");
+    }
+    events.add(event);
+    return this;
+  }
+
+  /**
+   * Publish the collected events. Closing the batch again does nothing.
+   */
+  @Override
+  public void close() {
+    if (!closed) {
+      closed = true;
+      observable.publishBatch(events);
+    }
+  }
+}
@@ -0,0 +1,136 @@
+package polytech.devint.event;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Creates the events of one class, resolved once so that creating an event needs no reflection.
+ * Events that carry no state are created once and the same instance is returned on each call.
+ *
+ * @param <E> Class of the created events.
+ * @author Loris Friedel
+ */
+public abstract class EventFactory<E extends Event> {
+
+  private final Class<E> eventType;
+
+  private EventFactory(Class<E> eventType) {
+    this.eventType = eventType;
+  }
+
+  /**
+   * Resolve the factory of the given event class.
+   *
+   * @param eventType Class of the events to create. It needs an accessible constructor without
+   *                  parameter.
+   * @param <E>       Class of the created events.
+   * @return A factory creating events of the given class.
+   * @throws IllegalArgumentException If the given class cannot be instantiated.
+   */
+  public static <E extends Event> EventFactory<E> of(Class<E> eventType) {
+    if (eventType.isInterface() || Modifier.isAbstract(eventType.getModifiers())) {
+      throw new IllegalArgumentException("Cannot instantiate the event " + eventType.getName());
+    }
+
+    MethodHandle constructor;
+    try {
+      Constructor<E> declared = eventType.getDeclaredConstructor();
+      declared.setAccessible(true);
+      constructor = MethodHandles.lookup().unreflectConstructor(declared)
+              .asType(MethodType.methodType(Event.class));
+    } catch (NoSuchMethodException | IllegalAccessException | SecurityException e) {
+      throw new IllegalArgumentException("The event " + eventType.getName()
+              + " has no accessible constructor without parameter", e);
+    }
+
+    if (isStateless(eventType)) {
+      return new SingletonFactory<>(eventType, eventType.cast(newInstance(constructor)));
+    }
+    return new ConstructorFactory<>(eventType, constructor);
+  }
+
+  /**
+   * @return The class of the created events.
+   */
+  public Class<E> getEventType() {
+    return eventType;
+  }
+
+  /**
+   * @return An event of the class of this factory. It may be an instance shared between calls if
+   * the event carries no state.
+   */
+  public abstract E create();
+
+  /**
+   * An event class is stateless if neither it nor its superclasses declare instance fields,
+   * so all its instances are equivalent.
+   *
+   * @param type Event class to check.
+   * @return True if a single instance of the given class can be reused.
+   */
+  public static boolean isStateless(Class<?> type) {
+    for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+      for (Field field : current.getDeclaredFields()) {
+        if (!Modifier.isStatic(field.getModifiers())) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param constructor Constructor of an event, adapted to return an Event.
+   * @return A new event.
+   */
+  private static Event newInstance(MethodHandle constructor) {
+    try {
+      return (Event) constructor.invokeExact();
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot create an event", e);
+    }
+  }
+
+  /**
+   * Factory always returning the same instance of a stateless event.
+   */
+  private static final class SingletonFactory<E extends Event> extends EventFactory<E> {
+
+    private final E instance;
+
+    private SingletonFactory(Class<E> eventType, E instance) {
+      super(eventType);
+      this.instance = instance;
+    }
+
+    @Override
+    public E create() {
+      return instance;
+    }
+  }
+
+  /**
+   * Factory calling the constructor of the event on each call.
+   */
+  private static final class ConstructorFactory<E extends Event> extends EventFactory<E> {
+
+    private final MethodHandle constructor;
+
+    private ConstructorFactory(Class<E> eventType, MethodHandle constructor) {
+      super(eventType);
+      this.constructor = constructor;
+    }
+
+    @Override
+    public E create() {
+      return getEventType().cast(newInstance(constructor));
+    }
+  }
+}
@@ -7,11 +7,32 @@ import java.lang.annotation.Target;
 
 /**
  * Used to create method event handlers.
+ * By default, a handler is only called for events of the exact type of its parameter.
+ * The handlers of an event are called by decreasing priority; handlers of the same priority are
+ * called in the order they were registered.
  *
  * @author Günther Jungbluth (gunther.jungbluth.poirier@gmail.com)
+ * @author Loris Friedel
  */
 @Retention(RetentionPolicy.RUNTIME)
 @Target({ElementType.METHOD})
 public @interface EventHandler {
 
+  /**
+   * @return True if the handler should also be called for events that are subclasses
+   * (or implementations) of the type of its parameter, false to only receive this exact type.
+   */
+  boolean polymorphic() default false;
+
+  /**
+   * @return The thread on which the handler is called. By default, it is called on the thread
+   * that dispatches the event.
+   */
+  HandlerThread thread() default HandlerThread.CALLER;
+
+  /**
+   * @return The priority of the handler, handlers of higher priority are called first.
+   * See {@link EventPriority} for the usual values.
+   */
+  int priority() default EventPriority.NORMAL;
 }
@@ -0,0 +1,21 @@
+package polytech.devint.event;
+
+/**
+ * A compiled call to an event handler method.
+ * Invokers are built once when an observer is registered, so dispatching an event
+ * is a plain interface call instead of a reflective one.
+ *
+ * @author Loris Friedel
+ */
+@FunctionalInterface
+interface EventInvoker {
+
+  /**
+   * Call the handler on the given observer.
+   *
+   * @param observer Object that declares the handler method.
+   * @param event    Event to pass to the handler.
+   * @throws Throwable Anything thrown by the handler itself.
+   */
+  void invoke(Object observer, Event event) throws Throwable;
+}
@@ -0,0 +1,80 @@
+package polytech.devint.event;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Builds {@link EventInvoker} instances from event handler methods.
+ *
+ * @author Loris Friedel
+ */
+final class EventInvokers {
+
+  private static final Logger LOGGER = LogManager.getLogger(EventInvokers.class);
+
+  private static final MethodType INVOKER_FACTORY = MethodType.methodType(EventInvoker.class);
+  private static final MethodType INVOKER_SIGNATURE =
+          MethodType.methodType(void.class, Object.class, Event.class);
+
+  private EventInvokers() {
+  }
+
+  /**
+   * Compile the given handler method into an invoker.
+   * A lambda is generated through the LambdaMetafactory when the handler is visible from this
+   * package, so the JIT can inline the call. Otherwise a method handle is used.
+   *
+   * @param method Handler method, taking one event as parameter. It must be accessible.
+   * @return An invoker calling the given method.
+   * @throws IllegalAccessException If the method cannot be accessed.
+   */
+  static EventInvoker of(Method method) throws IllegalAccessException {
+    MethodHandles.Lookup lookup = MethodHandles.lookup();
+    MethodHandle target = lookup.unreflect(method);
+
+    if (isVisible(method.getDeclaringClass()) && isVisible(method.getParameterTypes()[0])) {
+      try {
+        CallSite site = LambdaMetafactory.metafactory(
+                lookup,
+                "invoke",
+                INVOKER_FACTORY,
+                INVOKER_SIGNATURE,
+                target,
+                MethodType.methodType(void.class, method.getDeclaringClass(), method.getParameterTypes()[0]));
+        return (EventInvoker) site.getTarget().invokeExact();
+      } catch (Throwable e) {
+        LOGGER.debug("Cannot generate a lambda for " + method + ", using a method handle:", e);
+      }
+    }
+
+    MethodHandle handle = target.asType(INVOKER_SIGNATURE);
+    return (observer, event) -> handle.invokeExact(observer, event);
+  }
+
+  /**
+   * A generated lambda lives in this package and links against the handler by name,
+   * so the classes it uses must be public and resolvable from our class loader.
+   *
+   * @param type Class referenced by the generated lambda.
+   * @return True if a lambda can safely reference the given class.
+   */
+  private static boolean isVisible(Class<?> type) {
+    if (!Modifier.isPublic(type.getModifiers())) {
+      return type.getPackage() == EventInvokers.class.getPackage()
+              && type.getClassLoader() == EventInvokers.class.getClassLoader();
+    }
+    try {
+      return Class.forName(type.getName(), false, EventInvokers.class.getClassLoader()) == type;
+    } catch (ClassNotFoundException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,157 @@
+package polytech.devint.event;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Measures the calls of event handlers: number of calls, number of failures and latency
+ * distribution for each handler of each observer class.
+ * An {@link Observable} only records its dispatches once it has been given metrics with
+ * {@link Observable#enableMetrics(EventMetrics)}; the same metrics can be shared by several
+ * observables.
+ *
+ * @author Loris Friedel
+ */
+public class EventMetrics implements EventMetricsMXBean {
+
+  private static final Logger LOGGER = LogManager.getLogger(EventMetrics.class);
+
+  private static final class DefaultHolder {
+    private static final EventMetrics INSTANCE = createDefault();
+  }
+
+  private final Map<HandlerMethod, HandlerStats> stats = new ConcurrentHashMap<>();
+
+  /**
+   * The default metrics are registered in the platform MBean server, under the name
+   * {@code polytech.devint:type=EventMetrics}.
+   *
+   * @return The metrics shared by the whole application.
+   */
+  public static EventMetrics getDefault() {
+    return DefaultHolder.INSTANCE;
+  }
+
+  /**
+   * Register these metrics in the platform MBean server.
+   *
+   * @param name Name of the MBean.
+   * @throws JMException If the MBean cannot be registered, for instance if the name is taken.
+   */
+  public void register(ObjectName name) throws JMException {
+    ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+  }
+
+  /**
+   * @return The measures of every handler called since the last reset.
+   */
+  public List<HandlerMetrics> snapshot() {
+    List<HandlerMetrics> snapshot = new ArrayList<>(stats.size());
+    stats.forEach((handler, handlerStats) -> snapshot.add(handlerStats.snapshot(handler)));
+    return snapshot;
+  }
+
+  @Override
+  public List<HandlerMetrics> getHandlers() {
+    return snapshot();
+  }
+
+  @Override
+  public void reset() {
+    stats.clear();
+  }
+
+  /**
+   * Count a call of a handler.
+   *
+   * @param handler  Called handler.
+   * @param observer Observer on which the handler was called.
+   * @param nanos    Duration of the call.
+   * @param failed   True if the handler threw.
+   */
+  void record(HandlerMethod handler, Object observer, long nanos, boolean failed) {
+    HandlerStats handlerStats = stats.get(handler);
+    if (handlerStats == null) {
+      HandlerStats created = new HandlerStats(observer.getClass());
+      handlerStats = stats.putIfAbsent(handler, created);
+      if (handlerStats == null) {
+        handlerStats = created;
+      }
+    }
+    handlerStats.record(nanos, failed);
+  }
+
+  /**
+   * @return New metrics, registered in the platform MBean server if possible.
+   */
+  private static EventMetrics createDefault() {
+    EventMetrics metrics = new EventMetrics();
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName name = new ObjectName("polytech.devint:type=EventMetrics");
+      if (!server.isRegistered(name)) {
+        metrics.register(name);
+      }
+    } catch (JMException e) {
+      LOGGER.error("Cannot register the event metrics MBean:", e);
+    }
+    return metrics;
+  }
+
+  /**
+   * Measures of one handler, updated concurrently by the threads calling it.
+   */
+  private static final class HandlerStats {
+
+    private final Class<?> observerType;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final LatencyHistogram histogram = new LatencyHistogram();
+
+    private HandlerStats(Class<?> observerType) {
+      this.observerType = observerType;
+    }
+
+    private void record(long nanos, boolean failed) {
+      invocations.increment();
+      if (failed) {
+        errors.increment();
+      }
+      totalNanos.add(nanos);
+      histogram.record(nanos);
+      long max = maxNanos.get();
+      while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+        max = maxNanos.get();
+      }
+    }
+
+    private HandlerMetrics snapshot(HandlerMethod handler) {
+      long[] counts = histogram.counts();
+      long total = 0;
+      for (long count : counts) {
+        total += count;
+      }
+      long max = maxNanos.get();
+      // The highest value of a bucket may exceed the longest call actually measured
+      return new HandlerMetrics(observerType.getName(), handler.getName(),
+              handler.getEventType().getName(), invocations.sum(), errors.sum(), totalNanos.sum(),
+              max, Math.min(max, LatencyHistogram.valueAt(counts, total, 0.5)),
+              Math.min(max, LatencyHistogram.valueAt(counts, total, 0.9)),
+              Math.min(max, LatencyHistogram.valueAt(counts, total, 0.99)));
+    }
+  }
+}
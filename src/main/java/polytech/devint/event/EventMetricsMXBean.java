@@ -0,0 +1,22 @@
+package polytech.devint.event;
+
+import java.util.List;
+
+/**
+ * Management interface of {@link EventMetrics}, to read the measures of the event handlers
+ * through JMX.
+ *
+ * @author Loris Friedel
+ */
+public interface EventMetricsMXBean {
+
+  /**
+   * @return The measures of every handler called since the last reset.
+   */
+  List<HandlerMetrics> getHandlers();
+
+  /**
+   * Forget all the measures.
+   */
+  void reset();
+}
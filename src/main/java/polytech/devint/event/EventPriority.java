@@ -0,0 +1,19 @@
+package polytech.devint.event;
+
+/**
+ * Usual priorities of the event handlers. Handlers of higher priority are called first.
+ * Any other integer can be used as a priority.
+ *
+ * @author Loris Friedel
+ */
+public final class EventPriority {
+
+  public static final int HIGHEST = 200;
+  public static final int HIGH = 100;
+  public static final int NORMAL = 0;
+  public static final int LOW = -100;
+  public static final int LOWEST = -200;
+
+  private EventPriority() {
+  }
+}
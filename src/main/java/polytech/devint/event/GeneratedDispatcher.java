@@ -0,0 +1,41 @@
+package polytech.devint.event;
+
+/**
+ * Dispatcher generated at compile time for an observer class by the
+ * {@link polytech.devint.event.processor.EventHandlerProcessor}.
+ * It lists the handlers of the class and calls them directly, so registering and notifying
+ * its instances does not go through reflection.
+ * The dispatcher of a class {@code Outer.Observer} is named {@code Outer_Observer_EventDispatcher},
+ * in the same package. Classes without a generated dispatcher have their handlers found by
+ * reflection.
+ *
+ * @author Loris Friedel
+ */
+public interface GeneratedDispatcher {
+
+  /**
+   * Suffix of the name of the generated dispatchers.
+   */
+  String SUFFIX = "_EventDispatcher";
+
+  /**
+   * @return The observer class this dispatcher was generated for.
+   */
+  Class<?> getObserverType();
+
+  /**
+   * @return The handlers of the observer class, including the inherited ones. The index of a
+   * handler in this array identifies it in {@link #invoke(Object, int, Event)}.
+   */
+  HandlerDescriptor[] getHandlers();
+
+  /**
+   * Call a handler on an observer.
+   *
+   * @param observer Instance of the observer class.
+   * @param handler  Index of the handler in {@link #getHandlers()}.
+   * @param event    Event to pass to the handler, of the type it declares.
+   * @throws Throwable Anything thrown by the handler itself.
+   */
+  void invoke(Object observer, int handler, Event event) throws Throwable;
+}
@@ -0,0 +1,67 @@
+package polytech.devint.event;
+
+/**
+ * Describes an event handler method of an observer class, as declared by its
+ * {@link EventHandler} annotation. Used by the dispatchers generated at compile time.
+ *
+ * @author Loris Friedel
+ */
+public final class HandlerDescriptor {
+
+  private final String name;
+  private final Class<? extends Event> eventType;
+  private final boolean polymorphic;
+  private final HandlerThread thread;
+  private final int priority;
+
+  /**
+   * @param name        Name of the handler method.
+   * @param eventType   Type of the parameter of the handler method.
+   * @param polymorphic See {@link EventHandler#polymorphic()}.
+   * @param thread      See {@link EventHandler#thread()}.
+   * @param priority    See {@link EventHandler#priority()}.
+   */
+  public HandlerDescriptor(String name, Class<? extends Event> eventType, boolean polymorphic,
+                           HandlerThread thread, int priority) {
+    this.name = name;
+    this.eventType = eventType;
+    this.polymorphic = polymorphic;
+    this.thread = thread;
+    this.priority = priority;
+  }
+
+  /**
+   * @return The name of the handler method.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @return The type of the parameter of the handler method.
+   */
+  public Class<? extends Event> getEventType() {
+    return eventType;
+  }
+
+  /**
+   * @return True if the handler is also called for subtypes of its event type.
+   */
+  public boolean isPolymorphic() {
+    return polymorphic;
+  }
+
+  /**
+   * @return The thread on which the handler is called.
+   */
+  public HandlerThread getThread() {
+    return thread;
+  }
+
+  /**
+   * @return The priority of the handler.
+   */
+  public int getPriority() {
+    return priority;
+  }
+}
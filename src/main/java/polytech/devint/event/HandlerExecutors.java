@@ -0,0 +1,65 @@
+package polytech.devint.event;
+
+import java.awt.EventQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import polytech.devint.scheduler.SchedulerReady;
+
+/**
+ * Executors used to call the event handlers that do not run on the dispatching thread.
+ *
+ * @author Loris Friedel
+ */
+final class HandlerExecutors {
+
+  private static final Executor EDT = command -> {
+    if (EventQueue.isDispatchThread()) {
+      command.run();
+    } else {
+      EventQueue.invokeLater(command);
+    }
+  };
+
+  // Blocking work, like button actions, runs on the workers of the scheduler backend
+  private static final Executor BACKGROUND = SchedulerReady::execute;
+
+  private static final ExecutorService SOUND =
+          Executors.newSingleThreadExecutor(daemonThreads("devint-event-sound-"));
+
+  private HandlerExecutors() {
+  }
+
+  /**
+   * @param thread A handler thread other than {@link HandlerThread#CALLER}.
+   * @return The executor running the handlers on the given thread.
+   */
+  static Executor of(HandlerThread thread) {
+    switch (thread) {
+      case EDT:
+        return EDT;
+      case BACKGROUND:
+        return BACKGROUND;
+      case SOUND:
+        return SOUND;
+      default:
+        throw new IllegalArgumentException("No executor for " + thread);
+    }
+  }
+
+  /**
+   * @param prefix Prefix of the name of the created threads.
+   * @return A factory of daemon threads, so handler threads never keep the program alive.
+   */
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger count = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+}
@@ -0,0 +1,100 @@
+package polytech.devint.event;
+
+import java.lang.reflect.Method;
+
+/**
+ * An event handler method of an observer, resolved once with its compiled invoker.
+ *
+ * @author Loris Friedel
+ */
+final class HandlerMethod {
+
+  private final String name;
+  private final Class<? extends Event> eventType;
+  private final boolean polymorphic;
+  private final HandlerThread thread;
+  private final int priority;
+  private final EventInvoker invoker;
+
+  /**
+   * @param method  The annotated handler method.
+   * @param invoker Compiled call to the handler method.
+   */
+  @SuppressWarnings("unchecked")
+  HandlerMethod(Method method, EventInvoker invoker) {
+    this(method.getName(), (Class<? extends Event>) method.getParameterTypes()[0],
+            method.getAnnotation(EventHandler.class), invoker);
+  }
+
+  /**
+   * @param name       Name of the handler method.
+   * @param eventType  Type of the parameter of the handler method.
+   * @param annotation Annotation of the handler method.
+   * @param invoker    Compiled call to the handler method.
+   */
+  private HandlerMethod(String name, Class<? extends Event> eventType, EventHandler annotation,
+                        EventInvoker invoker) {
+    this(new HandlerDescriptor(name, eventType, annotation.polymorphic(), annotation.thread(),
+            annotation.priority()), invoker);
+  }
+
+  /**
+   * @param descriptor Description of the handler method.
+   * @param invoker    Call to the handler method.
+   */
+  HandlerMethod(HandlerDescriptor descriptor, EventInvoker invoker) {
+    this.name = descriptor.getName();
+    this.eventType = descriptor.getEventType();
+    this.polymorphic = descriptor.isPolymorphic();
+    this.thread = descriptor.getThread();
+    this.priority = descriptor.getPriority();
+    this.invoker = invoker;
+  }
+
+  /**
+   * @return The name of the handler method.
+   */
+  String getName() {
+    return name;
+  }
+
+  /**
+   * @return The type of event declared by the handler method.
+   */
+  Class<? extends Event> getEventType() {
+    return eventType;
+  }
+
+  /**
+   * @return The thread on which the handler must be called.
+   */
+  HandlerThread getThread() {
+    return thread;
+  }
+
+  /**
+   * @return The priority of the handler, handlers of higher priority are called first.
+   */
+  int getPriority() {
+    return priority;
+  }
+
+  /**
+   * @param type Concrete class of a dispatched event.
+   * @return True if the handler must be called for events of the given class.
+   */
+  boolean accepts(Class<? extends Event> type) {
+    return eventType == type || (polymorphic && eventType.isAssignableFrom(type));
+  }
+
+  /**
+   * Call the handler on the given observer.
+   *
+   * @param observer Object that declares the handler method.
+   * @param event    Event to pass to the handler.
+   * @throws Throwable Anything thrown by the handler itself.
+   */
+  void invoke(Object observer, Event event) throws Throwable {
+    invoker.invoke(observer, event);
+  }
+}
@@ -0,0 +1,130 @@
+package polytech.devint.event;
+
+import java.beans.ConstructorProperties;
+
+/**
+ * Snapshot of the measures of one event handler: how many times it was called, how many calls
+ * failed, and the distribution of the durations of its calls.
+ * Durations are in nanoseconds, and percentiles are accurate within 12.5%.
+ *
+ * @author Loris Friedel
+ */
+public final class HandlerMetrics {
+
+  private final String observerType;
+  private final String handler;
+  private final String eventType;
+  private final long invocations;
+  private final long errors;
+  private final long totalNanos;
+  private final long maxNanos;
+  private final long medianNanos;
+  private final long p90Nanos;
+  private final long p99Nanos;
+
+  /**
+   * @param observerType Name of the class of the observer.
+   * @param handler      Name of the handler method.
+   * @param eventType    Name of the class of event declared by the handler.
+   * @param invocations  Number of calls.
+   * @param errors       Number of calls that threw.
+   * @param totalNanos   Sum of the durations of the calls.
+   * @param maxNanos     Longest call.
+   * @param medianNanos  Median duration of the calls.
+   * @param p90Nanos     90th percentile of the durations of the calls.
+   * @param p99Nanos     99th percentile of the durations of the calls.
+   */
+  @ConstructorProperties({"observerType", "handler", "eventType", "invocations", "errors",
+          "totalNanos", "maxNanos", "medianNanos", "p90Nanos", "p99Nanos"})
+  public HandlerMetrics(String observerType, String handler, String eventType, long invocations,
+                        long errors, long totalNanos, long maxNanos, long medianNanos,
+                        long p90Nanos, long p99Nanos) {
+    this.observerType = observerType;
+    this.handler = handler;
+    this.eventType = eventType;
+    this.invocations = invocations;
+    this.errors = errors;
+    this.totalNanos = totalNanos;
+    this.maxNanos = maxNanos;
+    this.medianNanos = medianNanos;
+    this.p90Nanos = p90Nanos;
+    this.p99Nanos = p99Nanos;
+  }
+
+  /**
+   * @return The name of the class of the observer.
+   */
+  public String getObserverType() {
+    return observerType;
+  }
+
+  /**
+   * @return The name of the handler method.
+   */
+  public String getHandler() {
+    return handler;
+  }
+
+  /**
+   * @return The name of the class of event declared by the handler.
+   */
+  public String getEventType() {
+    return eventType;
+  }
+
+  /**
+   * @return The number of calls of the handler.
+   */
+  public long getInvocations() {
+    return invocations;
+  }
+
+  /**
+   * @return The number of calls of the handler that threw.
+   */
+  public long getErrors() {
+    return errors;
+  }
+
+  /**
+   * @return The sum of the durations of the calls, in nanoseconds.
+   */
+  public long getTotalNanos() {
+    return totalNanos;
+  }
+
+  /**
+   * @return The duration of the longest call, in nanoseconds.
+   */
+  public long getMaxNanos() {
+    return maxNanos;
+  }
+
+  /**
+   * @return The median duration of the calls, in nanoseconds.
+   */
+  public long getMedianNanos() {
+    return medianNanos;
+  }
+
+  /**
+   * @return The duration under which 90% of the calls ended, in nanoseconds.
+   */
+  public long getP90Nanos() {
+    return p90Nanos;
+  }
+
+  /**
+   * @return The duration under which 99% of the calls ended, in nanoseconds.
+   */
+  public long getP99Nanos() {
+    return p99Nanos;
+  }
+
+  @Override
+  public String toString() {
+    return observerType + "." + handler + "(" + eventType + "): " + invocations + " calls, "
+            + errors + " errors, p50=" + medianNanos + "ns, p99=" + p99Nanos + "ns, max="
+            + maxNanos + "ns";
+  }
+}
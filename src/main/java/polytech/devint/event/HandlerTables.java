@@ -0,0 +1,150 @@
+package polytech.devint.event;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Global cache of the event handlers declared by each observer class.
+ * The handler methods of a class are resolved and compiled the first time an instance
+ * of this class is registered; every later registration only does a lookup.
+ * If a {@link GeneratedDispatcher} was generated for the class at compile time, its handlers are
+ * taken from it, otherwise they are found by reflection.
+ *
+ * @author Loris Friedel
+ */
+final class HandlerTables {
+
+  private static final Logger LOGGER = LogManager.getLogger(HandlerTables.class);
+
+  private static final ClassValue<Map<Class<? extends Event>, List<HandlerMethod>>> TABLES =
+          new ClassValue<Map<Class<? extends Event>, List<HandlerMethod>>>() {
+            @Override
+            protected Map<Class<? extends Event>, List<HandlerMethod>> computeValue(Class<?> type) {
+              return resolve(type);
+            }
+          };
+
+  private HandlerTables() {
+  }
+
+  /**
+   * @param type Class of an observer.
+   * @return The handlers of the given class, by event type. The returned map is read-only.
+   */
+  static Map<Class<? extends Event>, List<HandlerMethod>> of(Class<?> type) {
+    return TABLES.get(type);
+  }
+
+  /**
+   * Find the handlers of the given class, from its generated dispatcher if there is one.
+   *
+   * @param type Class of an observer.
+   * @return The handlers of the given class, by event type.
+   */
+  private static Map<Class<? extends Event>, List<HandlerMethod>> resolve(Class<?> type) {
+    GeneratedDispatcher dispatcher = findGeneratedDispatcher(type);
+    return dispatcher != null ? fromDispatcher(dispatcher) : fromReflection(type);
+  }
+
+  /**
+   * @param type Class of an observer.
+   * @return The dispatcher generated for the given class, or null if there is none.
+   */
+  private static GeneratedDispatcher findGeneratedDispatcher(Class<?> type) {
+    String name = type.getName();
+    int packageEnd = name.lastIndexOf('.') + 1;
+    String dispatcherName = name.substring(0, packageEnd)
+            + name.substring(packageEnd).replace('$', '_') + GeneratedDispatcher.SUFFIX;
+    try {
+      Class<?> dispatcherType = Class.forName(dispatcherName, true, type.getClassLoader());
+      if (GeneratedDispatcher.class.isAssignableFrom(dispatcherType)) {
+        GeneratedDispatcher dispatcher =
+                (GeneratedDispatcher) dispatcherType.getConstructor().newInstance();
+        if (dispatcher.getObserverType() == type) {
+          return dispatcher;
+        }
+      }
+    } catch (ClassNotFoundException e) {
+      // No dispatcher was generated for this class
+    } catch (ReflectiveOperationException | LinkageError e) {
+      LOGGER.error("Cannot load the generated dispatcher " + dispatcherName + ":", e);
+    }
+    return null;
+  }
+
+  /**
+   * Build the handlers of a class from its generated dispatcher.
+   *
+   * @param dispatcher Dispatcher generated for the class.
+   * @return The handlers of the class, by event type.
+   */
+  private static Map<Class<? extends Event>, List<HandlerMethod>> fromDispatcher(
+          GeneratedDispatcher dispatcher) {
+    Map<Class<? extends Event>, List<HandlerMethod>> methods = new HashMap<>();
+    HandlerDescriptor[] descriptors = dispatcher.getHandlers();
+    for (int i = 0; i < descriptors.length; i++) {
+      int index = i;
+      HandlerMethod handler = new HandlerMethod(descriptors[i],
+              (observer, event) -> dispatcher.invoke(observer, index, event));
+      methods.computeIfAbsent(descriptors[i].getEventType(), key -> new ArrayList<>()).add(handler);
+    }
+    return readOnly(methods);
+  }
+
+  /**
+   * Walk the public methods of the given class to find its event handlers.
+   *
+   * @param type Class of an observer.
+   * @return The handlers of the given class, by event type.
+   */
+  @SuppressWarnings("unchecked")
+  private static Map<Class<? extends Event>, List<HandlerMethod>> fromReflection(Class<?> type) {
+    Map<Class<? extends Event>, List<HandlerMethod>> methods = new HashMap<>();
+    for (Method method : type.getMethods()) {
+      if (method.isAnnotationPresent(EventHandler.class)
+              && method.getParameterCount() == 1
+              && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+        // We need to be able to access the method
+        method.setAccessible(true);
+        HandlerMethod handler;
+        try {
+          // Compile the call once so dispatching does not go through reflection
+          handler = new HandlerMethod(method, EventInvokers.of(method));
+        } catch (IllegalAccessException e) {
+          LOGGER.error("Cannot access event handler " + method.getName() + ":", e);
+          continue;
+        }
+        Class<? extends Event> key = (Class<? extends Event>) method.getParameterTypes()[0];
+        List<HandlerMethod> methodList;
+        if (methods.containsKey(key)) {
+          methodList = methods.get(key);
+        } else {
+          methodList = new ArrayList<>();
+          methods.put(key, methodList);
+        }
+        methodList.add(handler);
+      }
+    }
+
+    return readOnly(methods);
+  }
+
+  /**
+   * The table is shared by every observer of a class, it must not be modified.
+   *
+   * @param methods Handlers of a class, by event type.
+   * @return A read-only view of the given handlers.
+   */
+  private static Map<Class<? extends Event>, List<HandlerMethod>> readOnly(
+          Map<Class<? extends Event>, List<HandlerMethod>> methods) {
+    methods.replaceAll((key, methodList) -> Collections.unmodifiableList(methodList));
+    return Collections.unmodifiableMap(methods);
+  }
+}
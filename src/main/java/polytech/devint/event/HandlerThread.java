@@ -0,0 +1,32 @@
+package polytech.devint.event;
+
+/**
+ * Thread on which an event handler is called, see {@link EventHandler#thread()}.
+ *
+ * @author Loris Friedel
+ */
+public enum HandlerThread {
+
+  /**
+   * The handler is called on the thread that dispatches the event.
+   */
+  CALLER,
+
+  /**
+   * The handler is called on the AWT event dispatch thread. Use it for handlers that update
+   * Swing components. If the event is dispatched from this thread, the handler is called directly.
+   */
+  EDT,
+
+  /**
+   * The handler is called on a shared pool of background threads. Use it for slow or blocking
+   * handlers, so they do not freeze the input and the rendering.
+   */
+  BACKGROUND,
+
+  /**
+   * The handler is called on the single sound thread. Handlers using this thread are called one
+   * after the other, in the order their events were dispatched.
+   */
+  SOUND
+}
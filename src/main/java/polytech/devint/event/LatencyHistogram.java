@@ -0,0 +1,99 @@
+package polytech.devint.event;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of durations in nanoseconds.
+ * Like HdrHistogram, durations are counted in buckets whose width grows with their magnitude:
+ * each power of two is split in {@value #SUB_BUCKETS} buckets, so the recorded values are kept
+ * within 12.5% of their actual value from one nanosecond to the largest long, with a fixed
+ * memory footprint.
+ *
+ * @author Loris Friedel
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = SUB_BUCKETS + (63 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+  /**
+   * Count a duration.
+   *
+   * @param nanos Duration in nanoseconds, negative durations are counted as zero.
+   */
+  void record(long nanos) {
+    counts.incrementAndGet(indexOf(Math.max(0, nanos)));
+  }
+
+  /**
+   * @return A copy of the number of durations counted in each bucket.
+   */
+  long[] counts() {
+    long[] copy = new long[BUCKETS];
+    for (int i = 0; i < BUCKETS; i++) {
+      copy[i] = counts.get(i);
+    }
+    return copy;
+  }
+
+  /**
+   * Find the value below which the given fraction of the durations fall.
+   *
+   * @param counts   Counts of the buckets, as returned by {@link #counts()}.
+   * @param total    Sum of the counts.
+   * @param quantile Fraction of the durations, between 0 and 1.
+   * @return The highest value of the bucket reaching the quantile, or 0 if nothing was counted.
+   */
+  static long valueAt(long[] counts, long total, double quantile) {
+    if (total == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(quantile * total));
+    long seen = 0;
+    for (int i = 0; i < counts.length; i++) {
+      seen += counts[i];
+      if (seen >= target) {
+        return highestValueOf(i);
+      }
+    }
+    return highestValueOf(counts.length - 1);
+  }
+
+  /**
+   * @param value A non negative duration.
+   * @return The index of the bucket counting the given duration.
+   */
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int shift = exponent - SUB_BUCKET_BITS;
+    int mantissa = (int) (value >>> shift) & (SUB_BUCKETS - 1);
+    return SUB_BUCKETS + shift * SUB_BUCKETS + mantissa;
+  }
+
+  /**
+   * @param index Index of a bucket.
+   * @return The lowest duration counted in the bucket.
+   */
+  static long lowestValueOf(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = (index - SUB_BUCKETS) / SUB_BUCKETS;
+    int mantissa = (index - SUB_BUCKETS) % SUB_BUCKETS;
+    return (long) (SUB_BUCKETS + mantissa) << shift;
+  }
+
+  /**
+   * @param index Index of a bucket.
+   * @return The highest duration counted in the bucket.
+   */
+  static long highestValueOf(int index) {
+    return index + 1 < BUCKETS ? lowestValueOf(index + 1) - 1 : Long.MAX_VALUE;
+  }
+}
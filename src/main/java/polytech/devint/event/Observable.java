@@ -1,15 +1,23 @@
 package polytech.devint.event;
 
-import java.lang.reflect.Method;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+import polytech.devint.event.journal.EventRecorder;
+
 /**
  * Used to register observers and notify them, using an event system.
  *
@@ -18,7 +26,19 @@ import org.apache.logging.log4j.Logger;
  */
 public class Observable {
 
-  final Map<Object, Map<Class<? extends Event>, List<Method>>> observers;
+  final Map<Object, Map<Class<? extends Event>, List<HandlerMethod>>> observers;
+  final Map<WeakObserver, Map<Class<? extends Event>, List<HandlerMethod>>> weakObservers;
+  private final ReferenceQueue<Object> collectedObservers;
+  private final Object registrationLock = new Object();
+  // Registration number of the next subscription, guarded by the lock
+  private long nextSubscription;
+  // Replaced as a whole under the lock on any registration change, read without locking
+  private volatile DispatchTable dispatchTable;
+  private volatile AsyncDispatcher asyncDispatcher;
+  // Null while the dispatches are not measured
+  private volatile EventMetrics metrics;
+  // Null while the dispatched events are not recorded
+  private volatile EventRecorder recorder;
 
   private static final Logger LOGGER = LogManager.getLogger(Observable.class);
 
@@ -27,6 +47,9 @@ public class Observable {
    */
   public Observable() {
     this.observers = new ConcurrentHashMap<>();
+    this.weakObservers = new ConcurrentHashMap<>();
+    this.collectedObservers = new ReferenceQueue<>();
+    this.dispatchTable = DispatchTable.EMPTY;
   }
 
   /**
@@ -35,47 +58,379 @@ public class Observable {
    *
    * @param observer An observer to be added.
    */
-  @SuppressWarnings("unchecked")
   public void addObserver(Object observer) {
-    Map<Class<? extends Event>, List<Method>> methods = new HashMap<>();
-    for (Method method : observer.getClass().getMethods()) {
-      if (method.isAnnotationPresent(EventHandler.class)
-              && method.getParameterCount() == 1
-              && Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
-        // We need to be able to access the method
-        method.setAccessible(true);
-        Class<? extends Event> key = (Class<? extends Event>) method.getParameterTypes()[0];
-        List<Method> methodList;
-        if (methods.containsKey(key)) {
-          methodList = methods.get(key);
-        } else {
-          methodList = new ArrayList<>();
-          methods.put(key, methodList);
-        }
-        methodList.add(method);
+    Map<Class<? extends Event>, List<HandlerMethod>> handlers = HandlerTables.of(observer.getClass());
+    synchronized (registrationLock) {
+      purgeCollectedObservers();
+      if (hasObserver(observer)) {
+        return;
+      }
+      observers.put(observer, handlers);
+      subscribe(handlers, method -> new Subscription(observer, method, nextSubscription++));
+    }
+  }
+
+  /**
+   * Adds an observer to the set of observers for this object, without preventing it from being
+   * garbage collected. Once collected, the observer is removed from the set during a later
+   * registration or dispatch.
+   * Use it for observers that may never be explicitly deleted, like views that are not destroyed.
+   * If the observer is already in the set, this call does nothing.
+   *
+   * @param observer An observer to be added.
+   */
+  public void addWeakObserver(Object observer) {
+    Map<Class<? extends Event>, List<HandlerMethod>> handlers = HandlerTables.of(observer.getClass());
+    synchronized (registrationLock) {
+      purgeCollectedObservers();
+      if (hasObserver(observer)) {
+        return;
       }
+      WeakObserver reference = new WeakObserver(observer, collectedObservers);
+      weakObservers.put(reference, handlers);
+      subscribe(handlers, method -> new Subscription(reference, method, nextSubscription++));
+    }
+  }
+
+  /**
+   * Publish a dispatch table with the subscriptions of a new observer. The lock must be held.
+   *
+   * @param handlers     Handlers of the observer, by event type.
+   * @param subscription Creates the subscription of the observer to one of its handlers.
+   */
+  private void subscribe(Map<Class<? extends Event>, List<HandlerMethod>> handlers,
+                         Function<HandlerMethod, Subscription> subscription) {
+    dispatchTable = dispatchTable.with(handlers, subscription);
+  }
+
+  /**
+   * Publish a dispatch table without the subscriptions of an observer. The lock must be held.
+   * Once this method returns, the handlers of the observer are no longer called, even by
+   * dispatches that started earlier.
+   *
+   * @param handlers     Handlers of the observer, by event type.
+   * @param subscription Tells whether a subscription belongs to the observer.
+   */
+  private void unsubscribe(Map<Class<? extends Event>, List<HandlerMethod>> handlers,
+                           Predicate<Subscription> subscription) {
+    dispatchTable = dispatchTable.without(handlers, subscription);
+  }
+
+  /**
+   * Remove the weak observers that have been garbage collected. The lock must be held.
+   */
+  private void purgeCollectedObservers() {
+    Reference<?> collected;
+    while ((collected = collectedObservers.poll()) != null) {
+      purge((WeakObserver) collected);
+    }
+  }
+
+  /**
+   * Remove a weak observer that has been garbage collected. The lock must be held.
+   *
+   * @param collected Cleared reference to the observer.
+   */
+  private void purge(WeakObserver collected) {
+    Map<Class<? extends Event>, List<HandlerMethod>> handlers = weakObservers.remove(collected);
+    if (handlers != null) {
+      unsubscribe(handlers, subscription -> subscription.isHeldBy(collected));
     }
-    observers.put(observer, methods);
   }
 
   /**
    * Notifies all the observers. This will call @EventManager methods (with corresponding types)
-   * of all the observers
+   * of all the observers.
+   * Only the handlers declared for the type of the event are visited, plus the polymorphic
+   * handlers declared for one of its supertypes. They are called by decreasing priority, and if
+   * the event is {@link Cancellable}, the propagation stops as soon as a handler cancels it.
+   * The handlers are taken from the registrations current when this method is called, and an
+   * observer deleted before a handler is called is skipped, even if the handler was scheduled
+   * on another thread.
+   * If the asynchronous dispatch is enabled, the event is queued and this method returns
+   * without waiting for the handlers.
    *
    * @param event The event to be sent to the observers
    */
   public void notifyObservers(Event event) {
-    observers.forEach((observer, map) -> {
-      if (map.containsKey(event.getClass())) {
-        map.get(event.getClass()).forEach(method -> {
-          try {
-            method.invoke(observer, event);
-          } catch (Exception e) {
-            LOGGER.error("Error while calling " + method.getName() + ":", e);
+    AsyncDispatcher dispatcher = asyncDispatcher;
+    if (dispatcher != null) {
+      dispatcher.submit(event);
+    } else {
+      dispatch(event);
+    }
+  }
+
+  /**
+   * Notifies all the observers of several events in one pass: the events are delivered in the
+   * order of the collection, like consecutive calls to {@link #notifyObservers(Event)}, but
+   * the observers implementing {@link BatchListener} are told when the batch starts and ends,
+   * so they can update themselves once for the whole batch.
+   * If the asynchronous dispatch is enabled, the batch takes a single place in the queue.
+   *
+   * @param events The events to be sent to the observers
+   */
+  public void publishBatch(Collection<? extends Event> events) {
+    if (!events.isEmpty()) {
+      notifyObservers(new BatchEvent(new ArrayList<>(events)));
+    }
+  }
+
+  /**
+   * @return A batch collecting events, published when it is closed.
+   */
+  public EventBatch beginBatch() {
+    return new EventBatch(this);
+  }
+
+  /**
+   * Call the handlers of all the observers for the given event, on the current thread.
+   *
+   * @param event The event to be sent to the observers
+   */
+  private void dispatch(Event event) {
+    Reference<?> collected = collectedObservers.poll();
+    if (collected != null) {
+      synchronized (registrationLock) {
+        purge((WeakObserver) collected);
+        purgeCollectedObservers();
+      }
+    }
+    if (event instanceof BatchEvent) {
+      dispatchBatch(((BatchEvent) event).getEvents());
+    } else {
+      EventRecorder eventRecorder = recorder;
+      if (eventRecorder != null) {
+        eventRecorder.record(event);
+      }
+      deliver(dispatchTable.resolve(event.getClass()), event, metrics);
+    }
+  }
+
+  /**
+   * Call the handlers of all the observers for each event of a batch, on the current thread,
+   * telling the batch listeners among them when it starts and ends.
+   * A listener with handlers of the batch on the event dispatch thread is told there too, so its
+   * batch ends after these handlers have run.
+   *
+   * @param events Events of the batch, in delivery order.
+   */
+  private void dispatchBatch(List<Event> events) {
+    // The whole batch is resolved against the same table
+    DispatchTable table = dispatchTable;
+    EventMetrics eventMetrics = metrics;
+    EventRecorder eventRecorder = recorder;
+    Subscription[][] resolved = new Subscription[events.size()][];
+    Map<BatchListener, Executor> listeners = new IdentityHashMap<>();
+    for (int i = 0; i < resolved.length; i++) {
+      resolved[i] = table.resolve(events.get(i).getClass());
+      for (Subscription subscription : resolved[i]) {
+        Object observer = subscription.getObserver();
+        if (observer instanceof BatchListener) {
+          if (subscription.getHandler().getThread() == HandlerThread.EDT) {
+            listeners.put((BatchListener) observer, HandlerExecutors.of(HandlerThread.EDT));
+          } else {
+            listeners.putIfAbsent((BatchListener) observer, Runnable::run);
           }
-        });
+        }
+      }
+    }
+
+    listeners.forEach((listener, executor) ->
+            executor.execute(() -> notifyBatch(listener, BatchListener::onBatchStart)));
+    for (int i = 0; i < resolved.length; i++) {
+      if (eventRecorder != null) {
+        eventRecorder.record(events.get(i));
+      }
+      deliver(resolved[i], events.get(i), eventMetrics);
+    }
+    listeners.forEach((listener, executor) ->
+            executor.execute(() -> notifyBatch(listener, BatchListener::onBatchEnd)));
+  }
+
+  /**
+   * Call the given subscriptions for an event.
+   *
+   * @param subscriptions Subscriptions resolved for the class of the event, in call order.
+   * @param event         The event to be sent to the observers.
+   * @param eventMetrics  Records the calls, or null if the dispatches are not measured.
+   */
+  private static void deliver(Subscription[] subscriptions, Event event, EventMetrics eventMetrics) {
+    Cancellable cancellable = event instanceof Cancellable ? (Cancellable) event : null;
+    for (Subscription subscription : subscriptions) {
+      if (cancellable != null && cancellable.isCancelled()) {
+        return;
+      }
+      HandlerThread thread = subscription.getHandler().getThread();
+      if (thread == HandlerThread.CALLER) {
+        invoke(subscription, event, eventMetrics);
+      } else {
+        HandlerExecutors.of(thread).execute(() -> invoke(subscription, event, eventMetrics));
+      }
+    }
+  }
+
+  /**
+   * Tell a batch listener about a batch, logging anything it throws.
+   *
+   * @param listener     Listener to call.
+   * @param notification Method of the listener to call.
+   */
+  private static void notifyBatch(BatchListener listener, Consumer<BatchListener> notification) {
+    try {
+      notification.accept(listener);
+    } catch (RuntimeException e) {
+      LOGGER.error("Error while notifying the batch listener " + listener + ":", e);
+    }
+  }
+
+  /**
+   * Call the handler of the given subscription, logging anything it throws.
+   *
+   * @param subscription Subscription to call.
+   * @param event        The event to be sent to the observer.
+   * @param metrics      Records the call, or null if the dispatches are not measured.
+   */
+  private static void invoke(Subscription subscription, Event event, EventMetrics metrics) {
+    if (metrics != null) {
+      invokeMeasured(subscription, event, metrics);
+      return;
+    }
+    try {
+      subscription.invoke(event);
+    } catch (Throwable e) {
+      LOGGER.error("Error while calling " + subscription.getHandler().getName() + ":", e);
+    }
+  }
+
+  /**
+   * Call the handler of the given subscription and record its duration and outcome.
+   *
+   * @param subscription Subscription to call.
+   * @param event        The event to be sent to the observer.
+   * @param metrics      Records the call.
+   */
+  private static void invokeMeasured(Subscription subscription, Event event, EventMetrics metrics) {
+    Object observer = subscription.getObserver();
+    if (!subscription.isActive() || observer == null) {
+      return;
+    }
+    HandlerMethod handler = subscription.getHandler();
+    boolean failed = false;
+    long start = System.nanoTime();
+    try {
+      handler.invoke(observer, event);
+    } catch (Throwable e) {
+      failed = true;
+      LOGGER.error("Error while calling " + handler.getName() + ":", e);
+    }
+    metrics.record(handler, observer, System.nanoTime() - start, failed);
+  }
+
+  /**
+   * Record the number of calls, the failures and the latency distribution of every handler
+   * called by this object. When the metrics are disabled, which is the default, dispatching
+   * costs a single extra read.
+   *
+   * @param metrics Where to record the calls, for instance {@link EventMetrics#getDefault()}.
+   */
+  public void enableMetrics(EventMetrics metrics) {
+    this.metrics = metrics;
+  }
+
+  /**
+   * Stop recording the calls of the handlers.
+   */
+  public void disableMetrics() {
+    this.metrics = null;
+  }
+
+  /**
+   * @return The metrics recording the calls of the handlers, or null if they are not recorded.
+   */
+  public EventMetrics getMetrics() {
+    return metrics;
+  }
+
+  /**
+   * Make this object deliver its events on a dedicated dispatcher thread instead of the thread
+   * that notifies them. Events are queued in a bounded queue and delivered in the order they were
+   * notified, so each observer still receives them in order.
+   * If the asynchronous dispatch was already enabled, the previous dispatcher is stopped once
+   * its pending events are delivered, and the new one only starts delivering after that.
+   *
+   * @param capacity Maximum number of events waiting to be delivered.
+   * @param policy   What to do when an event is notified while the queue is full.
+   */
+  public void enableAsyncDispatch(int capacity, BackpressurePolicy policy) {
+    AsyncDispatcher previous;
+    synchronized (registrationLock) {
+      previous = asyncDispatcher;
+      asyncDispatcher = new AsyncDispatcher(this::dispatch, capacity, policy, previous);
+    }
+    if (previous != null) {
+      previous.shutdown();
+    }
+  }
+
+  /**
+   * Go back to delivering events on the thread that notifies them.
+   * The events already queued are still delivered by the dispatcher thread, which then stops.
+   * This method waits for them, so they are all delivered before the events notified afterwards.
+   * Called from a handler on the dispatcher thread, it delivers them itself before returning.
+   */
+  public void disableAsyncDispatch() {
+    AsyncDispatcher previous = asyncDispatcher;
+    if (previous == null) {
+      return;
+    }
+    // The dispatcher stays in place while it drains: the events notified meanwhile are queued
+    // behind the pending ones, or delivered on the notifying thread once it has stopped
+    previous.shutdown();
+    previous.awaitTermination();
+    synchronized (registrationLock) {
+      if (asyncDispatcher == previous) {
+        asyncDispatcher = null;
       }
-    });
+    }
+  }
+
+  /**
+   * @return True if the events are delivered on a dedicated dispatcher thread.
+   */
+  public boolean isAsyncDispatchEnabled() {
+    return asyncDispatcher != null;
+  }
+
+  /**
+   * @return The subscriptions of the current dispatch table, by declared event type.
+   */
+  Map<Class<? extends Event>, List<Subscription>> subscriptions() {
+    return dispatchTable.getSubscriptions();
+  }
+
+  /**
+   * @return The version of the current dispatch table, incremented on each registration change.
+   */
+  long dispatchVersion() {
+    return dispatchTable.getVersion();
+  }
+
+  /**
+   * Append every event dispatched by this object to a journal, which can be replayed later.
+   * Events are recorded in the order they are delivered, when they are delivered.
+   *
+   * @param recorder Journal receiving the events.
+   */
+  public void startRecording(EventRecorder recorder) {
+    this.recorder = recorder;
+  }
+
+  /**
+   * Stop recording the dispatched events. The recorder is not closed.
+   */
+  public void stopRecording() {
+    this.recorder = null;
   }
 
   /**
@@ -85,7 +440,8 @@ public class Observable {
    * @return True if the observer has been registered
    */
   public boolean hasObserver(Object observer) {
-    return observers.containsKey(observer);
+    return observers.containsKey(observer)
+            || weakObservers.containsKey(new WeakObserver(observer, null));
   }
 
   /**
@@ -94,21 +450,38 @@ public class Observable {
    * @param observer Observer to be deleted
    */
   public void deleteObserver(Object observer) {
-    this.observers.remove(observer);
+    synchronized (registrationLock) {
+      Map<Class<? extends Event>, List<HandlerMethod>> handlers = this.observers.remove(observer);
+      if (handlers == null) {
+        handlers = this.weakObservers.remove(new WeakObserver(observer, null));
+      }
+      if (handlers != null) {
+        unsubscribe(handlers, subscription -> observer.equals(subscription.getObserver()));
+      }
+      purgeCollectedObservers();
+    }
   }
 
   /**
    * Clears the observer list so that this object no longer has any observers.
    */
   public void deleteObservers() {
-    this.observers.clear();
+    synchronized (registrationLock) {
+      this.observers.clear();
+      this.weakObservers.clear();
+      dispatchTable = dispatchTable.cleared();
+    }
   }
 
   /**
    * @return The number of observers of this Observable object.
+   * Weak observers that have been garbage collected are not counted.
    */
   public int countObservers() {
-    return observers.size();
+    synchronized (registrationLock) {
+      purgeCollectedObservers();
+      return observers.size() + weakObservers.size();
+    }
   }
 
   /**
@@ -0,0 +1,99 @@
+package polytech.devint.event;
+
+import java.util.Comparator;
+
+/**
+ * Links a registered observer to one of its event handlers.
+ * The observer is either held directly, or through a weak reference if it has been registered
+ * weakly.
+ *
+ * @author Loris Friedel
+ */
+final class Subscription {
+
+  // Orders the subscriptions of the same priority by registration
+  static final Comparator<Subscription> DISPATCH_ORDER =
+          Comparator.comparingInt((Subscription subscription) -> -subscription.handler.getPriority())
+                  .thenComparingLong(subscription -> subscription.order);
+
+  private final Object observer;
+  private final WeakObserver reference;
+  private final HandlerMethod handler;
+  private final long order;
+  // Cleared once the subscription is removed, calls scheduled before are then skipped
+  private volatile boolean active = true;
+
+  /**
+   * @param observer Registered observer.
+   * @param handler  Handler method declared by the class of the observer.
+   * @param order    Registration number of the subscription.
+   */
+  Subscription(Object observer, HandlerMethod handler, long order) {
+    this.observer = observer;
+    this.reference = null;
+    this.handler = handler;
+    this.order = order;
+  }
+
+  /**
+   * @param reference Weak reference to the registered observer.
+   * @param handler   Handler method declared by the class of the observer.
+   * @param order     Registration number of the subscription.
+   */
+  Subscription(WeakObserver reference, HandlerMethod handler, long order) {
+    this.observer = null;
+    this.reference = reference;
+    this.handler = handler;
+    this.order = order;
+  }
+
+  /**
+   * @return The registered observer, or null if it was weakly registered and has been collected.
+   */
+  Object getObserver() {
+    return reference != null ? reference.get() : observer;
+  }
+
+  /**
+   * @param weakObserver A weak reference to an observer.
+   * @return True if this subscription holds its observer through the given reference.
+   */
+  boolean isHeldBy(WeakObserver weakObserver) {
+    return reference == weakObserver;
+  }
+
+  /**
+   * @return True until the subscription is removed from its observable.
+   */
+  boolean isActive() {
+    return active;
+  }
+
+  /**
+   * Mark the subscription as removed: its handler will no longer be called.
+   */
+  void deactivate() {
+    active = false;
+  }
+
+  /**
+   * @return The handler method of the observer.
+   */
+  HandlerMethod getHandler() {
+    return handler;
+  }
+
+  /**
+   * Call the handler of the observer with the given event, unless the subscription has been
+   * removed or the observer collected.
+   *
+   * @param event Event to pass to the handler.
+   * @throws Throwable Anything thrown by the handler itself.
+   */
+  void invoke(Event event) throws Throwable {
+    Object target = getObserver();
+    if (active && target != null) {
+      handler.invoke(target, event);
+    }
+  }
+}
@@ -0,0 +1,42 @@
+package polytech.devint.event;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+
+/**
+ * Weak reference to an observer, usable as a map key.
+ * Two references are equal if they refer to equal observers, so an observer can be found back
+ * from a new reference. Once cleared, a reference is only equal to itself.
+ *
+ * @author Loris Friedel
+ */
+final class WeakObserver extends WeakReference<Object> {
+
+  private final int hash;
+
+  /**
+   * @param observer Observer to refer to.
+   * @param queue    Queue in which the reference is enqueued once cleared, or null.
+   */
+  WeakObserver(Object observer, ReferenceQueue<Object> queue) {
+    super(observer, queue);
+    this.hash = observer.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof WeakObserver)) {
+      return false;
+    }
+    Object observer = get();
+    return observer != null && observer.equals(((WeakObserver) o).get());
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+}
@@ -1,9 +1,12 @@
 package polytech.devint.event.basic;
 
-import polytech.devint.event.Event;
+import polytech.devint.event.CancellableEvent;
 
 /**
+ * Triggered when the escape key is pressed.
+ * A handler can cancel it to prevent the default behavior of the controller.
+ *
  * @author Loris Friedel
  */
-public class EscapeEvent implements Event {
+public class EscapeEvent extends CancellableEvent {
 }
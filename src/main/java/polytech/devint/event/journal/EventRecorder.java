@@ -0,0 +1,184 @@
+package polytech.devint.event.journal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import polytech.devint.event.Event;
+import polytech.devint.event.EventFactory;
+
+/**
+ * Appends dispatched events to a binary journal, with the time elapsed between them, so they
+ * can be replayed later by an {@link EventReplayer}.
+ * Start recording the events of an observable with
+ * {@link polytech.devint.event.Observable#startRecording(EventRecorder)}.
+ * Serializable events are recorded with their state. The other events are recreated with their
+ * constructor without parameter when replayed; events that have none are not recorded.
+ *
+ * @author Loris Friedel
+ */
+public class EventRecorder implements Closeable {
+
+  private static final Logger LOGGER = LogManager.getLogger(EventRecorder.class);
+  private static final byte[] NO_PAYLOAD = new byte[0];
+
+  private final DataOutputStream out;
+  private final Map<Class<?>, RecordedClass> classes;
+  private int nextClassId;
+  private long lastTimestamp;
+  private boolean failed;
+
+  /**
+   * Start a journal on the given stream.
+   *
+   * @param out Stream receiving the journal. It is closed with the recorder.
+   * @throws IOException If the header of the journal cannot be written.
+   */
+  public EventRecorder(OutputStream out) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    this.classes = new HashMap<>();
+    this.out.writeInt(JournalFormat.MAGIC);
+    this.out.writeByte(JournalFormat.VERSION);
+    this.lastTimestamp = System.nanoTime();
+  }
+
+  /**
+   * Append an event to the journal. An event that cannot be serialized, for instance because
+   * one of its fields is not serializable, or whose serialized form is too large, is skipped
+   * with a warning. If the journal itself
+   * cannot be written, the error is logged and the following events are ignored.
+   *
+   * @param event Dispatched event.
+   */
+  public synchronized void record(Event event) {
+    if (failed) {
+      return;
+    }
+    RecordedClass recordedClass = classes.get(event.getClass());
+    try {
+      if (recordedClass == null) {
+        recordedClass = declare(event.getClass());
+      }
+      if (recordedClass.id < 0) {
+        return;
+      }
+      // Serialized before writing anything, so a failing event leaves no partial record
+      byte[] payload = recordedClass.serialized ? serialize(event) : NO_PAYLOAD;
+      if (payload == null) {
+        return;
+      }
+      if (payload.length > JournalFormat.MAX_PAYLOAD_LENGTH) {
+        LOGGER.warn("The event " + event + " takes " + payload.length + " bytes once serialized,"
+                + " more than a journal holds, it is skipped");
+        return;
+      }
+      long now = System.nanoTime();
+      out.writeByte(JournalFormat.EVENT_RECORD);
+      JournalFormat.writeVarLong(out, now - lastTimestamp);
+      JournalFormat.writeVarLong(out, recordedClass.id);
+      JournalFormat.writeVarLong(out, payload.length);
+      out.write(payload);
+      lastTimestamp = now;
+    } catch (IOException e) {
+      failed = true;
+      LOGGER.error("Cannot write the event journal, recording stopped:", e);
+    }
+  }
+
+  /**
+   * Write the buffered records to the underlying stream.
+   *
+   * @throws IOException If the records cannot be written.
+   */
+  public synchronized void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public synchronized void close() throws IOException {
+    failed = true;
+    out.close();
+  }
+
+  /**
+   * Assign an identifier to a class of event and write its class record, if it can be recorded.
+   *
+   * @param type Class of a dispatched event.
+   * @return How the events of the class are recorded.
+   * @throws IOException If the class record cannot be written.
+   */
+  private RecordedClass declare(Class<?> type) throws IOException {
+    RecordedClass recordedClass;
+    if (Serializable.class.isAssignableFrom(type) && !EventFactory.isStateless(type)) {
+      recordedClass = new RecordedClass(nextClassId++, true);
+    } else if (isConstructible(type)) {
+      recordedClass = new RecordedClass(nextClassId++, false);
+    } else {
+      LOGGER.warn("The event " + type.getName() + " is neither serializable nor constructible"
+              + " without parameter, it will not be recorded");
+      recordedClass = new RecordedClass(-1, false);
+    }
+    classes.put(type, recordedClass);
+    if (recordedClass.id >= 0) {
+      out.writeByte(JournalFormat.CLASS_RECORD);
+      JournalFormat.writeVarLong(out, recordedClass.id);
+      out.writeUTF(type.getName());
+    }
+    return recordedClass;
+  }
+
+  /**
+   * @param type Class of a dispatched event.
+   * @return True if events of the given class can be recreated by an event factory.
+   */
+  @SuppressWarnings("unchecked")
+  private static boolean isConstructible(Class<?> type) {
+    try {
+      EventFactory.of((Class<? extends Event>) type);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  /**
+   * @param event A serializable event.
+   * @return The serialized form of the event, or null if the event cannot be serialized.
+   */
+  private static byte[] serialize(Event event) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream objects = new ObjectOutputStream(bytes)) {
+      objects.writeObject(event);
+    } catch (IOException e) {
+      // Writing to memory only fails on the state of the event, like a non serializable field
+      LOGGER.warn("Cannot serialize the event " + event.getClass().getName() + ", skipped:", e);
+      return null;
+    }
+    return bytes.toByteArray();
+  }
+
+  /**
+   * How the events of a class are recorded.
+   */
+  private static final class RecordedClass {
+
+    // Negative if the events of the class are not recorded
+    private final int id;
+    private final boolean serialized;
+
+    private RecordedClass(int id, boolean serialized) {
+      this.id = id;
+      this.serialized = serialized;
+    }
+  }
+}
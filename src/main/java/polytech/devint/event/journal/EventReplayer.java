@@ -0,0 +1,369 @@
+package polytech.devint.event.journal;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+
+import polytech.devint.event.Event;
+import polytech.devint.event.EventFactory;
+import polytech.devint.event.Observable;
+
+/**
+ * Reads a journal written by an {@link EventRecorder} and notifies its events again.
+ * To replay a player session, notify the events through the same kind of observable they were
+ * recorded on, for instance a {@link polytech.devint.view.swing.SwingKeyDispatcher} of the
+ * controller of the game: the controllers then receive them as if the keys were pressed.
+ * <p>
+ * Journals may come from other machines, so serialized events are only read back with the
+ * classes they declare: the recorded event classes, their superclasses and the declared types
+ * of their serialized fields, recursively. Any other class named in a payload is rejected
+ * before being initialized; allow the concrete classes stored in fields of a wider type, like
+ * the list behind a {@code List} field, with {@link #allow(Class[])}.
+ *
+ * @author Loris Friedel
+ */
+public class EventReplayer implements Closeable {
+
+  private final CountingInputStream counter;
+  private final DataInputStream in;
+  private final ClassLoader classLoader;
+  private final List<EventSource> classes;
+  // Classes that serialized events may refer to
+  private final Set<Class<?>> allowedClasses;
+
+  /**
+   * Open a journal, loading the recorded event classes with the context class loader.
+   *
+   * @param in Stream holding the journal. It is closed with the replayer.
+   * @throws IOException If the stream does not hold a supported journal.
+   */
+  public EventReplayer(InputStream in) throws IOException {
+    this(in, Thread.currentThread().getContextClassLoader());
+  }
+
+  /**
+   * Open a journal.
+   *
+   * @param in          Stream holding the journal. It is closed with the replayer.
+   * @param classLoader Class loader of the recorded event classes.
+   * @throws IOException If the stream does not hold a supported journal.
+   */
+  public EventReplayer(InputStream in, ClassLoader classLoader) throws IOException {
+    this.counter = new CountingInputStream(new BufferedInputStream(in));
+    this.in = new DataInputStream(counter);
+    this.classLoader = classLoader;
+    this.classes = new ArrayList<>();
+    this.allowedClasses = new HashSet<>();
+    if (this.in.readInt() != JournalFormat.MAGIC) {
+      throw new IOException("The stream is not an event journal");
+    }
+    int version = this.in.readUnsignedByte();
+    if (version != JournalFormat.VERSION) {
+      throw new IOException("Unsupported event journal version: " + version);
+    }
+  }
+
+  /**
+   * Allow serialized events to refer to the given classes, in addition to the classes they
+   * declare.
+   *
+   * @param types Concrete classes stored in the fields of the recorded events.
+   * @return This replayer.
+   */
+  public EventReplayer allow(Class<?>... types) {
+    for (Class<?> type : types) {
+      allowGraph(type);
+    }
+    return this;
+  }
+
+  /**
+   * Notify the remaining events of the journal through the given observable, on the current
+   * thread.
+   *
+   * @param target Observable notifying the events to its observers.
+   * @param speed  Whether to wait between the events as when they were recorded.
+   * @return The number of notified events.
+   * @throws IOException If the journal is malformed or refers to unknown classes.
+   */
+  public int replay(Observable target, ReplaySpeed speed) throws IOException {
+    int count = 0;
+    long deadline = System.nanoTime();
+    Entry entry;
+    while ((entry = next()) != null) {
+      deadline += entry.elapsed;
+      if (speed == ReplaySpeed.RECORDED) {
+        waitUntil(deadline);
+      }
+      target.notifyObservers(entry.event);
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Read the records of the journal up to the next event.
+   *
+   * @return The next event with the time elapsed since the previous one, or null at the end of
+   * the journal.
+   * @throws IOException If the journal is malformed or refers to unknown classes.
+   */
+  private Entry next() throws IOException {
+    while (true) {
+      int tag = in.read();
+      if (tag < 0) {
+        return null;
+      }
+      if (tag == JournalFormat.CLASS_RECORD) {
+        readClass();
+      } else if (tag == JournalFormat.EVENT_RECORD) {
+        long elapsed = readNumber("duration", Long.MAX_VALUE);
+        return new Entry(elapsed, readEvent());
+      } else {
+        throw new IOException("Unknown record in the event journal: " + tag + " at offset "
+                + (counter.count - 1));
+      }
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Read a class record and resolve the recorded class.
+   *
+   * @throws IOException If the class is unknown or is not an event.
+   */
+  @SuppressWarnings("unchecked")
+  private void readClass() throws IOException {
+    int id = (int) readNumber("class identifier", Integer.MAX_VALUE);
+    String name = in.readUTF();
+    if (id != classes.size()) {
+      throw new IOException("Unexpected class identifier in the event journal: " + id);
+    }
+    Class<?> type;
+    try {
+      type = Class.forName(name, false, classLoader);
+    } catch (ClassNotFoundException e) {
+      throw new IOException("Unknown event class in the journal: " + name, e);
+    }
+    if (!Event.class.isAssignableFrom(type)) {
+      throw new IOException("Not an event class in the journal: " + name);
+    }
+    classes.add(new EventSource((Class<? extends Event>) type));
+    allowGraph(type);
+  }
+
+  /**
+   * Allow a class, its superclasses and the declared types of its serialized fields.
+   *
+   * @param type Class that serialized events may refer to.
+   */
+  private void allowGraph(Class<?> type) {
+    Class<?> current = type;
+    while (current.isArray()) {
+      current = current.getComponentType();
+    }
+    if (current.isPrimitive() || !allowedClasses.add(current)) {
+      return;
+    }
+    if (current.getSuperclass() != null) {
+      allowGraph(current.getSuperclass());
+    }
+    for (Field field : current.getDeclaredFields()) {
+      if ((field.getModifiers() & (Modifier.STATIC | Modifier.TRANSIENT)) == 0) {
+        allowGraph(field.getType());
+      }
+    }
+  }
+
+  /**
+   * Read the class and payload of an event record and recreate the event.
+   *
+   * @return The recorded event.
+   * @throws IOException If the event cannot be recreated.
+   */
+  private Event readEvent() throws IOException {
+    int id = (int) readNumber("class identifier", Integer.MAX_VALUE);
+    if (id >= classes.size()) {
+      throw new IOException("Undeclared class identifier in the event journal: " + id);
+    }
+    int length = (int) readNumber("payload length", JournalFormat.MAX_PAYLOAD_LENGTH);
+    EventSource source = classes.get(id);
+    if (length == 0) {
+      return source.create();
+    }
+    byte[] payload = new byte[length];
+    long offset = counter.count;
+    try {
+      in.readFully(payload);
+    } catch (EOFException e) {
+      throw new IOException("Truncated event payload at offset " + offset + " of the journal", e);
+    }
+    return deserialize(payload, source.type);
+  }
+
+  /**
+   * Read a variable-length number and check its range, so a corrupt journal is reported instead
+   * of causing a huge allocation.
+   *
+   * @param name Name of the number, for the error message.
+   * @param max  Highest valid value.
+   * @return The number, between 0 and max.
+   * @throws IOException If the number is malformed or out of range.
+   */
+  private long readNumber(String name, long max) throws IOException {
+    long offset = counter.count;
+    long value = JournalFormat.readVarLong(in);
+    if (value < 0 || value > max) {
+      throw new IOException("Invalid " + name + " " + value + " at offset " + offset
+              + " of the event journal");
+    }
+    return value;
+  }
+
+  /**
+   * @param payload Serialized form of an event.
+   * @param type    Class of the event.
+   * @return The recorded event.
+   * @throws IOException If the payload is not an event of the given class.
+   */
+  private Event deserialize(byte[] payload, Class<? extends Event> type) throws IOException {
+    try (ObjectInputStream objects = new ObjectInputStream(new ByteArrayInputStream(payload)) {
+      @Override
+      protected Class<?> resolveClass(ObjectStreamClass desc)
+              throws IOException, ClassNotFoundException {
+        Class<?> resolved = Class.forName(desc.getName(), false, classLoader);
+        Class<?> element = resolved;
+        while (element.isArray()) {
+          element = element.getComponentType();
+        }
+        if (!element.isPrimitive() && !allowedClasses.contains(element)) {
+          throw new InvalidClassException(desc.getName(), "not declared by a recorded "
+                  + type.getName() + ", see EventReplayer.allow");
+        }
+        return resolved;
+      }
+
+      @Override
+      protected Class<?> resolveProxyClass(String[] interfaces) throws IOException {
+        throw new InvalidClassException("Proxy", "proxies are not allowed in recorded events");
+      }
+    }) {
+      return type.cast(objects.readObject());
+    } catch (ClassNotFoundException | ClassCastException e) {
+      throw new IOException("Cannot read a recorded " + type.getName(), e);
+    } catch (EOFException e) {
+      throw new IOException("Truncated event in the journal", e);
+    }
+  }
+
+  /**
+   * Park the current thread until the given time.
+   *
+   * @param deadline Value of {@link System#nanoTime()} to wait for.
+   */
+  private static void waitUntil(long deadline) {
+    long remaining;
+    while ((remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(remaining);
+    }
+  }
+
+  /**
+   * A recorded event, with the nanoseconds elapsed since the previous one.
+   */
+  private static final class Entry {
+
+    private final long elapsed;
+    private final Event event;
+
+    private Entry(long elapsed, Event event) {
+      this.elapsed = elapsed;
+      this.event = event;
+    }
+  }
+
+  /**
+   * Recreates the events of a recorded class that were not serialized.
+   */
+  private static final class EventSource {
+
+    private final Class<? extends Event> type;
+    private EventFactory<? extends Event> factory;
+
+    private EventSource(Class<? extends Event> type) {
+      this.type = type;
+    }
+
+    private Event create() throws IOException {
+      if (factory == null) {
+        try {
+          factory = EventFactory.of(type);
+        } catch (IllegalArgumentException e) {
+          throw new IOException("Cannot recreate a recorded " + type.getName(), e);
+        }
+      }
+      return factory.create();
+    }
+  }
+
+  /**
+   * Counts the bytes read from the journal, to locate its errors.
+   */
+  private static final class CountingInputStream extends FilterInputStream {
+
+    long count;
+
+    CountingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        count++;
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      int read = super.read(b, off, len);
+      if (read > 0) {
+        count += read;
+      }
+      return read;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+      long skipped = super.skip(n);
+      count += skipped;
+      return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+      return false;
+    }
+  }
+}
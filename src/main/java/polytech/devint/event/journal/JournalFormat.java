@@ -0,0 +1,65 @@
+package polytech.devint.event.journal;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Layout of an event journal.
+ * A journal starts with a header (magic number and format version), followed by records:
+ * <ul>
+ * <li>a class record declares the identifier of an event class the first time it is used:
+ * its tag, the identifier and the class name;</li>
+ * <li>an event record holds one dispatched event: its tag, the nanoseconds elapsed since the
+ * previous event, the identifier of its class and its payload (the length of its serialized
+ * form followed by it, or zero if the event is recreated with its constructor).</li>
+ * </ul>
+ * Durations, identifiers and lengths are variable-length integers, so most records take a few
+ * bytes. A payload holds at most {@value #MAX_PAYLOAD_LENGTH} bytes.
+ *
+ * @author Loris Friedel
+ */
+final class JournalFormat {
+
+  static final int MAGIC = 0x44564a4c;
+  static final int VERSION = 1;
+  static final int CLASS_RECORD = 1;
+  static final int EVENT_RECORD = 2;
+  // Largest serialized form of an event, so a corrupt length cannot exhaust the memory
+  static final int MAX_PAYLOAD_LENGTH = 1 << 20;
+
+  private JournalFormat() {
+  }
+
+  /**
+   * Write a non negative number on as few bytes as possible, seven bits per byte.
+   *
+   * @param out   Where to write the number.
+   * @param value Number to write.
+   * @throws IOException If the number cannot be written.
+   */
+  static void writeVarLong(DataOutput out, long value) throws IOException {
+    while ((value & ~0x7FL) != 0) {
+      out.writeByte((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte((int) value);
+  }
+
+  /**
+   * @param in Where to read the number.
+   * @return A number written by {@link #writeVarLong(DataOutput, long)}.
+   * @throws IOException If the number cannot be read.
+   */
+  static long readVarLong(DataInput in) throws IOException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = in.readUnsignedByte();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("Malformed variable-length number in the journal");
+  }
+}
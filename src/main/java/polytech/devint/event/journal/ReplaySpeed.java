@@ -0,0 +1,19 @@
+package polytech.devint.event.journal;
+
+/**
+ * Pace at which an {@link EventReplayer} notifies the recorded events.
+ *
+ * @author Loris Friedel
+ */
+public enum ReplaySpeed {
+
+  /**
+   * Wait between the events as long as when they were recorded, to reproduce a session.
+   */
+  RECORDED,
+
+  /**
+   * Notify the events without waiting, to run a recorded session headless as fast as possible.
+   */
+  AS_FAST_AS_POSSIBLE
+}
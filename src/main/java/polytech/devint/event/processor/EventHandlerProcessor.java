@@ -0,0 +1,234 @@
+package polytech.devint.event.processor;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+
+import polytech.devint.event.EventHandler;
+import polytech.devint.event.GeneratedDispatcher;
+
+/**
+ * Generates a {@link GeneratedDispatcher} for each class declaring {@link EventHandler} methods,
+ * and reports malformed handlers as compilation errors.
+ * A handler must be a public instance method taking a single event as parameter.
+ * The processor is registered as a service of this library, so the projects compiled against
+ * it run it without configuration. Classes whose dispatcher cannot reference them, like private
+ * nested classes, are skipped and have their handlers found by reflection at runtime.
+ *
+ * @author Loris Friedel
+ */
+public class EventHandlerProcessor extends AbstractProcessor {
+
+  private static final String EVENT = "polytech.devint.event.Event";
+  private static final String API = "polytech.devint.event.";
+
+  @Override
+  public Set<String> getSupportedAnnotationTypes() {
+    return Collections.singleton(EventHandler.class.getCanonicalName());
+  }
+
+  @Override
+  public SourceVersion getSupportedSourceVersion() {
+    return SourceVersion.latestSupported();
+  }
+
+  @Override
+  public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+    Set<TypeElement> observers = new LinkedHashSet<>();
+    for (Element element : round.getElementsAnnotatedWith(EventHandler.class)) {
+      if (element.getKind() == ElementKind.METHOD && checkHandler((ExecutableElement) element)) {
+        observers.add((TypeElement) element.getEnclosingElement());
+      }
+    }
+    for (TypeElement observer : observers) {
+      if (isReachable(observer)) {
+        generateDispatcher(observer);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Report the errors of a handler method.
+   *
+   * @param method Method annotated with {@link EventHandler}.
+   * @return True if the method is a valid handler.
+   */
+  private boolean checkHandler(ExecutableElement method) {
+    String error = null;
+    if (!method.getModifiers().contains(Modifier.PUBLIC)) {
+      error = "An event handler must be public";
+    } else if (method.getModifiers().contains(Modifier.STATIC)) {
+      error = "An event handler cannot be static";
+    } else if (method.getParameters().size() != 1) {
+      error = "An event handler must take exactly one event as parameter";
+    } else if (!isEvent(method.getParameters().get(0).asType())) {
+      error = "The parameter of an event handler must implement " + EVENT;
+    }
+    if (error != null) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, error, method);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param type A type.
+   * @return True if the given type is an event.
+   */
+  private boolean isEvent(TypeMirror type) {
+    TypeElement event = processingEnv.getElementUtils().getTypeElement(EVENT);
+    return type.getKind() == TypeKind.DECLARED
+            && processingEnv.getTypeUtils().isAssignable(
+            processingEnv.getTypeUtils().erasure(type), event.asType());
+  }
+
+  /**
+   * A generated dispatcher lives in the package of its observer, so it can only reference
+   * classes that are not private nor local.
+   *
+   * @param type A class.
+   * @return True if the given class can be referenced from another class of its package.
+   */
+  private static boolean isReachable(TypeElement type) {
+    for (Element current = type; current instanceof TypeElement;
+         current = current.getEnclosingElement()) {
+      TypeElement currentType = (TypeElement) current;
+      if (currentType.getModifiers().contains(Modifier.PRIVATE)
+              || (currentType.getNestingKind() != NestingKind.TOP_LEVEL
+              && currentType.getNestingKind() != NestingKind.MEMBER)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Write the dispatcher of an observer class.
+   *
+   * @param observer Class declaring handlers.
+   */
+  private void generateDispatcher(TypeElement observer) {
+    List<ExecutableElement> handlers = new ArrayList<>();
+    for (ExecutableElement method : ElementFilter.methodsIn(
+            processingEnv.getElementUtils().getAllMembers(observer))) {
+      if (method.getAnnotation(EventHandler.class) != null
+              && method.getModifiers().contains(Modifier.PUBLIC)
+              && !method.getModifiers().contains(Modifier.STATIC)
+              && method.getParameters().size() == 1
+              && isEvent(method.getParameters().get(0).asType())) {
+        if (!isReachable(eventTypeOf(method))) {
+          processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE, "The event of this"
+                  + " handler is not visible from its package, " + observer.getQualifiedName()
+                  + " will be dispatched by reflection", method);
+          return;
+        }
+        handlers.add(method);
+      }
+    }
+
+    PackageElement pkg = processingEnv.getElementUtils().getPackageOf(observer);
+    String packageName = pkg.isUnnamed() ? "" : pkg.getQualifiedName().toString();
+    String binaryName = processingEnv.getElementUtils().getBinaryName(observer).toString();
+    String simpleName = binaryName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1)
+            .replace('$', '_') + GeneratedDispatcher.SUFFIX;
+    String observerName = erasure(observer.asType());
+
+    try {
+      JavaFileObject file = processingEnv.getFiler().createSourceFile(
+              packageName.isEmpty() ? simpleName : packageName + "." + simpleName, observer);
+      try (PrintWriter out = new PrintWriter(file.openWriter())) {
+        if (!packageName.isEmpty()) {
+          out.println("package " + packageName + ";");
+          out.println();
+        }
+        out.println("/**");
+        out.println(" * Event dispatcher of {@link " + observerName + "}.");
+        out.println(" * Generated by " + EventHandlerProcessor.class.getName() + ", do not edit.");
+        out.println(" */");
+        out.println("public final class " + simpleName + " implements " + API
+                + "GeneratedDispatcher {");
+        out.println();
+        out.println("  private static final " + API + "HandlerDescriptor[] HANDLERS = {");
+        for (ExecutableElement handler : handlers) {
+          EventHandler annotation = handler.getAnnotation(EventHandler.class);
+          out.println("    new " + API + "HandlerDescriptor(\"" + handler.getSimpleName() + "\", "
+                  + erasure(handler.getParameters().get(0).asType()) + ".class, "
+                  + annotation.polymorphic() + ", " + API + "HandlerThread."
+                  + annotation.thread().name() + ", " + annotation.priority() + "),");
+        }
+        out.println("  };");
+        out.println();
+        out.println("  @Override");
+        out.println("  public Class<?> getObserverType() {");
+        out.println("    return " + observerName + ".class;");
+        out.println("  }");
+        out.println();
+        out.println("  @Override");
+        out.println("  public " + API + "HandlerDescriptor[] getHandlers() {");
+        out.println("    return HANDLERS.clone();");
+        out.println("  }");
+        out.println();
+        out.println("  @Override");
+        out.println("  @SuppressWarnings(\"rawtypes\")");
+        out.println("  public void invoke(Object observer, int handler, " + API
+                + "Event event) throws Throwable {");
+        out.println("    " + observerName + " target = (" + observerName + ") observer;");
+        out.println("    switch (handler) {");
+        for (int i = 0; i < handlers.size(); i++) {
+          ExecutableElement handler = handlers.get(i);
+          out.println("      case " + i + ":");
+          out.println("        target." + handler.getSimpleName() + "(("
+                  + erasure(handler.getParameters().get(0).asType()) + ") event);");
+          out.println("        return;");
+        }
+        out.println("      default:");
+        out.println("        throw new IllegalArgumentException(\"Unknown handler: \" + handler);");
+        out.println("    }");
+        out.println("  }");
+        out.println("}");
+      }
+    } catch (IOException e) {
+      processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR,
+              "Cannot generate the event dispatcher: " + e.getMessage(), observer);
+    }
+  }
+
+  /**
+   * @param method A valid handler method.
+   * @return The class of the event of the handler.
+   */
+  private TypeElement eventTypeOf(ExecutableElement method) {
+    TypeMirror type = processingEnv.getTypeUtils().erasure(method.getParameters().get(0).asType());
+    return (TypeElement) ((DeclaredType) type).asElement();
+  }
+
+  /**
+   * @param type A declared type.
+   * @return The canonical name of the erasure of the type.
+   */
+  private String erasure(TypeMirror type) {
+    return processingEnv.getTypeUtils().erasure(type).toString();
+  }
+}
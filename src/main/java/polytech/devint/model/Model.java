@@ -1,5 +1,7 @@
 package polytech.devint.model;
 
+import java.util.Collection;
+
 import polytech.devint.event.Event;
 import polytech.devint.event.Observable;
 
@@ -28,4 +30,18 @@ public abstract class Model extends Observable {
   public void notifyViews(Event event) {
     notifyObservers(event);
   }
+
+  /**
+   * Notify all views that observes this model with the given events, in one pass.
+   * This method does the exact same thing as the <code>publishBatch(Collection events)</code>
+   * method: each view receives the events in order, then updates itself once if one of its
+   * handlers asked for it with {@link polytech.devint.view.View#requestUpdate()}.
+   * Use it instead of several calls to {@link #notifyViews(Event)} when a change of the model
+   * produces several events.
+   *
+   * @param events events that will be sent to all views that observes this model
+   */
+  public void notifyViews(Collection<? extends Event> events) {
+    publishBatch(events);
+  }
 }
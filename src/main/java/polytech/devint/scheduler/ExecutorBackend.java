@@ -0,0 +1,65 @@
+package polytech.devint.scheduler;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Creates the executors running the blocking work of the engine, like writing sound data to a
+ * line or running the action of a button. Timed tasks stay on the {@link TimingWheel}.
+ * <p>
+ * Two backends are provided: platform threads, and virtual threads when the runtime has them
+ * (Java 21 and later). The backend of the shared scheduler is chosen by the
+ * {@value #PROPERTY} system property, {@code platform} or {@code virtual}, and defaults to
+ * virtual threads when available. Another backend can be set with
+ * {@link SchedulerReady#useBackend(ExecutorBackend)}.
+ *
+ * @author Loris Friedel
+ */
+public interface ExecutorBackend {
+
+  String PROPERTY = "polytech.devint.executor";
+
+  /**
+   * @param namePrefix Prefix of the names of the threads of the executor.
+   * @return A new executor. Its threads never keep the program alive.
+   */
+  ExecutorService newExecutor(String namePrefix);
+
+  /**
+   * @return The name of the backend.
+   */
+  String getName();
+
+  /**
+   * @return A backend running the tasks on pooled platform threads.
+   */
+  static ExecutorBackend platform() {
+    return new PlatformThreadBackend();
+  }
+
+  /**
+   * @return A backend running each task on a new virtual thread, if the runtime supports them.
+   */
+  static Optional<ExecutorBackend> virtual() {
+    return VirtualThreadBackend.create();
+  }
+
+  /**
+   * @return The backend chosen by the {@value #PROPERTY} system property, or virtual threads if
+   * available, or platform threads.
+   */
+  static ExecutorBackend preferred() {
+    String requested = System.getProperty(PROPERTY, "virtual");
+    if ("platform".equalsIgnoreCase(requested)) {
+      return platform();
+    }
+    Optional<ExecutorBackend> virtual = virtual();
+    if (!virtual.isPresent() && System.getProperty(PROPERTY) != null) {
+      LogManager.getLogger(ExecutorBackend.class)
+              .warn("Virtual threads are not supported by this runtime, using platform threads");
+    }
+    return virtual.orElseGet(ExecutorBackend::platform);
+  }
+}
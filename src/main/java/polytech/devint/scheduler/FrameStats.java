@@ -0,0 +1,106 @@
+package polytech.devint.scheduler;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Snapshot of the measures of a {@link GameLoop}: how many frames were drawn and steps updated,
+ * how many were given up to keep up, and how long the frames took.
+ * Durations are in nanoseconds.
+ *
+ * @author Loris Friedel
+ */
+public final class FrameStats {
+
+  private final long frames;
+  private final long updates;
+  private final long skippedFrames;
+  private final long droppedUpdates;
+  private final long averageFrameNanos;
+  private final long maxFrameNanos;
+  private final long recentFrameNanos;
+
+  /**
+   * @param frames            Number of rendered frames.
+   * @param updates           Number of update steps.
+   * @param skippedFrames     Number of frames not rendered because the loop was late.
+   * @param droppedUpdates    Number of update steps given up because the loop was too late.
+   * @param averageFrameNanos Average duration of the frames.
+   * @param maxFrameNanos     Longest frame.
+   * @param recentFrameNanos  Average duration of the recent frames.
+   */
+  public FrameStats(long frames, long updates, long skippedFrames, long droppedUpdates,
+                    long averageFrameNanos, long maxFrameNanos, long recentFrameNanos) {
+    this.frames = frames;
+    this.updates = updates;
+    this.skippedFrames = skippedFrames;
+    this.droppedUpdates = droppedUpdates;
+    this.averageFrameNanos = averageFrameNanos;
+    this.maxFrameNanos = maxFrameNanos;
+    this.recentFrameNanos = recentFrameNanos;
+  }
+
+  /**
+   * @return The number of rendered frames.
+   */
+  public long getFrames() {
+    return frames;
+  }
+
+  /**
+   * @return The number of update steps.
+   */
+  public long getUpdates() {
+    return updates;
+  }
+
+  /**
+   * @return The number of frames not rendered because the loop was late, so that it could catch
+   * up with the updates.
+   */
+  public long getSkippedFrames() {
+    return skippedFrames;
+  }
+
+  /**
+   * @return The number of update steps given up because the loop was too late to catch up.
+   * The game then runs slower than real time.
+   */
+  public long getDroppedUpdates() {
+    return droppedUpdates;
+  }
+
+  /**
+   * @return The average duration of a frame since the start of the loop, in nanoseconds.
+   */
+  public long getAverageFrameNanos() {
+    return averageFrameNanos;
+  }
+
+  /**
+   * @return The duration of the longest frame, in nanoseconds.
+   */
+  public long getMaxFrameNanos() {
+    return maxFrameNanos;
+  }
+
+  /**
+   * @return The average duration of the recent frames, in nanoseconds.
+   */
+  public long getRecentFrameNanos() {
+    return recentFrameNanos;
+  }
+
+  /**
+   * @return The number of frames per second measured on the recent frames.
+   */
+  public double getFramesPerSecond() {
+    return recentFrameNanos == 0 ? 0 : (double) TimeUnit.SECONDS.toNanos(1) / recentFrameNanos;
+  }
+
+  @Override
+  public String toString() {
+    return frames + " frames, " + updates + " updates, " + skippedFrames + " skipped frames, "
+            + droppedUpdates + " dropped updates, " + String.format("%.1f", getFramesPerSecond())
+            + " fps, max=" + maxFrameNanos + "ns";
+  }
+}
@@ -0,0 +1,279 @@
+package polytech.devint.scheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import polytech.devint.event.Observable;
+import polytech.devint.scheduler.event.RenderPhaseEvent;
+import polytech.devint.scheduler.event.UpdatePhaseEvent;
+
+/**
+ * Game loop updating the game state at a fixed rate and rendering it at its own rate.
+ * <p>
+ * Each frame, the time elapsed since the previous one is added to an accumulator, and an
+ * {@link UpdatePhaseEvent} is sent for each whole step it contains. Then a
+ * {@link RenderPhaseEvent} is sent with the part of a step left in the accumulator, to draw the
+ * state interpolated between the last two steps. The game logic thus runs the same whatever the
+ * frame rate.
+ * <p>
+ * When a frame runs late, the frames whose time has passed are skipped and the next frame
+ * catches up with the missed updates. At most {@link #getMaxUpdatesPerFrame()} updates are run
+ * per frame: beyond that, the late steps are dropped so that a slow update cannot make the loop
+ * fall further and further behind.
+ * <p>
+ * Views and models subscribe to the phases like to any {@link Observable}. The events are sent
+ * on the loop thread: use {@link polytech.devint.event.HandlerThread#EDT} for handlers that draw
+ * Swing components.
+ *
+ * @author Loris Friedel
+ */
+public class GameLoop extends Observable {
+
+  private static final Logger LOGGER = LogManager.getLogger(GameLoop.class);
+
+  public static final int DEFAULT_UPDATES_PER_SECOND = 60;
+  public static final int DEFAULT_FRAMES_PER_SECOND = 60;
+  public static final int DEFAULT_MAX_UPDATES_PER_FRAME = 5;
+
+  // Weight of the last frame in the recent frame duration, as a shift: 1/16
+  private static final int RECENT_WEIGHT_SHIFT = 4;
+
+  private final long stepNanos;
+  private final long frameNanos;
+  private volatile int maxUpdatesPerFrame;
+  private volatile boolean running;
+  // The thread of the current run, null once stopped: an older thread ends its run
+  private volatile Thread thread;
+  // Guarded by this, the thread of the last run, which the next run waits for
+  private Thread lastThread;
+
+  // Owned by the loop thread, kept between runs
+  private long tick;
+  private long frame;
+
+  private final Object statsLock = new Object();
+  // Guarded by the stats lock
+  private long updates;
+  private long skippedFrames;
+  private long droppedUpdates;
+  private long measuredFrames;
+  private long totalFrameNanos;
+  private long maxFrameNanos;
+  private long recentFrameNanos;
+
+  /**
+   * Create a loop updating and rendering {@value #DEFAULT_UPDATES_PER_SECOND} times per second.
+   */
+  public GameLoop() {
+    this(DEFAULT_UPDATES_PER_SECOND, DEFAULT_FRAMES_PER_SECOND);
+  }
+
+  /**
+   * @param updatesPerSecond Number of update steps per second of game time.
+   * @param framesPerSecond  Highest number of frames rendered per second.
+   */
+  public GameLoop(int updatesPerSecond, int framesPerSecond) {
+    if (updatesPerSecond <= 0 || framesPerSecond <= 0) {
+      throw new IllegalArgumentException("The update and frame rates must be positive");
+    }
+    this.stepNanos = TimeUnit.SECONDS.toNanos(1) / updatesPerSecond;
+    this.frameNanos = TimeUnit.SECONDS.toNanos(1) / framesPerSecond;
+    this.maxUpdatesPerFrame = DEFAULT_MAX_UPDATES_PER_FRAME;
+  }
+
+  /**
+   * Start the loop on a new thread. Does nothing if the loop is running.
+   * The number of the steps and frames go on from where the loop was stopped. If the previous
+   * loop thread is still ending, the new one waits for it before its first phase.
+   */
+  public synchronized void start() {
+    if (running) {
+      return;
+    }
+    running = true;
+    Thread previous = lastThread;
+    thread = new Thread(() -> run(previous), "devint-game-loop");
+    thread.setDaemon(true);
+    lastThread = thread;
+    thread.start();
+  }
+
+  /**
+   * Stop the loop, after the current phase. Unless called from a handler of the loop, wait for
+   * the loop thread to end.
+   */
+  public void stop() {
+    Thread loopThread;
+    synchronized (this) {
+      if (!running) {
+        return;
+      }
+      running = false;
+      loopThread = thread;
+      thread = null;
+    }
+    LockSupport.unpark(loopThread);
+    if (loopThread != Thread.currentThread()) {
+      try {
+        loopThread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * @return True if the loop is running.
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * @return The duration of an update step, in nanoseconds.
+   */
+  public long getStepNanos() {
+    return stepNanos;
+  }
+
+  /**
+   * @return The shortest duration of a frame, in nanoseconds.
+   */
+  public long getFrameNanos() {
+    return frameNanos;
+  }
+
+  /**
+   * @return The highest number of update steps run before rendering a frame.
+   */
+  public int getMaxUpdatesPerFrame() {
+    return maxUpdatesPerFrame;
+  }
+
+  /**
+   * @param maxUpdatesPerFrame Highest number of update steps run before rendering a frame.
+   *                           Steps late beyond it are dropped.
+   */
+  public void setMaxUpdatesPerFrame(int maxUpdatesPerFrame) {
+    if (maxUpdatesPerFrame <= 0) {
+      throw new IllegalArgumentException("The number of updates per frame must be positive");
+    }
+    this.maxUpdatesPerFrame = maxUpdatesPerFrame;
+  }
+
+  /**
+   * @return The measures of the loop since its creation.
+   */
+  public FrameStats getStats() {
+    synchronized (statsLock) {
+      long average = measuredFrames == 0 ? 0 : totalFrameNanos / measuredFrames;
+      return new FrameStats(frame, updates, skippedFrames, droppedUpdates, average,
+              maxFrameNanos, recentFrameNanos);
+    }
+  }
+
+  /**
+   * @return True while the loop runs on the calling thread.
+   */
+  private boolean isCurrentRun() {
+    return running && thread == Thread.currentThread();
+  }
+
+  /**
+   * Body of the loop thread.
+   *
+   * @param previousRun Thread of the previous run, or null for the first run.
+   */
+  private void run(Thread previousRun) {
+    if (previousRun != null) {
+      // The previous thread may still be in a handler if the loop was stopped from it
+      try {
+        previousRun.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+    LOGGER.debug("Game loop started");
+    long accumulator = 0;
+    long previous = System.nanoTime();
+    long nextFrame = previous;
+    boolean firstFrame = true;
+    while (isCurrentRun()) {
+      long now = System.nanoTime();
+      long elapsed = now - previous;
+      previous = now;
+      accumulator += elapsed;
+
+      int frameUpdates = 0;
+      int maxUpdates = maxUpdatesPerFrame;
+      while (accumulator >= stepNanos && frameUpdates < maxUpdates && isCurrentRun()) {
+        notifyObservers(new UpdatePhaseEvent(tick++, stepNanos));
+        accumulator -= stepNanos;
+        frameUpdates++;
+      }
+      long dropped = 0;
+      if (accumulator >= stepNanos) {
+        dropped = accumulator / stepNanos;
+        accumulator -= dropped * stepNanos;
+      }
+      if (!isCurrentRun()) {
+        break;
+      }
+      notifyObservers(new RenderPhaseEvent(frame, (double) accumulator / stepNanos, elapsed));
+
+      nextFrame += frameNanos;
+      long late = System.nanoTime() - nextFrame;
+      long skipped = 0;
+      if (late >= frameNanos) {
+        // The frames whose time has passed are not rendered, the next one catches up
+        skipped = late / frameNanos;
+        nextFrame += skipped * frameNanos;
+      }
+      // The first frame starts with the loop, it has no duration
+      record(frameUpdates, skipped, dropped, firstFrame ? -1 : elapsed);
+      firstFrame = false;
+      waitUntil(nextFrame);
+    }
+    LOGGER.debug("Game loop stopped");
+  }
+
+  /**
+   * Count a rendered frame.
+   *
+   * @param frameUpdates Number of updates run in the frame.
+   * @param skipped      Number of frames skipped after the frame.
+   * @param dropped      Number of updates dropped in the frame.
+   * @param elapsed      Time elapsed since the previous frame, or -1 for the first frame of a run.
+   */
+  private void record(int frameUpdates, long skipped, long dropped, long elapsed) {
+    synchronized (statsLock) {
+      frame++;
+      updates += frameUpdates;
+      skippedFrames += skipped;
+      droppedUpdates += dropped;
+      if (elapsed >= 0) {
+        measuredFrames++;
+        totalFrameNanos += elapsed;
+        maxFrameNanos = Math.max(maxFrameNanos, elapsed);
+        recentFrameNanos = recentFrameNanos == 0 ? elapsed
+                : recentFrameNanos + ((elapsed - recentFrameNanos) >> RECENT_WEIGHT_SHIFT);
+      }
+    }
+  }
+
+  /**
+   * Park the loop thread until the given time, or until the loop is stopped.
+   *
+   * @param deadline Value of {@link System#nanoTime()} to wait for.
+   */
+  private void waitUntil(long deadline) {
+    long remaining;
+    while (isCurrentRun() && (remaining = deadline - System.nanoTime()) > 0) {
+      LockSupport.parkNanos(this, remaining);
+    }
+  }
+}
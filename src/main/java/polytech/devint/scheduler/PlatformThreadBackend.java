@@ -0,0 +1,33 @@
+package polytech.devint.scheduler;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the tasks on daemon platform threads, created on demand and stopped when idle.
+ *
+ * @author Loris Friedel
+ */
+final class PlatformThreadBackend implements ExecutorBackend {
+
+  private static final long KEEP_ALIVE_S = 30;
+
+  @Override
+  public ExecutorService newExecutor(String namePrefix) {
+    AtomicInteger count = new AtomicInteger();
+    return new ThreadPoolExecutor(0, Integer.MAX_VALUE, KEEP_ALIVE_S, TimeUnit.SECONDS,
+            new SynchronousQueue<>(), runnable -> {
+              Thread thread = new Thread(runnable, namePrefix + count.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  @Override
+  public String getName() {
+    return "platform";
+  }
+}
@@ -1,42 +1,183 @@
 package polytech.devint.scheduler;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
- * Makes children ready to use a scheduler
+ * Makes children ready to use a scheduler.
+ * All the children share one {@link TimingWheel}, ticked by a single thread, for their timed
+ * tasks, and one executor for their blocking tasks, created by an {@link ExecutorBackend}:
+ * virtual threads when the runtime has them, else platform threads stopped when idle.
+ * Creating many children does not create threads.
  *
  * @author Loris Friedel
  */
 public abstract class SchedulerReady {
 
-  private final ScheduledThreadPoolExecutor executor;
+  private static final long TICK_DURATION_MS = 1;
+  private static final int TICKS_PER_WHEEL = 512;
+  private static final String WORKER_PREFIX = "devint-worker-";
 
-  private static final ScheduledThreadPoolExecutor DEFAULT_EXECUTOR;
-  private static final int DEFAULT_THREAD_POOL_SIZE = 2;
+  private static volatile TimingWheel wheel = newWheel();
+  private static volatile ExecutorBackend backend = ExecutorBackend.preferred();
+  private static volatile ExecutorService workers = backend.newExecutor(WORKER_PREFIX);
 
-  static {
-    DEFAULT_EXECUTOR = new ScheduledThreadPoolExecutor(DEFAULT_THREAD_POOL_SIZE);
+  public SchedulerReady() {
+    // The scheduler is shared
   }
 
+  /**
+   * @param corePoolSize Ignored.
+   * @deprecated The scheduler is shared by all the instances, use {@link #SchedulerReady()}.
+   */
+  @Deprecated
   public SchedulerReady(int corePoolSize) {
-    executor = new ScheduledThreadPoolExecutor(corePoolSize);
+    this();
   }
 
-  public SchedulerReady() {
-    this(DEFAULT_THREAD_POOL_SIZE);
+  /**
+   * @return The timing wheel running the timed tasks. Its tasks must be short.
+   */
+  public TimingWheel getWheel() {
+    return getDefaultWheel();
+  }
+
+  /**
+   * @return The executor running the blocking tasks.
+   */
+  public ExecutorService getWorkers() {
+    return getDefaultWorkers();
   }
 
+  /**
+   * @return A scheduled executor shared by all the instances, created on first use.
+   * @deprecated Schedule timed tasks on {@link #getWheel()} and blocking tasks on
+   * {@link #getWorkers()}, they do not need a thread per task.
+   */
+  @Deprecated
   public ScheduledThreadPoolExecutor getExecutor() {
-    return executor;
+    return getDefaultExecutor();
   }
 
+  /**
+   * @return A scheduled executor shared by all the instances, created on first use.
+   * @deprecated Schedule timed tasks on {@link #getDefaultWheel()} and blocking tasks on
+   * {@link #getDefaultWorkers()}, they do not need a thread per task.
+   */
+  @Deprecated
   public static ScheduledThreadPoolExecutor getDefaultExecutor() {
-    return DEFAULT_EXECUTOR;
+    return LegacyExecutor.INSTANCE;
+  }
+
+  /**
+   * @return The shared timing wheel, created again if it was shut down.
+   */
+  public static TimingWheel getDefaultWheel() {
+    TimingWheel current = wheel;
+    if (current.isShutdown()) {
+      synchronized (SchedulerReady.class) {
+        if (wheel.isShutdown()) {
+          wheel = newWheel();
+        }
+        current = wheel;
+      }
+    }
+    return current;
+  }
+
+  /**
+   * @return The shared executor of the blocking tasks, created again if it was shut down.
+   * It is replaced by {@link #useBackend(ExecutorBackend)}, so get it again for each task, or
+   * submit the tasks with {@link #execute(Runnable)}.
+   */
+  public static ExecutorService getDefaultWorkers() {
+    ExecutorService current = workers;
+    if (current.isShutdown()) {
+      synchronized (SchedulerReady.class) {
+        if (workers.isShutdown()) {
+          workers = backend.newExecutor(WORKER_PREFIX);
+        }
+        current = workers;
+      }
+    }
+    return current;
+  }
+
+  public static ExecutorBackend getBackend() {
+    return backend;
+  }
+
+  /**
+   * Run a blocking task on the shared executor. If the executor is replaced or shut down while
+   * the task is submitted, the task is submitted again to the current one.
+   *
+   * @param task Task to run.
+   * @throws RejectedExecutionException If the current executor itself rejects the task.
+   */
+  public static void execute(Runnable task) {
+    while (true) {
+      ExecutorService current = getDefaultWorkers();
+      try {
+        current.execute(task);
+        return;
+      } catch (RejectedExecutionException e) {
+        if (getDefaultWorkers() == current) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  /**
+   * Run the blocking tasks submitted from now on with the given backend. The tasks already
+   * submitted finish on the previous executor, which then rejects new tasks: the tasks submitted
+   * with {@link #execute(Runnable)} go to the new executor instead.
+   *
+   * @param newBackend Backend creating the executor of the blocking tasks.
+   */
+  public static synchronized void useBackend(ExecutorBackend newBackend) {
+    ExecutorService previous = workers;
+    backend = newBackend;
+    workers = newBackend.newExecutor(WORKER_PREFIX);
+    previous.shutdown();
   }
 
   public static ScheduledFuture<?> schedule(Runnable command, long delayMs) {
-    return getDefaultExecutor().schedule(command, delayMs, TimeUnit.MILLISECONDS);
+    return getDefaultWheel().schedule(command, delayMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Stop the shared scheduler: the timed tasks not yet run are cancelled and the running blocking
+   * tasks finish. Meant to be called when the game exits. The timers and sound players used after
+   * this call get a new wheel and new workers, their tasks scheduled before are not run.
+   */
+  public static synchronized void shutdown() {
+    wheel.shutdown();
+    workers.shutdown();
+  }
+
+  /**
+   * @return A new timing wheel for the timed tasks.
+   */
+  private static TimingWheel newWheel() {
+    return new TimingWheel("devint-timing-wheel", TICK_DURATION_MS, TimeUnit.MILLISECONDS, TICKS_PER_WHEEL);
+  }
+
+  /**
+   * Holds the executor of the deprecated accessors, so its threads are only created if a game
+   * still uses them.
+   */
+  private static final class LegacyExecutor {
+
+    private static final int POOL_SIZE = 2;
+    private static final ScheduledThreadPoolExecutor INSTANCE =
+            new ScheduledThreadPoolExecutor(POOL_SIZE, runnable -> {
+              Thread thread = new Thread(runnable, "devint-legacy-scheduler");
+              thread.setDaemon(true);
+              return thread;
+            });
   }
 }
@@ -0,0 +1,394 @@
+package polytech.devint.scheduler;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Hashed timing wheel running many timed tasks with a single thread.
+ * The wheel is an array of buckets, each one covering a tick: a task is linked in the bucket of
+ * its deadline with the number of turns of the wheel left before it runs, so scheduling and
+ * cancelling take constant time whatever the number of tasks.
+ * <p>
+ * Tasks run on the tick thread, one after the other: they must be short, and hand long work
+ * (like playing a sound) to another executor. A periodic task runs at a fixed rate; runs missed
+ * while the thread was late are caught up one per tick. The tick thread starts with the first
+ * task, sleeps until the tick of the next due task rather than waking up on each tick, and stops
+ * with {@link #shutdown()}.
+ *
+ * @author Loris Friedel
+ */
+public final class TimingWheel {
+
+  private static final Logger LOGGER = LogManager.getLogger(TimingWheel.class);
+
+  private static final int NEW = 0;
+  private static final int STARTED = 1;
+  private static final int SHUTDOWN = 2;
+
+  private final String name;
+  private final long tickNanos;
+  private final WheelTask[] buckets;
+  private final int mask;
+  private final long startTime;
+  private final Queue<WheelTask> scheduled;
+  private final Queue<WheelTask> cancelled;
+  private final AtomicInteger state;
+  private final CountDownLatch terminated;
+  private volatile Thread thread;
+  // Number of times the tick thread woke up, written by the tick thread only
+  private volatile long wakeUps;
+
+  // Owned by the tick thread
+  private long tick;
+  private int size;
+
+  /**
+   * @param name          Name of the tick thread.
+   * @param tickDuration  Duration of a tick, the precision of the wheel.
+   * @param unit          Unit of the tick duration.
+   * @param ticksPerWheel Number of buckets, rounded up to a power of two.
+   */
+  public TimingWheel(String name, long tickDuration, TimeUnit unit, int ticksPerWheel) {
+    if (tickDuration <= 0 || ticksPerWheel <= 0) {
+      throw new IllegalArgumentException("The tick duration and the number of ticks must be positive");
+    }
+    this.name = name;
+    this.tickNanos = unit.toNanos(tickDuration);
+    int wheelSize = Integer.highestOneBit(ticksPerWheel - 1) << 1;
+    this.buckets = new WheelTask[Math.max(1, wheelSize)];
+    this.mask = buckets.length - 1;
+    this.startTime = System.nanoTime();
+    this.scheduled = new ConcurrentLinkedQueue<>();
+    this.cancelled = new ConcurrentLinkedQueue<>();
+    this.state = new AtomicInteger(NEW);
+    this.terminated = new CountDownLatch(1);
+  }
+
+  /**
+   * Run a task once after the given delay.
+   *
+   * @param task  Task to run.
+   * @param delay Delay before the run.
+   * @param unit  Unit of the delay.
+   * @return The scheduled task, to cancel it.
+   * @throws RejectedExecutionException If the wheel has been shut down.
+   */
+  public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+    return add(new WheelTask(this, task, System.nanoTime() + unit.toNanos(delay), 0));
+  }
+
+  /**
+   * Run a task periodically, at a fixed rate.
+   *
+   * @param task         Task to run.
+   * @param initialDelay Delay before the first run.
+   * @param period       Delay between the starts of two runs.
+   * @param unit         Unit of the delays.
+   * @return The scheduled task, to cancel it.
+   * @throws RejectedExecutionException If the wheel has been shut down.
+   */
+  public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+    if (period <= 0) {
+      throw new IllegalArgumentException("The period must be positive, got " + period);
+    }
+    return add(new WheelTask(this, task, System.nanoTime() + unit.toNanos(initialDelay),
+            unit.toNanos(period)));
+  }
+
+  /**
+   * Hand a new task to the tick thread, starting it if needed.
+   *
+   * @param task New task.
+   * @return The given task.
+   */
+  private WheelTask add(WheelTask task) {
+    if (state.get() == NEW && state.compareAndSet(NEW, STARTED)) {
+      Thread tickThread = new Thread(this::run, name);
+      tickThread.setDaemon(true);
+      thread = tickThread;
+      tickThread.start();
+    }
+    if (state.get() == SHUTDOWN) {
+      throw new RejectedExecutionException("The timing wheel " + name + " has been shut down");
+    }
+    scheduled.add(task);
+    if (state.get() == SHUTDOWN) {
+      // The tick thread may have stopped before seeing the task, nothing would run or cancel it
+      task.cancel(false);
+      throw new RejectedExecutionException("The timing wheel " + name + " has been shut down");
+    }
+    LockSupport.unpark(thread);
+    return task;
+  }
+
+  /**
+   * Called when a task is cancelled, so the tick thread unlinks it.
+   *
+   * @param task Cancelled task.
+   */
+  void cancelled(WheelTask task) {
+    cancelled.add(task);
+  }
+
+  /**
+   * Stop the tick thread. The tasks not yet run are cancelled, and new tasks are rejected.
+   */
+  public void shutdown() {
+    int previous = state.getAndSet(SHUTDOWN);
+    if (previous == NEW) {
+      terminated.countDown();
+    } else if (previous == STARTED) {
+      LockSupport.unpark(thread);
+    }
+  }
+
+  /**
+   * @return True if the wheel has been shut down.
+   */
+  public boolean isShutdown() {
+    return state.get() == SHUTDOWN;
+  }
+
+  /**
+   * Wait for the tick thread to stop after a shutdown.
+   *
+   * @param timeout Maximum time to wait.
+   * @param unit    Unit of the timeout.
+   * @return True if the tick thread has stopped.
+   * @throws InterruptedException If interrupted while waiting.
+   */
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return terminated.await(timeout, unit);
+  }
+
+  /**
+   * @return The number of times the tick thread woke up, to check that it does not poll.
+   */
+  long getWakeUps() {
+    return wakeUps;
+  }
+
+  /**
+   * Loop of the tick thread.
+   */
+  private void run() {
+    tick = currentTick(System.nanoTime());
+    try {
+      while (state.get() != SHUTDOWN) {
+        if (size == 0 && scheduled.isEmpty()) {
+          // Nothing to run: sleep until a task is scheduled, then catch up with the clock
+          LockSupport.park(this);
+          cancelled.clear();
+          tick = currentTick(System.nanoTime()) - 1;
+        } else {
+          // Link the new tasks first, so the next due tick accounts for them
+          transferScheduled(tick + 1);
+          unlinkCancelled();
+          long sleep = startTime + nextDueTick() * tickNanos - System.nanoTime();
+          if (sleep > 0) {
+            LockSupport.parkNanos(this, sleep);
+          }
+        }
+        wakeUps++;
+        long target = currentTick(System.nanoTime());
+        while (tick < target && state.get() != SHUTDOWN) {
+          tick++;
+          transferScheduled(tick);
+          unlinkCancelled();
+          expire(buckets[(int) (tick & mask)]);
+        }
+      }
+    } finally {
+      cancelRemaining();
+      terminated.countDown();
+    }
+  }
+
+  /**
+   * @param now A time from {@link System#nanoTime()}.
+   * @return The tick of the given time.
+   */
+  private long currentTick(long now) {
+    return (now - startTime) / tickNanos;
+  }
+
+  /**
+   * Find the tick of the next due task, walking the buckets from the one after the current tick.
+   * A task in the bucket at distance d runs at the tick {@code tick + d + rounds * wheelSize}.
+   *
+   * @return The tick of the next due task, or a turn of the wheel later if no task is linked.
+   */
+  private long nextDueTick() {
+    long earliest = Long.MAX_VALUE;
+    for (int distance = 1; distance <= buckets.length; distance++) {
+      for (WheelTask task = buckets[(int) ((tick + distance) & mask)]; task != null; task = task.next) {
+        if (task.remainingRounds <= 0) {
+          // Nearer buckets have been walked already, nothing runs before this one
+          return tick + distance;
+        }
+        earliest = Math.min(earliest, tick + distance + task.remainingRounds * buckets.length);
+      }
+    }
+    return earliest != Long.MAX_VALUE ? earliest : tick + buckets.length;
+  }
+
+  /**
+   * Link the newly scheduled tasks into their buckets.
+   *
+   * @param earliest First tick at which the tasks may run.
+   */
+  private void transferScheduled(long earliest) {
+    WheelTask task;
+    while ((task = scheduled.poll()) != null) {
+      if (task.isWaiting()) {
+        link(task, earliest);
+      }
+    }
+  }
+
+  /**
+   * Unlink the cancelled tasks from their buckets.
+   */
+  private void unlinkCancelled() {
+    WheelTask task;
+    while ((task = cancelled.poll()) != null) {
+      if (task.bucket >= 0) {
+        unlink(task);
+      }
+    }
+  }
+
+  /**
+   * Run the due tasks of a bucket, and count a turn for the others.
+   *
+   * @param head First task of the bucket.
+   */
+  private void expire(WheelTask head) {
+    WheelTask expired = null;
+    WheelTask task = head;
+    while (task != null) {
+      WheelTask next = task.next;
+      if (!task.isWaiting()) {
+        unlink(task);
+      } else if (task.remainingRounds <= 0) {
+        unlink(task);
+        expired = insertByDeadline(expired, task);
+      } else {
+        task.remainingRounds--;
+      }
+      task = next;
+    }
+    // Run after walking the bucket, since periodic tasks link themselves again
+    while (expired != null) {
+      WheelTask next = expired.next;
+      expired.next = null;
+      runTask(expired);
+      expired = next;
+    }
+  }
+
+  /**
+   * Insert a task in a list sorted by deadline. Tasks scheduled while the tick thread was late
+   * share the same tick, and must still run in the order of their deadlines.
+   *
+   * @param head First task of the sorted list, or null.
+   * @param task Task to insert.
+   * @return The first task of the list.
+   */
+  private static WheelTask insertByDeadline(WheelTask head, WheelTask task) {
+    if (head == null || task.deadline - head.deadline < 0) {
+      task.next = head;
+      return task;
+    }
+    WheelTask previous = head;
+    while (previous.next != null && previous.next.deadline - task.deadline <= 0) {
+      previous = previous.next;
+    }
+    task.next = previous.next;
+    previous.next = task;
+    return head;
+  }
+
+  /**
+   * Run a due task, and link it again if it is periodic.
+   *
+   * @param task Due task.
+   */
+  private void runTask(WheelTask task) {
+    try {
+      if (task.run() && state.get() != SHUTDOWN) {
+        link(task, tick + 1);
+      }
+    } catch (Throwable e) {
+      LOGGER.error("Error while running a task of the timing wheel " + name + ":", e);
+    }
+  }
+
+  /**
+   * Link a task into the bucket of its deadline.
+   *
+   * @param task     Task to link.
+   * @param earliest First tick at which the task may run: the current tick if its bucket has not
+   *                 been walked yet, the next one otherwise.
+   */
+  private void link(WheelTask task, long earliest) {
+    long deadlineTick = Math.max(earliest, -Math.floorDiv(-(task.deadline - startTime), tickNanos));
+    // Turns left before the bucket is walked at the deadline tick, counted from the next walk
+    task.remainingRounds = (deadlineTick - earliest) / buckets.length;
+    task.bucket = (int) (deadlineTick & mask);
+    task.previous = null;
+    task.next = buckets[task.bucket];
+    if (task.next != null) {
+      task.next.previous = task;
+    }
+    buckets[task.bucket] = task;
+    size++;
+  }
+
+  /**
+   * Unlink a task from its bucket.
+   *
+   * @param task Linked task.
+   */
+  private void unlink(WheelTask task) {
+    if (task.previous != null) {
+      task.previous.next = task.next;
+    } else {
+      buckets[task.bucket] = task.next;
+    }
+    if (task.next != null) {
+      task.next.previous = task.previous;
+    }
+    task.previous = null;
+    task.next = null;
+    task.bucket = -1;
+    size--;
+  }
+
+  /**
+   * Cancel the tasks left when the tick thread stops.
+   */
+  private void cancelRemaining() {
+    for (int i = 0; i < buckets.length; i++) {
+      for (WheelTask task = buckets[i]; task != null; task = task.next) {
+        task.cancel(false);
+      }
+      buckets[i] = null;
+    }
+    WheelTask task;
+    while ((task = scheduled.poll()) != null) {
+      task.cancel(false);
+    }
+    cancelled.clear();
+    size = 0;
+  }
+}
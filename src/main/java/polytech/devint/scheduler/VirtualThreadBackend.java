@@ -0,0 +1,70 @@
+package polytech.devint.scheduler;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Runs each task on a new virtual thread.
+ * The engine is compiled for Java 8, so the virtual thread API is looked up once at runtime and
+ * the backend is only available on Java 21 and later. Virtual threads never keep the program
+ * alive.
+ *
+ * @author Loris Friedel
+ */
+final class VirtualThreadBackend implements ExecutorBackend {
+
+  private final MethodHandle ofVirtual;
+  private final MethodHandle name;
+  private final MethodHandle factory;
+  private final MethodHandle newExecutor;
+
+  private VirtualThreadBackend(MethodHandle ofVirtual, MethodHandle name, MethodHandle factory,
+                               MethodHandle newExecutor) {
+    this.ofVirtual = ofVirtual;
+    this.name = name;
+    this.factory = factory;
+    this.newExecutor = newExecutor;
+  }
+
+  /**
+   * @return The backend, or nothing if the runtime has no virtual threads.
+   */
+  static Optional<ExecutorBackend> create() {
+    try {
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      Class<?> builder = Class.forName("java.lang.Thread$Builder");
+      Class<?> virtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+      return Optional.of(new VirtualThreadBackend(
+              lookup.findStatic(Thread.class, "ofVirtual", MethodType.methodType(virtualBuilder)),
+              lookup.findVirtual(builder, "name", MethodType.methodType(builder, String.class, long.class)),
+              lookup.findVirtual(builder, "factory", MethodType.methodType(ThreadFactory.class)),
+              lookup.findStatic(Executors.class, "newThreadPerTaskExecutor",
+                      MethodType.methodType(ExecutorService.class, ThreadFactory.class))));
+    } catch (ReflectiveOperationException e) {
+      return Optional.empty();
+    }
+  }
+
+  @Override
+  public ExecutorService newExecutor(String namePrefix) {
+    try {
+      // Thread.ofVirtual().name(namePrefix, 1).factory()
+      Object builder = name.invoke(ofVirtual.invoke(), namePrefix, 1L);
+      return (ExecutorService) newExecutor.invoke((ThreadFactory) factory.invoke(builder));
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new IllegalStateException("Cannot create a virtual thread executor", e);
+    }
+  }
+
+  @Override
+  public String getName() {
+    return "virtual";
+  }
+}
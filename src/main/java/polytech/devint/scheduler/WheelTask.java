@@ -0,0 +1,186 @@
+package polytech.devint.scheduler;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A task scheduled on a {@link TimingWheel}.
+ * The task is linked directly into a bucket of the wheel, so it is scheduled and cancelled in
+ * constant time.
+ *
+ * @author Loris Friedel
+ */
+public final class WheelTask implements ScheduledFuture<Void> {
+
+  static final int WAITING = 0;
+  static final int RUNNING = 1;
+  static final int DONE = 2;
+  static final int CANCELLED = 3;
+
+  private final TimingWheel wheel;
+  private final Runnable task;
+  private final long periodNanos;
+  private final AtomicInteger state;
+  private volatile Throwable failure;
+
+  // Owned by the tick thread of the wheel
+  long deadline;
+  long remainingRounds;
+  WheelTask previous;
+  WheelTask next;
+  int bucket;
+
+  /**
+   * @param wheel       Wheel running the task.
+   * @param task        Task to run.
+   * @param deadline    Time of the first run, from {@link System#nanoTime()}.
+   * @param periodNanos Period of the runs, or 0 to run once.
+   */
+  WheelTask(TimingWheel wheel, Runnable task, long deadline, long periodNanos) {
+    this.wheel = wheel;
+    this.task = task;
+    this.deadline = deadline;
+    this.periodNanos = periodNanos;
+    this.state = new AtomicInteger(WAITING);
+    this.bucket = -1;
+  }
+
+  /**
+   * @return True if the task runs periodically.
+   */
+  boolean isPeriodic() {
+    return periodNanos > 0;
+  }
+
+  /**
+   * @return The period of the runs in nanoseconds, or 0 if the task runs once.
+   */
+  long getPeriodNanos() {
+    return periodNanos;
+  }
+
+  /**
+   * @return True if the task still waits for a run.
+   */
+  boolean isWaiting() {
+    return state.get() == WAITING;
+  }
+
+  /**
+   * Run the task, called by the tick thread of the wheel.
+   *
+   * @return True if the task must be scheduled again.
+   */
+  boolean run() {
+    if (!state.compareAndSet(WAITING, RUNNING)) {
+      return false;
+    }
+    try {
+      task.run();
+    } catch (Throwable e) {
+      // Like a ScheduledExecutorService, a failing periodic task is not run again
+      failure = e;
+      complete(DONE);
+      throw e;
+    }
+    if (isPeriodic()) {
+      if (state.compareAndSet(RUNNING, WAITING)) {
+        deadline += periodNanos;
+        return true;
+      }
+      return false;
+    }
+    complete(DONE);
+    return false;
+  }
+
+  /**
+   * Move from running to the given final state, unless the task was cancelled meanwhile.
+   *
+   * @param finalState Final state of the task.
+   */
+  private void complete(int finalState) {
+    if (state.compareAndSet(RUNNING, finalState)) {
+      synchronized (this) {
+        notifyAll();
+      }
+    }
+  }
+
+  @Override
+  public boolean cancel(boolean mayInterruptIfRunning) {
+    int current = state.get();
+    while (current == WAITING || current == RUNNING) {
+      if (state.compareAndSet(current, CANCELLED)) {
+        wheel.cancelled(this);
+        synchronized (this) {
+          notifyAll();
+        }
+        return true;
+      }
+      current = state.get();
+    }
+    return false;
+  }
+
+  @Override
+  public boolean isCancelled() {
+    return state.get() == CANCELLED;
+  }
+
+  @Override
+  public boolean isDone() {
+    return state.get() >= DONE;
+  }
+
+  @Override
+  public synchronized Void get() throws InterruptedException, ExecutionException {
+    while (!isDone()) {
+      wait();
+    }
+    return result();
+  }
+
+  @Override
+  public synchronized Void get(long timeout, TimeUnit unit)
+          throws InterruptedException, ExecutionException, TimeoutException {
+    long end = System.nanoTime() + unit.toNanos(timeout);
+    while (!isDone()) {
+      long remaining = end - System.nanoTime();
+      if (remaining <= 0) {
+        throw new TimeoutException();
+      }
+      TimeUnit.NANOSECONDS.timedWait(this, remaining);
+    }
+    return result();
+  }
+
+  /**
+   * @return Nothing, once the task is done.
+   * @throws ExecutionException If the task failed.
+   */
+  private Void result() throws ExecutionException {
+    if (isCancelled()) {
+      throw new CancellationException();
+    }
+    if (failure != null) {
+      throw new ExecutionException(failure);
+    }
+    return null;
+  }
+
+  @Override
+  public long getDelay(TimeUnit unit) {
+    return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+  }
+
+  @Override
+  public int compareTo(Delayed other) {
+    return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+  }
+}
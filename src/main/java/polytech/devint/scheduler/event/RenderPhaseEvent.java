@@ -0,0 +1,52 @@
+package polytech.devint.scheduler.event;
+
+import polytech.devint.event.Coalescible;
+
+/**
+ * Sent by a {@link polytech.devint.scheduler.GameLoop} when a frame should be drawn.
+ * The game state is only updated by fixed steps, so the frame falls between two steps: draw the
+ * state interpolated between the previous and the last step with {@link #getAlpha()}.
+ * Only the latest frame matters, so a pending frame is replaced by a newer one when the loop
+ * dispatches asynchronously.
+ *
+ * @author Loris Friedel
+ */
+public class RenderPhaseEvent implements Coalescible {
+
+  private final long frame;
+  private final double alpha;
+  private final long frameNanos;
+
+  /**
+   * @param frame      Number of the frame, starting from 0.
+   * @param alpha      Part of a step elapsed since the last update, between 0 and 1.
+   * @param frameNanos Time elapsed since the previous frame, in nanoseconds.
+   */
+  public RenderPhaseEvent(long frame, double alpha, long frameNanos) {
+    this.frame = frame;
+    this.alpha = alpha;
+    this.frameNanos = frameNanos;
+  }
+
+  /**
+   * @return The number of the frame, starting from 0.
+   */
+  public long getFrame() {
+    return frame;
+  }
+
+  /**
+   * @return The part of a step elapsed since the last update, between 0 (inclusive) and 1
+   * (exclusive). Draw {@code previous + (current - previous) * alpha}.
+   */
+  public double getAlpha() {
+    return alpha;
+  }
+
+  /**
+   * @return The time elapsed since the previous frame, in nanoseconds.
+   */
+  public long getFrameNanos() {
+    return frameNanos;
+  }
+}
@@ -0,0 +1,47 @@
+package polytech.devint.scheduler.event;
+
+import java.util.concurrent.TimeUnit;
+
+import polytech.devint.event.Event;
+
+/**
+ * Sent by a {@link polytech.devint.scheduler.GameLoop} for each fixed step of the game state.
+ * Every step covers the same duration, so the game logic can advance by a constant amount.
+ *
+ * @author Loris Friedel
+ */
+public class UpdatePhaseEvent implements Event {
+
+  private final long tick;
+  private final long stepNanos;
+
+  /**
+   * @param tick      Number of the step, starting from 0.
+   * @param stepNanos Duration covered by the step, in nanoseconds.
+   */
+  public UpdatePhaseEvent(long tick, long stepNanos) {
+    this.tick = tick;
+    this.stepNanos = stepNanos;
+  }
+
+  /**
+   * @return The number of the step, starting from 0.
+   */
+  public long getTick() {
+    return tick;
+  }
+
+  /**
+   * @return The duration covered by the step, in nanoseconds.
+   */
+  public long getStepNanos() {
+    return stepNanos;
+  }
+
+  /**
+   * @return The duration covered by the step, in seconds.
+   */
+  public double getStepSeconds() {
+    return (double) stepNanos / TimeUnit.SECONDS.toNanos(1);
+  }
+}
@@ -0,0 +1,89 @@
+package polytech.devint.util.time;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Describes how often an action may run, to be enforced by a {@link RateLimiter}.
+ * <ul>
+ * <li>A throttled action runs at most once per interval.</li>
+ * <li>A debounced action runs once the calls stop for the interval; it suits chattering keys
+ * and switches.</li>
+ * </ul>
+ * The leading edge runs the first call of a burst at once, the trailing edge runs the last
+ * suppressed call when the interval ends.
+ *
+ * @author Loris Friedel
+ */
+public final class RateLimit {
+
+  public enum Mode {
+    THROTTLE, DEBOUNCE
+  }
+
+  public enum Edge {
+    LEADING, TRAILING, BOTH
+  }
+
+  private final Mode mode;
+  private final Edge edge;
+  private final long intervalNanos;
+
+  /**
+   * @param mode     Throttle or debounce.
+   * @param edge     Edges of a burst on which the action runs.
+   * @param interval Interval of the limit.
+   * @param unit     Unit of the interval.
+   */
+  public RateLimit(Mode mode, Edge edge, long interval, TimeUnit unit) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("The interval must be positive, got " + interval);
+    }
+    this.mode = mode;
+    this.edge = edge;
+    this.intervalNanos = unit.toNanos(interval);
+  }
+
+  /**
+   * @param intervalMs Minimum delay between two runs, in milliseconds.
+   * @param edge       Edges of a burst on which the action runs.
+   * @return A throttling limit.
+   */
+  public static RateLimit throttle(long intervalMs, Edge edge) {
+    return new RateLimit(Mode.THROTTLE, edge, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * @param quietMs Delay without call that ends a burst, in milliseconds.
+   * @param edge    Edges of a burst on which the action runs.
+   * @return A debouncing limit.
+   */
+  public static RateLimit debounce(long quietMs, Edge edge) {
+    return new RateLimit(Mode.DEBOUNCE, edge, quietMs, TimeUnit.MILLISECONDS);
+  }
+
+  public Mode getMode() {
+    return mode;
+  }
+
+  public Edge getEdge() {
+    return edge;
+  }
+
+  public long getIntervalNanos() {
+    return intervalNanos;
+  }
+
+  /**
+   * @return True if the first call of a burst runs at once.
+   */
+  public boolean isLeading() {
+    return edge != Edge.TRAILING;
+  }
+
+  /**
+   * @return True if the last suppressed call of a burst runs when the interval ends.
+   */
+  public boolean isTrailing() {
+    return edge != Edge.LEADING;
+  }
+}
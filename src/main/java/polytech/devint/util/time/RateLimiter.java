@@ -0,0 +1,153 @@
+package polytech.devint.util.time;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import polytech.devint.scheduler.SchedulerReady;
+
+/**
+ * Enforces a {@link RateLimit} on the calls of one action, generalizing {@link Timeout#tryTo}
+ * with debouncing and trailing edges.
+ * Time is measured with {@link System#nanoTime()}, so changing the wall clock has no effect.
+ * A call that runs, or is suppressed while a trailing run is already scheduled, allocates
+ * nothing: only the first suppressed call of a burst schedules a task on the shared
+ * {@link polytech.devint.scheduler.TimingWheel}.
+ * <p>
+ * The trailing action does not run on the thread of the calls: the wheel hands it to the
+ * executor given to the limiter, by default the shared workers of {@link SchedulerReady}. Give
+ * {@code EventQueue::invokeLater} to run it on the EDT like the calls of a Swing input.
+ *
+ * @author Loris Friedel
+ */
+public class RateLimiter {
+
+  private final RateLimit limit;
+  private final Runnable trailingAction;
+  private final Executor trailingExecutor;
+  private final Runnable trailingCheck;
+  // Start of the current throttling window
+  private long lastRun;
+  private long lastCall;
+  private boolean idle;
+  private boolean pending;
+  private boolean scheduled;
+
+  /**
+   * @param limit          Limit to enforce.
+   * @param trailingAction Action run on the trailing edge of a burst, if the limit has one, by
+   *                       the shared workers.
+   */
+  public RateLimiter(RateLimit limit, Runnable trailingAction) {
+    this(limit, trailingAction, SchedulerReady::execute);
+  }
+
+  /**
+   * @param limit            Limit to enforce.
+   * @param trailingAction   Action run on the trailing edge of a burst, if the limit has one.
+   * @param trailingExecutor Executor running the trailing action.
+   */
+  public RateLimiter(RateLimit limit, Runnable trailingAction, Executor trailingExecutor) {
+    this.limit = limit;
+    this.trailingAction = trailingAction;
+    this.trailingExecutor = trailingExecutor;
+    this.trailingCheck = this::runTrailing;
+    this.idle = true;
+  }
+
+  /**
+   * @return The limit enforced.
+   */
+  public RateLimit getLimit() {
+    return limit;
+  }
+
+  /**
+   * Record a call.
+   *
+   * @return True if the call must run now, false if it is suppressed. A suppressed call runs
+   * the trailing action later if the limit has a trailing edge.
+   */
+  public synchronized boolean tryAcquire() {
+    long now = System.nanoTime();
+    long interval = limit.getIntervalNanos();
+    boolean burstOver;
+    if (limit.getMode() == RateLimit.Mode.THROTTLE) {
+      burstOver = idle || now - lastRun >= interval;
+    } else {
+      burstOver = idle || now - lastCall >= interval;
+    }
+    idle = false;
+    lastCall = now;
+
+    if (burstOver && limit.isLeading() && !pending) {
+      lastRun = now;
+      return true;
+    }
+    if (burstOver && !pending) {
+      // Trailing only: the burst starts without running
+      lastRun = now;
+    }
+    if (limit.isTrailing()) {
+      pending = true;
+      if (!scheduled) {
+        scheduled = true;
+        SchedulerReady.getDefaultWheel().schedule(trailingCheck, deadline() - now, TimeUnit.NANOSECONDS);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Run the given action now if the call is not suppressed.
+   *
+   * @param action Action to run.
+   */
+  public void tryTo(Runnable action) {
+    if (tryAcquire()) {
+      action.run();
+    }
+  }
+
+  /**
+   * Forget the calls so far: a pending trailing run is dropped and the next call starts a new
+   * burst.
+   */
+  public synchronized void reset() {
+    idle = true;
+    pending = false;
+  }
+
+  /**
+   * @return The time at which the current burst ends.
+   */
+  private long deadline() {
+    long interval = limit.getIntervalNanos();
+    return limit.getMode() == RateLimit.Mode.THROTTLE ? lastRun + interval : lastCall + interval;
+  }
+
+  /**
+   * Called when the current burst may be over: run the trailing action, or wait again if calls
+   * kept the burst going.
+   */
+  private void runTrailing() {
+    synchronized (this) {
+      long now = System.nanoTime();
+      long remaining = deadline() - now;
+      if (!pending) {
+        scheduled = false;
+        return;
+      }
+      if (remaining > 0) {
+        SchedulerReady.getDefaultWheel().schedule(trailingCheck, remaining, TimeUnit.NANOSECONDS);
+        return;
+      }
+      scheduled = false;
+      pending = false;
+      // The trailing run opens a new throttling window
+      lastRun = now;
+      lastCall = now;
+    }
+    // Wheel tasks must be short, the action may notify slow handlers
+    trailingExecutor.execute(trailingAction);
+  }
+}
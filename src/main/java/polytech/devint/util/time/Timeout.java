@@ -1,11 +1,17 @@
 package polytech.devint.util.time;
 
+import java.util.concurrent.TimeUnit;
+
 /**
+ * Lets an action run at most once per delay. Time is measured with {@link System#nanoTime()}.
+ * See {@link RateLimiter} for debouncing and trailing edges.
+ *
  * @author Gunther Jungbluth (gunther.jungbluth.poirier@gmail.com)
  */
 public class Timeout {
 
   private long lastProcessed;
+  private boolean processed;
   private final long timeToWaitMs;
 
   /**
@@ -17,18 +23,26 @@ public class Timeout {
     this.timeToWaitMs = timeToWaitMs;
   }
 
+  /**
+   * @return The delta between each process
+   */
+  public long getTimeToWaitMs() {
+    return timeToWaitMs;
+  }
+
   /**
    * @return True if the last proceed() call was executed after the timeToWaitMs delay
    */
-  private boolean canProceed() {
-    return System.currentTimeMillis() - lastProcessed > timeToWaitMs;
+  public boolean canProceed() {
+    return !processed || System.nanoTime() - lastProcessed > TimeUnit.MILLISECONDS.toNanos(timeToWaitMs);
   }
 
   /**
-   * Proceed a time update
+   * Proceed a time update: the delay starts again from now
    */
-  private void proceed() {
-    lastProcessed = System.currentTimeMillis();
+  public void proceed() {
+    lastProcessed = System.nanoTime();
+    processed = true;
   }
 
   /**
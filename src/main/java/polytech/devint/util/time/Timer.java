@@ -1,25 +1,54 @@
 package polytech.devint.util.time;
 
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import polytech.devint.scheduler.SchedulerReady;
 
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static polytech.devint.util.time.Timer.State.*;
 
 /**
  * Represent a generic timer
+ * <p>
+ * A timer counts its time in one of two {@link Mode}s:
+ * <ul>
+ * <li>{@link Mode#TICK_COUNTING} adds the interval to the elapsed time on each tick. Late ticks
+ * make the timer drift from the real time.</li>
+ * <li>{@link Mode#MONOTONIC} measures the elapsed time with {@link System#nanoTime()}. The end is
+ * a single task scheduled at the deadline. Ticks are only scheduled if the timer overrides
+ * {@link #onTick()}, at the rate given by {@link #nextTickDelay(long)}.</li>
+ * </ul>
+ * In both modes, the first tick runs as soon as the timer starts or resumes, and no tick runs
+ * when the timer reaches its end.
+ * <p>
+ * A timer can be driven from several threads: its state and elapsed time form an immutable
+ * {@link Phase}, replaced by compare-and-set. Of concurrent calls, only one performs a given
+ * transition, so onStart and onFinish run once per start and end. Each start opens a new
+ * {@link Run}; the tasks of a run do nothing once the run is closed.
+ * <p>
+ * The shared timing wheel only triggers the ticks and the end of a timer: {@link #onTick()} and
+ * {@link #onFinish()} run on the shared workers, one at a time for a given timer, so a slow
+ * callback delays neither the other timers nor the wheel. Ticks triggered while a callback is
+ * still running are run right after it, in order.
  *
  * @author Loris Friedel
  */
 public abstract class Timer extends SchedulerReady {
 
+  private static final Logger LOGGER = LogManager.getLogger(Timer.class);
+
   protected long interval;
-  protected long elapsedTime;
   protected long duration;
-  protected volatile State state;
-  protected ScheduledFuture<?> updateTask;
+
+  private final Mode mode;
+  private final boolean ticking;
+  private final AtomicReference<Phase> phase;
 
   protected static final long WAITING_TIME_BEFORE_START = 0L;
   protected static final long DEFAULT_INTERVAL_MS = 10L;
@@ -28,17 +57,32 @@ public abstract class Timer extends SchedulerReady {
     READY, RUNNING, PAUSED, FINISHED, CANCELED
   }
 
+  public enum Mode {
+    TICK_COUNTING, MONOTONIC
+  }
+
   /**
    * @param duration The period in milliseconds for which the timer should run.
    *                 After this time has passed, the timer will stop.
    * @param interval The time gap between each tick in milliseconds.
    */
   public Timer(long duration, long interval) {
+    this(duration, interval, Mode.TICK_COUNTING);
+  }
+
+  /**
+   * @param duration The period in milliseconds for which the timer should run.
+   *                 After this time has passed, the timer will stop.
+   * @param interval The time gap between each tick in milliseconds.
+   * @param mode     How the timer counts its time.
+   */
+  public Timer(long duration, long interval, Mode mode) {
     super();
     this.duration = duration;
     this.interval = interval;
-    this.elapsedTime = 0;
-    this.state = READY;
+    this.mode = mode;
+    this.ticking = overridesOnTick(getClass());
+    this.phase = new AtomicReference<>(new Phase(READY, 0, null));
   }
 
   /**
@@ -56,128 +100,220 @@ public abstract class Timer extends SchedulerReady {
    * false otherwise.
    */
   public boolean isReady() {
-    return state.equals(READY);
+    return phase.get().state == READY;
   }
 
   /**
    * @return True if the timer is currently running, false otherwise.
    */
   public boolean isRunning() {
-    return state.equals(RUNNING);
+    return phase.get().state == RUNNING;
   }
 
   /**
    * @return True if the timer is currently paused, false otherwise.
    */
   public boolean isPaused() {
-    return state.equals(PAUSED);
+    return phase.get().state == PAUSED;
   }
 
   /**
    * @return True if the timer run for its total duration without being canceled, false otherwise.
    */
   public boolean hasFinished() {
-    return state.equals(FINISHED);
+    return phase.get().state == FINISHED;
   }
 
   /**
    * @return True if the timer has been canceled and is not yet ready, false otherwise.
    */
   public boolean hasBeenCanceled() {
-    return state.equals(CANCELED);
+    return phase.get().state == CANCELED;
+  }
+
+  /**
+   * @return The current state of the timer.
+   * @deprecated The state is no longer a field that subclasses can read, use
+   * {@link #isRunning()} and the other state checks.
+   */
+  @Deprecated
+  protected State getState() {
+    return phase.get().state;
   }
 
   /**
    * Starts the timer. If the timer was already running, this call is ignored.
    */
   public void start() {
-    if (canSwitchTo(RUNNING)) {
-      startProcess();
-      switchState(RUNNING);
-      onStart();
-    }
+    run(false);
   }
 
   /**
-   * Process that starts the timer.
+   * Resumes the timer if it was paused, else does nothing
    */
-  private void startProcess() {
-    startTimerThread();
+  public void resume() {
+    run(true);
   }
 
   /**
-   * Start the timer update task on a new thread
+   * Switch to running and launch the tasks of a new run.
+   *
+   * @param resumeOnly True to only start a paused timer.
    */
-  private void startTimerThread() {
-    updateTask = getExecutor().scheduleAtFixedRate(
-            this::tick,
-            WAITING_TIME_BEFORE_START,
-            interval, TimeUnit.MILLISECONDS);
+  private void run(boolean resumeOnly) {
+    Phase current;
+    Phase next;
+    do {
+      current = phase.get();
+      if (!canSwitch(current.state, RUNNING) || (resumeOnly && current.state != PAUSED)) {
+        return;
+      }
+      next = new Phase(RUNNING, current.elapsedNanos, new Run());
+    } while (!phase.compareAndSet(current, next));
+
+    launch(next.run, next.elapsedNanos);
+    onStart();
+  }
+
+  /**
+   * Schedule the tasks of a run.
+   *
+   * @param run          The new run.
+   * @param elapsedNanos The time run before it.
+   */
+  private void launch(Run run, long elapsedNanos) {
+    if (mode == Mode.MONOTONIC) {
+      run.setFinishTask(getWheel().schedule(run::finishDue,
+              TimeUnit.MILLISECONDS.toNanos(duration) - elapsedNanos, TimeUnit.NANOSECONDS));
+      if (ticking) {
+        scheduleTick(run, WAITING_TIME_BEFORE_START);
+      }
+    } else {
+      run.setTickTask(getWheel().scheduleAtFixedRate(
+              run::tickDue,
+              WAITING_TIME_BEFORE_START,
+              interval, TimeUnit.MILLISECONDS));
+    }
   }
 
   /**
    * This method is called periodically with the interval set as the delay between subsequent calls.
+   *
+   * @param run The run of the tick.
    */
-  private void tick() {
+  private void tick(Run run) {
+    if (run.isClosed()) {
+      return;
+    }
     onTick();
-    elapsedTime += interval;
-    if (elapsedTime >= duration) {
-      finish();
+    long counted = run.count(TimeUnit.MILLISECONDS.toNanos(interval));
+    Phase current = phase.get();
+    if (counted >= 0 && current.run == run
+            && current.elapsedNanos + counted >= TimeUnit.MILLISECONDS.toNanos(duration)) {
+      finish(run);
     }
   }
 
   /**
-   * Paused the timer. The timer can be resume after being paused.
-   * If the timer is not running, this call is ignored.
+   * Schedule the next tick of a monotonic timer.
+   *
+   * @param run     The run of the tick.
+   * @param delayMs Delay before the tick in milliseconds.
    */
-  public void pause() {
-    if (canSwitchTo(PAUSED)) {
-      killTimerTask();
-      switchState(PAUSED);
-    }
+  private void scheduleTick(Run run, long delayMs) {
+    run.setTickTask(getWheel().schedule(run::tickDue, delayMs, TimeUnit.MILLISECONDS));
   }
 
   /**
-   * Resumes the timer if it was paused, else does nothing
+   * Tick of a monotonic timer: the elapsed time is measured, not counted.
+   *
+   * @param run The run of the tick.
    */
-  public void resume() {
-    if (isPaused()) {
-      start();
+  private void monotonicTick(Run run) {
+    if (run.isClosed()) {
+      return;
+    }
+    onTick();
+    long remaining = getRemainingTime();
+    long delay = Math.max(1, nextTickDelay(remaining));
+    if (delay < remaining) {
+      scheduleTick(run, delay);
     }
   }
 
+  /**
+   * Give the delay until the next tick of a monotonic timer. Ticks at or past the end are not run,
+   * the end is told by {@link #onFinish()}.
+   * Override it to adapt the tick rate, for instance to tick on each whole second of a
+   * countdown display with {@code remainingTime % 1000}.
+   *
+   * @param remainingTime The time remaining in milliseconds.
+   * @return The delay before the next tick in milliseconds. The interval by default.
+   */
+  protected long nextTickDelay(long remainingTime) {
+    return interval;
+  }
+
+  /**
+   * Paused the timer. The timer can be resume after being paused.
+   * If the timer is not running, this call is ignored.
+   */
+  public void pause() {
+    stop(PAUSED, null);
+  }
+
   /**
    * End the timer.
    * After this method being called:
    * - The timer is considered finished, i.e. it run its total duration.
    * - The timer is not considered canceled.
+   *
+   * @param run The run that reached the end.
    */
-  private void finish() {
-    if (canSwitchTo(FINISHED)) {
-      finishProcess();
-      switchState(FINISHED);
+  private void finish(Run run) {
+    if (stop(FINISHED, run)) {
       onFinish();
     }
   }
 
-  /**
-   * Process the logic to stop the timer.
-   */
-  private void finishProcess() {
-    killTimerTask();
-  }
-
   /**
    * Stop the timer and reset it.
    * This method can only be called if the timer is running or paused.
    * If the timer is not running and already ready to use, then this call does nothing.
    */
   public void cancel() {
-    if (canSwitchTo(CANCELED)) {
-      killTimerTask();
-      resetTime();
-      switchState(CANCELED);
+    stop(CANCELED, null);
+  }
+
+  /**
+   * Switch from running or paused to a stopped state, closing the current run.
+   *
+   * @param target      State to switch to.
+   * @param expectedRun The run that must still be current, or null for any run.
+   * @return True if this call performed the transition.
+   */
+  private boolean stop(State target, Run expectedRun) {
+    Phase current;
+    Phase next;
+    do {
+      current = phase.get();
+      if (!canSwitch(current.state, target) || (expectedRun != null && current.run != expectedRun)) {
+        return false;
+      }
+      // Any transition out of a run ends it, so closing it before winning is harmless
+      long elapsedNanos = current.elapsedNanos + (current.run != null ? current.run.close() : 0);
+      if (target == CANCELED) {
+        elapsedNanos = 0;
+      } else if (target == FINISHED && mode == Mode.MONOTONIC) {
+        elapsedNanos = TimeUnit.MILLISECONDS.toNanos(duration);
+      }
+      next = new Phase(target, elapsedNanos, null);
+    } while (!phase.compareAndSet(current, next));
+
+    if (current.run != null) {
+      current.run.cancelTasks();
     }
+    return true;
   }
 
   /**
@@ -187,10 +323,13 @@ public abstract class Timer extends SchedulerReady {
    * After a call of this method, the timer will be ready to use again.
    */
   public void reset() {
-    if (canSwitchTo(READY)) {
-      resetTime();
-      switchState(READY);
-    }
+    Phase current;
+    do {
+      current = phase.get();
+      if (!canSwitch(current.state, READY)) {
+        return;
+      }
+    } while (!phase.compareAndSet(current, new Phase(READY, 0, null)));
   }
 
   /**
@@ -230,59 +369,269 @@ public abstract class Timer extends SchedulerReady {
    * @return The elapsed time (in milliseconds) since the start of the timer.
    */
   public long getElapsedTime() {
-    return elapsedTime;
+    Phase current = phase.get();
+    long nanos = current.elapsedNanos;
+    if (current.run != null) {
+      nanos += current.run.elapsedNanos();
+    }
+    long elapsed = TimeUnit.NANOSECONDS.toMillis(nanos);
+    return mode == Mode.MONOTONIC ? Math.min(duration, elapsed) : elapsed;
+  }
+
+  /**
+   * @return How the timer counts its time.
+   */
+  public Mode getMode() {
+    return mode;
   }
 
   /**
-   * Set the elapsed time to 0.
+   * @return The task running the ticks of the current run, or null if there is none.
    */
-  private void resetTime() {
-    elapsedTime = 0;
+  ScheduledFuture<?> getTickTask() {
+    Run run = phase.get().run;
+    return run != null ? run.tickTask : null;
   }
 
   /**
-   * Kill the update task of the timer
+   * @return The task running the ticks of the current run, or null if there is none.
+   * @deprecated The task is replaced on each run and cancelled by the timer itself, use
+   * {@link #pause()} or {@link #cancel()} to stop the ticks.
    */
-  private void killTimerTask() {
-    updateTask.cancel(false);
+  @Deprecated
+  protected ScheduledFuture<?> getUpdateTask() {
+    return getTickTask();
   }
 
   /**
    * @return The time remaining (in milliseconds) for the timer to stop.
    */
   public long getRemainingTime() {
-    return duration - elapsedTime;
+    return duration - getElapsedTime();
   }
 
   /**
-   * Check if the timer can switch to the given state, regarding its current state.
+   * Check if the timer can switch from a state to another.
    *
-   * @param state state we want to switch on
+   * @param from current state
+   * @param to   state we want to switch on
    * @return true if the switch is authorized, false otherwise
    */
-  private boolean canSwitchTo(State state) {
-    switch (state) {
+  private static boolean canSwitch(State from, State to) {
+    switch (to) {
       case READY:
-        return !isReady() && (hasFinished() || hasBeenCanceled());
+        return from == FINISHED || from == CANCELED;
       case RUNNING:
-        return !isRunning() && (isReady() || isPaused() || hasBeenCanceled());
+        return from == READY || from == PAUSED || from == CANCELED;
       case PAUSED:
-        return !isPaused() && (isRunning());
+        return from == RUNNING;
       case FINISHED:
-        return !hasFinished() && (isRunning());
+        return from == RUNNING;
       case CANCELED:
-        return !hasBeenCanceled() && (isRunning() || isPaused());
+        return from == RUNNING || from == PAUSED;
       default:
         return false;
     }
   }
 
   /**
-   * Make the timer switch to the given state
-   *
-   * @param newState new state of the timer
+   * @param type Class of a timer.
+   * @return True if the class or one of its superclasses below Timer overrides onTick().
+   */
+  private static boolean overridesOnTick(Class<?> type) {
+    for (Class<?> current = type; current != Timer.class; current = current.getSuperclass()) {
+      try {
+        current.getDeclaredMethod("onTick");
+        return true;
+      } catch (NoSuchMethodException e) {
+        // Not overridden at this level
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Immutable state of the timer with the time run before its current run.
+   */
+  private static final class Phase {
+
+    final State state;
+    final long elapsedNanos;
+    final Run run;
+
+    /**
+     * @param state        State of the timer.
+     * @param elapsedNanos Time run before the current run, or in total if not running.
+     * @param run          The current run if the timer is running, null otherwise.
+     */
+    Phase(State state, long elapsedNanos, Run run) {
+      this.state = state;
+      this.elapsedNanos = elapsedNanos;
+      this.run = run;
+    }
+  }
+
+  /**
+   * The time between a start and a stop of the timer.
+   * Its progress is the time counted by its ticks while it is open (positive), and its final
+   * time once closed (encoded as a negative value), so closing it and counting a tick are both
+   * single compare-and-set operations.
+   * The wheel tasks of the run only mark a tick or the end as due; one worker at a time runs
+   * what is due.
    */
-  private void switchState(State newState) {
-    state = newState;
+  private final class Run {
+
+    private final long start;
+    private final AtomicLong progress;
+    private final AtomicInteger ticksDue;
+    private final AtomicInteger signals;
+    private volatile boolean finishDue;
+    private volatile ScheduledFuture<?> tickTask;
+    private volatile ScheduledFuture<?> finishTask;
+
+    Run() {
+      this.start = System.nanoTime();
+      this.progress = new AtomicLong();
+      this.ticksDue = new AtomicInteger();
+      this.signals = new AtomicInteger();
+    }
+
+    /**
+     * Called by the wheel when a tick is due.
+     */
+    void tickDue() {
+      ticksDue.incrementAndGet();
+      signal();
+    }
+
+    /**
+     * Called by the wheel when the end of a monotonic timer is due.
+     */
+    void finishDue() {
+      finishDue = true;
+      signal();
+    }
+
+    /**
+     * Run what is due on a worker, unless a worker is already running it.
+     */
+    private void signal() {
+      if (signals.getAndIncrement() == 0) {
+        SchedulerReady.execute(this::drain);
+      }
+    }
+
+    /**
+     * Run the due ticks, then the end, until no signal is left.
+     */
+    private void drain() {
+      do {
+        while (ticksDue.getAndUpdate(due -> due > 0 ? due - 1 : 0) > 0) {
+          callback(mode == Mode.MONOTONIC ? () -> monotonicTick(this) : () -> tick(this));
+        }
+        if (finishDue) {
+          finishDue = false;
+          callback(() -> finish(this));
+        }
+      } while (signals.decrementAndGet() > 0);
+    }
+
+    /**
+     * @param callback Tick or end of the timer, whose errors are logged.
+     */
+    private void callback(Runnable callback) {
+      try {
+        callback.run();
+      } catch (RuntimeException e) {
+        LOGGER.error("Error while running the timer " + Timer.this + ":", e);
+      }
+    }
+
+    /**
+     * @return True once the run is over.
+     */
+    boolean isClosed() {
+      return progress.get() < 0;
+    }
+
+    /**
+     * @return The time of this run in nanoseconds, so far or in total if closed.
+     */
+    long elapsedNanos() {
+      long current = progress.get();
+      if (current < 0) {
+        return -current - 1;
+      }
+      return mode == Mode.MONOTONIC ? System.nanoTime() - start : current;
+    }
+
+    /**
+     * Count a tick of a tick counting timer.
+     *
+     * @param nanos Time of a tick.
+     * @return The time counted so far, or -1 if the run is closed.
+     */
+    long count(long nanos) {
+      long current;
+      do {
+        current = progress.get();
+        if (current < 0) {
+          return -1;
+        }
+      } while (!progress.compareAndSet(current, current + nanos));
+      return current + nanos;
+    }
+
+    /**
+     * Close the run. Calling it again returns the same time.
+     *
+     * @return The total time of the run in nanoseconds.
+     */
+    long close() {
+      long current;
+      long total;
+      do {
+        current = progress.get();
+        if (current < 0) {
+          return -current - 1;
+        }
+        total = mode == Mode.MONOTONIC ? System.nanoTime() - start : current;
+      } while (!progress.compareAndSet(current, -total - 1));
+      return total;
+    }
+
+    /**
+     * @param task Task running the ticks. Cancelled at once if the run is already closed.
+     */
+    void setTickTask(ScheduledFuture<?> task) {
+      tickTask = task;
+      if (isClosed()) {
+        task.cancel(false);
+      }
+    }
+
+    /**
+     * @param task Task ending the run. Cancelled at once if the run is already closed.
+     */
+    void setFinishTask(ScheduledFuture<?> task) {
+      finishTask = task;
+      if (isClosed()) {
+        task.cancel(false);
+      }
+    }
+
+    /**
+     * Cancel the tasks of the run, once it is closed.
+     */
+    void cancelTasks() {
+      ScheduledFuture<?> tick = tickTask;
+      if (tick != null) {
+        tick.cancel(false);
+      }
+      ScheduledFuture<?> finish = finishTask;
+      if (finish != null) {
+        finish.cancel(false);
+      }
+    }
   }
 }
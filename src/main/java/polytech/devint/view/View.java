@@ -1,6 +1,7 @@
 package polytech.devint.view;
 
 import polytech.devint.controller.Controller;
+import polytech.devint.event.BatchListener;
 import polytech.devint.event.Event;
 import polytech.devint.event.Observable;
 import polytech.devint.model.Model;
@@ -13,10 +14,15 @@ import polytech.devint.model.Model;
  * @author Loris Friedel
  * @author Gunther Jungbluth (gunther.jungbluth.poirier@gmail.com)
  */
-public abstract class View<M extends Model> extends Observable {
+public abstract class View<M extends Model> extends Observable implements BatchListener {
 
   protected Controller<M, ?> controller;
   private boolean isActive;
+  // Number of batches of the model being delivered, and whether one asked for an update.
+  // Handlers on any thread can ask for an update, so both are guarded by the batch lock
+  private final Object batchLock = new Object();
+  private int batchDepth;
+  private boolean updateRequested;
 
   /**
    * Instantiates an empty view with no controller The controller and model of the view will be
@@ -100,6 +106,42 @@ public abstract class View<M extends Model> extends Observable {
    */
   public abstract void update();
 
+  /**
+   * Ask for an update of the view.
+   * While the model delivers a batch of events, the update is deferred to the end of the batch,
+   * so it runs once whatever the number of handlers asking for it. Otherwise, the view is
+   * updated right away, on the calling thread.
+   * It can be called from any thread.
+   */
+  public void requestUpdate() {
+    synchronized (batchLock) {
+      if (batchDepth > 0) {
+        updateRequested = true;
+        return;
+      }
+    }
+    update();
+  }
+
+  @Override
+  public void onBatchStart() {
+    synchronized (batchLock) {
+      batchDepth++;
+    }
+  }
+
+  @Override
+  public void onBatchEnd() {
+    synchronized (batchLock) {
+      batchDepth--;
+      if (batchDepth > 0 || !updateRequested) {
+        return;
+      }
+      updateRequested = false;
+    }
+    update();
+  }
+
   /**
    * @return True if the view is active, false if not
    */
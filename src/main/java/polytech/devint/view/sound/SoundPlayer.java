@@ -95,7 +95,7 @@ public class SoundPlayer extends SchedulerReady {
    */
   private void play(Sound sound) {
     setCurrent(sound);
-    getExecutor().execute(() -> {
+    execute(() -> {
       if (!sound.getDataLine().isOpen()) {
         try {
           sound.getDataLine().open(sound.getFormat());
@@ -209,7 +209,7 @@ public class SoundPlayer extends SchedulerReady {
    */
   void nextSound() {
     if (soundQueue.isEmpty() && onQueueEnd != null) {
-      new Thread(onQueueEnd).start();
+      execute(onQueueEnd);
       return;
     }
 
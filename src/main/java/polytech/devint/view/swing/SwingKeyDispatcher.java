@@ -1,35 +1,61 @@
 package polytech.devint.view.swing;
 
+import java.awt.EventQueue;
 import java.awt.KeyEventDispatcher;
 import java.awt.event.KeyEvent;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 import polytech.devint.controller.Controller;
 import polytech.devint.controller.DevintController;
+import polytech.devint.controller.input.InputConfiguration;
+import polytech.devint.controller.input.InputSource;
+import polytech.devint.controller.input.KeyChord;
+import polytech.devint.controller.input.KeySink;
+import polytech.devint.controller.input.KeyState;
+import polytech.devint.controller.input.SequenceMatcher;
 import polytech.devint.controller.input.SwingInputConfiguration;
 import polytech.devint.event.*;
 import polytech.devint.event.Observable;
 import polytech.devint.model.Model;
+import polytech.devint.util.time.RateLimit;
+import polytech.devint.util.time.RateLimiter;
 
 /**
- * A keyboard adapter to listen for keyboard inputs
+ * A keyboard adapter to listen for keyboard inputs.
+ * Besides the keyboard of the window, it can be fed by {@link InputSource}s: the key state is
+ * lock-free, so sources on other threads can press and release keys concurrently without losing
+ * or duplicating the events bound to the first press of a key.
+ * Chords and sequences are matched on the first press of a key, without allocating.
+ * Events with a rate limit in the configuration are debounced or throttled. Their trailing runs
+ * are notified on the EDT, like the keys of the window.
+ * The swing configuration is read on each key event, so a configuration replaced while the game
+ * runs (see {@link polytech.devint.controller.input.InputConfigurationWatcher}) applies at once.
  *
  * @param <M> Type of the model that the controller (which uses this key dispatcher) is controlling.
  * @author Loris Friedel
  */
-public class SwingKeyDispatcher<M extends Model> extends Observable implements KeyEventDispatcher {
+public class SwingKeyDispatcher<M extends Model> extends Observable
+        implements KeyEventDispatcher, KeySink {
 
   private static final Logger LOGGER = LogManager.getLogger(Controller.class);
 
-  private final SwingInputConfiguration configuration;
-  private final Set<Integer> waitingRelease;
+  private final InputConfiguration inputConfiguration;
+  private final KeyState keyState;
+  private final SequenceMatcher sequenceMatcher;
+  private final Map<Class<?>, RateLimiter> limiters;
+  private final List<InputSource> sources;
 
   public SwingKeyDispatcher(Controller<M, ?> controller) {
-    this.configuration = controller.getInputConfiguration().getSwingConfig();
-    this.waitingRelease = new HashSet<>();
+    this.inputConfiguration = controller.getInputConfiguration();
+    this.keyState = new KeyState();
+    this.sequenceMatcher = new SequenceMatcher();
+    this.limiters = new ConcurrentHashMap<>();
+    this.sources = new CopyOnWriteArrayList<>();
     addObserver(controller);
   }
 
@@ -43,44 +69,155 @@ public class SwingKeyDispatcher<M extends Model> extends Observable implements K
     return false;
   }
 
-  private void pressKey(Integer keyCode) {
-    List<Class<? extends Event>> events = new ArrayList<>();
-
-    Optional<List<Class<? extends Event>>> pressEvents =
-            configuration.getKeyPressedEvents(keyCode);
-    Optional<List<Class<? extends Event>>> pressOnceEvents =
-            configuration.getKeyPressedOnceEvents(keyCode);
+  /**
+   * Start an input source feeding this dispatcher.
+   *
+   * @param source Source of key input.
+   */
+  public void addInputSource(InputSource source) {
+    sources.add(source);
+    source.start(this);
+  }
 
-    if (!waitingRelease.contains(keyCode) && pressOnceEvents.isPresent()) {
-      waitingRelease.add(keyCode);
-      events.addAll(pressOnceEvents.get());
+  /**
+   * Stop an input source feeding this dispatcher.
+   *
+   * @param source Source of key input added before.
+   */
+  public void removeInputSource(InputSource source) {
+    if (sources.remove(source)) {
+      source.stop();
     }
+  }
 
-    if (pressEvents.isPresent()) {
-      events.addAll(pressEvents.get());
+  /**
+   * Stop all the input sources feeding this dispatcher.
+   */
+  public void removeInputSources() {
+    sources.forEach(this::removeInputSource);
+  }
+
+  /**
+   * Notify the events bound to the press of a key. The events bound to the first press are only
+   * notified if the key was released, by the one thread that pressed it first.
+   * A first press completing a chord notifies the chord instead of the events bound to the
+   * first press of the key alone.
+   *
+   * @param keyCode Code of the pressed key.
+   */
+  @Override
+  public void pressKey(int keyCode) {
+    SwingInputConfiguration configuration = inputConfiguration.getSwingConfig();
+    if (keyState.press(keyCode)) {
+      if (!notifyChords(configuration, keyCode)) {
+        notifyObservers(configuration, configuration.getKeyPressedOnceFactories(keyCode));
+      }
+      notifyObservers(configuration, sequenceMatcher.advance(configuration, keyCode));
     }
 
-    notifyObservers(events);
+    notifyObservers(configuration, configuration.getKeyPressedFactories(keyCode));
   }
 
-  private void releaseKey(Integer keyCode) {
-    waitingRelease.remove(keyCode);
+  /**
+   * Notify the events bound to the release of a key.
+   *
+   * @param keyCode Code of the released key.
+   */
+  @Override
+  public void releaseKey(int keyCode) {
+    keyState.release(keyCode);
+
+    SwingInputConfiguration configuration = inputConfiguration.getSwingConfig();
+    notifyObservers(configuration, configuration.getKeyReleasedFactories(keyCode));
+  }
 
-    Optional<List<Class<? extends Event>>> releaseEvents =
-            configuration.getKeyReleasedEvents(keyCode);
+  /**
+   * @param keyCode Code of a key.
+   * @return True if the key is held down.
+   */
+  public boolean isKeyPressed(int keyCode) {
+    return keyState.isPressed(keyCode);
+  }
 
-    if (releaseEvents.isPresent()) {
-      notifyObservers(releaseEvents.get());
+  /**
+   * Notify the chords completed by the press of a key.
+   *
+   * @param configuration Configuration binding the chords.
+   * @param keyCode       Code of the pressed key.
+   * @return True if at least one chord was completed.
+   */
+  private boolean notifyChords(SwingInputConfiguration configuration, int keyCode) {
+    boolean completed = false;
+    for (KeyChord chord : configuration.getChords(keyCode)) {
+      if (chord.isHeld(keyState)) {
+        completed = true;
+        notifyObserver(configuration, chord.getEvent());
+      }
     }
+    return completed;
   }
 
-  private void notifyObservers(List<Class<? extends Event>> events) {
-    events.forEach(event -> {
-      try {
-        notifyObservers(event.getConstructor().newInstance());
-      } catch (Exception e) {
-        LOGGER.error("Error while invoking " + event + ":", e);
+  /**
+   * Create and notify the events of the given factories.
+   * Stateless events are shared instances, so this does not allocate them on each key press.
+   *
+   * @param configuration Configuration giving the rate limits of the events.
+   * @param events        Factories of the events to notify.
+   */
+  private void notifyObservers(SwingInputConfiguration configuration, EventFactory<?>[] events) {
+    for (EventFactory<?> event : events) {
+      notifyObserver(configuration, event);
+    }
+  }
+
+  /**
+   * Create and notify an event, unless its rate limit suppresses it.
+   *
+   * @param configuration Configuration giving the rate limit of the event.
+   * @param event         Factory of the event to notify.
+   */
+  private void notifyObserver(SwingInputConfiguration configuration, EventFactory<?> event) {
+    RateLimit limit = configuration.getRateLimit(event.getEventType());
+    if (limit == null || limiterOf(event, limit).tryAcquire()) {
+      notifyObserver(event);
+    }
+  }
+
+  /**
+   * Find the rate limiter of an event, created again when its limit changes.
+   * Input sources call this concurrently: the limiter is created atomically, so they all share
+   * it, and a replaced limiter drops its pending trailing run.
+   *
+   * @param event Factory of a rate limited event.
+   * @param limit Current limit of the event.
+   * @return The rate limiter of the event.
+   */
+  private RateLimiter limiterOf(EventFactory<?> event, RateLimit limit) {
+    RateLimiter limiter = limiters.get(event.getEventType());
+    if (limiter != null && limiter.getLimit() == limit) {
+      return limiter;
+    }
+    return limiters.compute(event.getEventType(), (type, current) -> {
+      if (current != null && current.getLimit() == limit) {
+        return current;
+      }
+      if (current != null) {
+        current.reset();
       }
+      return new RateLimiter(limit, () -> notifyObserver(event), EventQueue::invokeLater);
     });
   }
+
+  /**
+   * Create and notify an event.
+   *
+   * @param event Factory of the event to notify.
+   */
+  private void notifyObserver(EventFactory<?> event) {
+    try {
+      notifyObservers(event.create());
+    } catch (Exception e) {
+      LOGGER.error("Error while invoking " + event.getEventType() + ":", e);
+    }
+  }
 }
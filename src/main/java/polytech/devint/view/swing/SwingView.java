@@ -94,6 +94,14 @@ public abstract class SwingView<M extends Model> extends DevintView<M> {
     return mainPanel;
   }
 
+  /**
+   * @return The key dispatcher notifying the key events of this view to its controller, or null
+   * if the view is not initialized. Record its events to replay a player session.
+   */
+  public SwingKeyDispatcher<M> getKeyDispatcher() {
+    return currentKeyDispatcher;
+  }
+
   private void initPanel() {
     this.mainPanel = new JPanel() {
       @Override
@@ -159,6 +167,7 @@ public abstract class SwingView<M extends Model> extends DevintView<M> {
     frame.setContentPane(new JPanel());
     KeyboardFocusManager.getCurrentKeyboardFocusManager()
             .removeKeyEventDispatcher(currentKeyDispatcher);
+    currentKeyDispatcher.removeInputSources();
     destroyCustomContent();
   }
 
@@ -4,6 +4,11 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.awt.EventQueue;
 
 import org.junit.Test;
 
@@ -58,4 +63,31 @@ public class ControllerTest {
     controller.removeView(v);
     assertTrue(controller.getViews().isEmpty());
   }
+
+  @Test
+  public void coalescedViewsUpdate() throws Exception {
+    Model model = mock(Model.class);
+    InputConfiguration config = new InputConfiguration();
+    ControllerDefault controller = new ControllerDefault(model, config);
+
+    @SuppressWarnings("unchecked")
+    SwingView<Model> v = mock(SwingView.class);
+    when(v.isActive()).thenReturn(true);
+    controller.addView(v);
+
+    // A burst of requests from the event dispatch thread only updates the views once
+    EventQueue.invokeAndWait(() -> {
+      for (int i = 0; i < 10; i++) {
+        controller.requestViewsUpdate();
+      }
+    });
+    EventQueue.invokeAndWait(() -> {
+    });
+    verify(v, times(1)).update();
+
+    controller.requestViewsUpdate();
+    EventQueue.invokeAndWait(() -> {
+    });
+    verify(v, times(2)).update();
+  }
 }
@@ -0,0 +1,89 @@
+package polytech.devint.controller;
+
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import polytech.devint.event.EventFactory;
+import polytech.devint.event.EventHandler;
+import polytech.devint.event.Observable;
+import polytech.devint.event.basic.EscapeEvent;
+import polytech.devint.model.Model;
+import polytech.devint.view.DevintView;
+import polytech.devint.view.View;
+
+/**
+ * Testing the default behaviors of the devint controller
+ *
+ * @author Loris Friedel
+ */
+public class DevintControllerTest {
+
+  private View<?> mainView;
+  private GameController controller;
+  private Observable input;
+
+  @Before
+  public void setUp() {
+    mainView = mock(View.class);
+    DevintController.registerMainView(mainView);
+    controller = new GameController(new Model() {});
+    input = new Observable();
+    input.addObserver(controller);
+  }
+
+  @After
+  public void tearDown() {
+    DevintController.unregisterMainView(mainView);
+  }
+
+  /**
+   * Without a game handler cancelling it, the escape key goes back to the main views
+   */
+  @Test
+  public void escapeToMainViews() {
+    input.notifyObservers(new EscapeEvent());
+    assertTrue(controller.escapes > 0);
+    verify(mainView).init();
+  }
+
+  /**
+   * A game handler is called before the default escape behavior, and cancelling the event is
+   * meant to prevent it: the game decides whether escape leaves it, for instance to close its
+   * own menu first. Each press is a new event, so the next press leaves the game again
+   */
+  @Test
+  public void gameCancelsEscape() {
+    EventFactory<EscapeEvent> escape = EventFactory.of(EscapeEvent.class);
+    controller.cancelEscape = true;
+    input.notifyObservers(escape.create());
+    verify(mainView, never()).init();
+
+    controller.cancelEscape = false;
+    input.notifyObservers(escape.create());
+    verify(mainView).init();
+  }
+
+  public static class GameController extends DevintController<Model, DevintView<Model>> {
+
+    boolean cancelEscape;
+    int escapes;
+
+    public GameController(Model model) {
+      super(model);
+    }
+
+    @EventHandler
+    public void onGameEscape(EscapeEvent event) {
+      escapes++;
+      if (cancelEscape) {
+        event.cancel();
+      }
+    }
+  }
+}
@@ -0,0 +1,170 @@
+package polytech.devint.controller.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.event.KeyEvent;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import polytech.devint.controller.DevintController;
+import polytech.devint.event.basic.F1Event;
+import polytech.devint.event.basic.F2Event;
+import polytech.devint.event.basic.F3Event;
+import polytech.devint.util.file.ResourceLoader;
+import polytech.devint.util.time.RateLimit;
+
+/**
+ * Testing the loading of input configurations from JSON files
+ *
+ * @author Loris Friedel
+ */
+public class InputConfigurationLoaderTest {
+
+  private static final String REMAPPED = "{\"press_once\": [{\"key\": \"A\", \"event\": \"polytech.devint.event.basic.F1Event\"}]}";
+
+  @Rule
+  public TemporaryFolder folder = new TemporaryFolder();
+
+  /**
+   * The default configuration is the one of the default input file
+   */
+  @Test
+  public void defaultFile() throws IOException {
+    InputStream input = new FileInputStream(
+            new ResourceLoader().loadFileFrom("polytech/devint/", "defaultInput.conf"));
+    SwingInputConfiguration loaded = new InputConfigurationLoader(input).getSwingConfiguration();
+    SwingInputConfiguration defaults = new SwingInputConfiguration();
+
+    for (int keyCode = 0; keyCode < 256; keyCode++) {
+      assertEquals(defaults.getKeyPressedOnceEvents(keyCode), loaded.getKeyPressedOnceEvents(keyCode));
+    }
+    assertEquals(defaults.keyPressedOnceControls.size(), loaded.keyPressedOnceControls.size());
+  }
+
+  /**
+   * Keys are given by name or by code, and chords and sequences are loaded
+   */
+  @Test
+  public void allSections() throws IOException {
+    SwingInputConfiguration loaded = load("{"
+            + "\"press\": [{\"key\": 65, \"event\": \"polytech.devint.event.basic.F1Event\"}],"
+            + "\"release\": [{\"key\": \"B\", \"event\": \"polytech.devint.event.basic.F2Event\"}],"
+            + "\"chords\": [{\"keys\": [\"CONTROL\", \"F1\"], \"event\": \"polytech.devint.event.basic.F2Event\"}],"
+            + "\"sequences\": [{\"keys\": [\"UP\", \"DOWN\"], \"event\": \"polytech.devint.event.basic.F3Event\"}],"
+            + "\"sequence_timeout\": 300,"
+            + "\"rate_limits\": [{\"event\": \"polytech.devint.event.basic.F1Event\", \"mode\": \"debounce\", \"interval\": 40}]}");
+
+    assertEquals(F1Event.class, loaded.getKeyPressedFactories(KeyEvent.VK_A)[0].getEventType());
+    assertEquals(F2Event.class, loaded.getKeyReleasedFactories(KeyEvent.VK_B)[0].getEventType());
+    assertEquals(0, loaded.keyPressedOnceControls.size());
+    assertEquals(F2Event.class, loaded.getChords(KeyEvent.VK_F1)[0].getEvent().getEventType());
+    SequenceAutomaton automaton = loaded.getSequenceAutomaton();
+    int state = automaton.next(automaton.next(0, KeyEvent.VK_UP), KeyEvent.VK_DOWN);
+    assertEquals(F3Event.class, automaton.matches(state)[0].getEventType());
+    assertEquals(300, loaded.getSequenceTimeout());
+    RateLimit limit = loaded.getRateLimit(F1Event.class);
+    assertEquals(RateLimit.Mode.DEBOUNCE, limit.getMode());
+    assertEquals(RateLimit.Edge.LEADING, limit.getEdge());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(40), limit.getIntervalNanos());
+  }
+
+  /**
+   * An unknown key is rejected when the file is loaded
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownKey() throws IOException {
+    load("{\"press\": [{\"key\": \"NOPE\", \"event\": \"polytech.devint.event.basic.F1Event\"}]}");
+  }
+
+  /**
+   * An unknown event is rejected when the file is loaded
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void unknownEvent() throws IOException {
+    load("{\"press\": [{\"key\": \"A\", \"event\": \"java.lang.String\"}]}");
+  }
+
+  /**
+   * A watched file replaces the swing configuration when it changes, unless it is invalid
+   */
+  @Test
+  public void hotReload() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("input.conf");
+    Files.write(file, REMAPPED.getBytes(StandardCharsets.UTF_8));
+    InputConfiguration config = new InputConfiguration();
+
+    try (InputConfigurationWatcher watcher = new InputConfigurationWatcher(file, config)) {
+      SwingInputConfiguration first = config.getSwingConfig();
+      assertEquals(F1Event.class, first.getKeyPressedOnceFactories(KeyEvent.VK_A)[0].getEventType());
+
+      Files.write(file, REMAPPED.replace("\"A\"", "\"Z\"").getBytes(StandardCharsets.UTF_8));
+      long deadline = System.currentTimeMillis() + 10_000;
+      while (config.getSwingConfig() == first && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      SwingInputConfiguration second = config.getSwingConfig();
+      assertEquals(0, second.getKeyPressedOnceFactories(KeyEvent.VK_A).length);
+      assertEquals(1, second.getKeyPressedOnceFactories(KeyEvent.VK_Z).length);
+
+      Files.write(file, "{ not json".getBytes(StandardCharsets.UTF_8));
+      assertFalse(watcher.reload());
+      assertSame(second, config.getSwingConfig());
+    }
+  }
+
+  /**
+   * The bindings made in code, before the file is watched or between two reloads, are kept on
+   * the reloaded configurations
+   */
+  @Test
+  public void codeBindingsSurviveReload() throws Exception {
+    Path file = folder.getRoot().toPath().resolve("input.conf");
+    Files.write(file, REMAPPED.getBytes(StandardCharsets.UTF_8));
+    SwingInputConfiguration initial = new SwingInputConfiguration();
+    initial.bindOnRelease(KeyEvent.VK_R, F3Event.class);
+    initial.unbindKeyPressedOnce(KeyEvent.VK_F1);
+    InputConfiguration config = new InputConfiguration()
+            .addConfig(DevintController.SWING_CONFIG_KEY, initial);
+
+    try (InputConfigurationWatcher watcher = new InputConfigurationWatcher(file, config)) {
+      SwingInputConfiguration first = config.getSwingConfig();
+      assertEquals(F3Event.class, first.getKeyReleasedFactories(KeyEvent.VK_R)[0].getEventType());
+      assertEquals(0, first.getKeyPressedOnceFactories(KeyEvent.VK_F1).length);
+      first.bindOnPress(KeyEvent.VK_Q, F2Event.class);
+      first.setSequenceTimeout(300);
+
+      Files.write(file, REMAPPED.replace("\"A\"", "\"Z\"").getBytes(StandardCharsets.UTF_8));
+      assertTrue(watcher.reload());
+      SwingInputConfiguration second = config.getSwingConfig();
+      assertEquals(F1Event.class, second.getKeyPressedOnceFactories(KeyEvent.VK_Z)[0].getEventType());
+      assertEquals(F3Event.class, second.getKeyReleasedFactories(KeyEvent.VK_R)[0].getEventType());
+      assertEquals(F2Event.class, second.getKeyPressedFactories(KeyEvent.VK_Q)[0].getEventType());
+      assertEquals(300, second.getSequenceTimeout());
+
+      assertTrue(watcher.reload());
+      assertEquals(1, config.getSwingConfig().getKeyPressedFactories(KeyEvent.VK_Q).length);
+    }
+  }
+
+  /**
+   * @param json Content of an input configuration file.
+   * @return The loaded swing configuration.
+   */
+  private static SwingInputConfiguration load(String json) throws IOException {
+    return new InputConfigurationLoader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)))
+            .getSwingConfiguration();
+  }
+}
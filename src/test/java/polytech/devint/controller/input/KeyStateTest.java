@@ -0,0 +1,88 @@
+package polytech.devint.controller.input;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.event.KeyEvent;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Testing the lock-free key state
+ *
+ * @author Loris Friedel
+ */
+public class KeyStateTest {
+
+  private static final int THREADS = 4;
+  private static final int ROUNDS = 2000;
+
+  /**
+   * Pressing and releasing a key only reports the transitions
+   */
+  @Test
+  public void transitions() {
+    KeyState state = new KeyState();
+    for (int keyCode : new int[] {KeyEvent.VK_A, 0, 63, 64, 0xFFFF, 0x1000041, -1}) {
+      assertFalse(state.isPressed(keyCode));
+      assertTrue(state.press(keyCode));
+      assertFalse(state.press(keyCode));
+      assertTrue(state.isPressed(keyCode));
+      assertTrue(state.release(keyCode));
+      assertFalse(state.release(keyCode));
+      assertFalse(state.isPressed(keyCode));
+    }
+  }
+
+  /**
+   * Keys sharing a word of the bitset do not interfere
+   */
+  @Test
+  public void neighbourKeys() {
+    KeyState state = new KeyState();
+    state.press(KeyEvent.VK_A);
+    state.press(KeyEvent.VK_B);
+    state.release(KeyEvent.VK_A);
+    assertTrue(state.isPressed(KeyEvent.VK_B));
+    assertFalse(state.isPressed(KeyEvent.VK_A));
+  }
+
+  /**
+   * When several threads press the same key at once, exactly one sees the first press
+   */
+  @Test
+  public void concurrentPresses() throws Exception {
+    KeyState state = new KeyState();
+    AtomicInteger firstPresses = new AtomicInteger();
+    CyclicBarrier barrier = new CyclicBarrier(THREADS, () -> state.release(KeyEvent.VK_SPACE));
+    List<Thread> threads = new ArrayList<>();
+    for (int t = 0; t < THREADS; t++) {
+      int keyOffset = t;
+      threads.add(new Thread(() -> {
+        try {
+          for (int i = 0; i < ROUNDS; i++) {
+            if (state.press(KeyEvent.VK_SPACE)) {
+              firstPresses.incrementAndGet();
+            }
+            // Keys of the same word changing at the same time
+            state.press(KeyEvent.VK_0 + keyOffset);
+            state.release(KeyEvent.VK_0 + keyOffset);
+            barrier.await();
+          }
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }));
+    }
+    threads.forEach(Thread::start);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertEquals(ROUNDS, firstPresses.get());
+  }
+}
@@ -5,13 +5,17 @@ import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.awt.event.KeyEvent;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import polytech.devint.event.EventFactory;
 import polytech.devint.event.basic.EscapeEvent;
 import polytech.devint.event.basic.F1Event;
 import polytech.devint.event.basic.F6Event;
+import polytech.devint.view.swing.menu.event.ButtonTriggeredEvent;
 
 /**
  * @author Loris Friedel
@@ -77,4 +81,118 @@ public class SwingInputConfigurationTest {
     config.bindOnPressOnce(KeyEvent.VK_0, EscapeEvent.class);
     assertEquals(defaultSize + 2, config.keyPressedOnceControls.size());
   }
+
+  /**
+   * An event that cannot be instantiated must be rejected when it is bound
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void bindNotInstantiableEvent() {
+    config.bindOnPress(KeyEvent.VK_A, ButtonTriggeredEvent.class);
+  }
+
+  /**
+   * Check the allocation-free lookup of the bound events
+   */
+  @Test
+  public void factoryLookup() {
+    assertEquals(1, config.getKeyPressedOnceFactories(KeyEvent.VK_F1).length);
+    assertEquals(F1Event.class, config.getKeyPressedOnceFactories(KeyEvent.VK_F1)[0].getEventType());
+    assertEquals(0, config.getKeyPressedFactories(KeyEvent.VK_F1).length);
+    assertEquals(0, config.getKeyReleasedFactories(KeyEvent.VK_F1).length);
+
+    // Enough bindings to grow the table
+    for (int keyCode = KeyEvent.VK_A; keyCode <= KeyEvent.VK_Z; keyCode++) {
+      config.bindOnRelease(keyCode, F6Event.class);
+      config.bindOnRelease(keyCode, F1Event.class);
+    }
+    config.unbindKeyReleased(F6Event.class);
+    config.unbindKeyReleased(KeyEvent.VK_B);
+    for (int keyCode = KeyEvent.VK_A; keyCode <= KeyEvent.VK_Z; keyCode++) {
+      assertEquals(keyCode == KeyEvent.VK_B ? 0 : 1, config.getKeyReleasedFactories(keyCode).length);
+    }
+    assertEquals(25, config.keyReleasedControls.size());
+  }
+
+  /**
+   * The sequence automaton recognizes overlapping sequences, and sequences that are suffixes of
+   * others
+   */
+  @Test
+  public void sequenceAutomaton() {
+    config.bindSequence(F1Event.class, KeyEvent.VK_UP, KeyEvent.VK_UP, KeyEvent.VK_DOWN);
+    config.bindSequence(F6Event.class, KeyEvent.VK_UP, KeyEvent.VK_DOWN);
+    SequenceAutomaton automaton = config.getSequenceAutomaton();
+
+    int state = 0;
+    int[] keys = {KeyEvent.VK_UP, KeyEvent.VK_UP, KeyEvent.VK_UP, KeyEvent.VK_DOWN};
+    for (int keyCode : keys) {
+      state = automaton.next(state, keyCode);
+    }
+    assertEquals(2, automaton.matches(state).length);
+    assertEquals(F1Event.class, automaton.matches(state)[0].getEventType());
+    assertEquals(F6Event.class, automaton.matches(state)[1].getEventType());
+
+    // A key used by no sequence goes back to the start
+    state = automaton.next(automaton.next(0, KeyEvent.VK_UP), KeyEvent.VK_A);
+    assertEquals(0, state);
+    assertEquals(0, automaton.next(state, KeyEvent.VK_DOWN));
+
+    config.unbind(F1Event.class);
+    assertTrue(config.getSequenceAutomaton() != automaton);
+    automaton = config.getSequenceAutomaton();
+    state = automaton.next(automaton.next(0, KeyEvent.VK_UP), KeyEvent.VK_DOWN);
+    assertEquals(1, automaton.matches(state).length);
+    assertEquals(F6Event.class, automaton.matches(state)[0].getEventType());
+  }
+
+  /**
+   * Chords and sequences need at least two keys
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void singleKeyChord() {
+    config.bindChord(F1Event.class, KeyEvent.VK_A);
+  }
+
+  /**
+   * Games compiled against the boxed key code signatures still bind and unbind keys
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void boxedKeyCodes() {
+    Integer keyCode = KeyEvent.VK_A;
+    config.bindOnPress(keyCode, F1Event.class);
+    assertEquals(F1Event.class, config.getKeyPressedEvents(keyCode).get().get(0));
+    config.unbind(keyCode);
+    assertFalse(config.getKeyPressedEvents(keyCode).isPresent());
+  }
+
+  /**
+   * A key bound for good is always found while other keys are bound and unbound concurrently,
+   * including while the table grows
+   */
+  @Test
+  public void concurrentLookup() throws InterruptedException {
+    KeyBindingTable table = new KeyBindingTable();
+    table.add(KeyEvent.VK_ENTER, EventFactory.of(F1Event.class));
+    AtomicBoolean done = new AtomicBoolean();
+    AtomicInteger misses = new AtomicInteger();
+    Thread reader = new Thread(() -> {
+      while (!done.get()) {
+        if (table.get(KeyEvent.VK_ENTER).length != 1) {
+          misses.incrementAndGet();
+        }
+      }
+    });
+    reader.start();
+    for (int round = 0; round < 200; round++) {
+      for (int key = 1000; key < 1100; key++) {
+        table.add(key, EventFactory.of(F6Event.class));
+      }
+      table.remove(F6Event.class);
+    }
+    done.set(true);
+    reader.join();
+    assertEquals(0, misses.get());
+    assertEquals(1, table.size());
+  }
 }
@@ -0,0 +1,345 @@
+package polytech.devint.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Testing the asynchronous dispatch of an observable
+ *
+ * @author Loris Friedel
+ */
+public class AsyncDispatchTest {
+
+  private static final int PRODUCERS = 4;
+  private static final int EVENTS_PER_PRODUCER = 2000;
+
+  private Observable eventManager;
+  private RecordingObserver recorder;
+
+  @Before
+  public void setUp() {
+    eventManager = new Observable();
+    recorder = new RecordingObserver();
+    eventManager.addObserver(recorder);
+  }
+
+  @After
+  public void tearDown() {
+    recorder.release();
+    eventManager.disableAsyncDispatch();
+  }
+
+  /**
+   * Events notified concurrently by several threads must reach the observer in the order
+   * each thread notified them, on the dispatcher thread
+   */
+  @Test
+  public void orderingIsPreserved() throws InterruptedException {
+    eventManager.enableAsyncDispatch(16, BackpressurePolicy.BLOCK);
+    recorder.release();
+
+    List<Thread> producers = new ArrayList<>();
+    for (int p = 0; p < PRODUCERS; p++) {
+      int producer = p;
+      producers.add(new Thread(() -> {
+        for (int i = 0; i < EVENTS_PER_PRODUCER; i++) {
+          eventManager.notifyObservers(new SequenceEvent(producer, i));
+        }
+      }));
+    }
+    producers.forEach(Thread::start);
+    for (Thread producer : producers) {
+      producer.join();
+    }
+    recorder.awaitCount(PRODUCERS * EVENTS_PER_PRODUCER);
+
+    int[] expected = new int[PRODUCERS];
+    for (SequenceEvent event : recorder.events) {
+      assertEquals(expected[event.producer]++, event.index);
+    }
+    assertNotEquals(Thread.currentThread(), recorder.lastThread);
+  }
+
+  /**
+   * With the drop oldest policy, a full queue discards its oldest events
+   */
+  @Test
+  public void dropOldest() throws InterruptedException {
+    eventManager.enableAsyncDispatch(2, BackpressurePolicy.DROP_OLDEST);
+    // The first event blocks the dispatcher thread, so the next ones stay in the queue
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    recorder.awaitStarted();
+    for (int i = 1; i <= 4; i++) {
+      eventManager.notifyObservers(new SequenceEvent(0, i));
+    }
+    recorder.release();
+    recorder.awaitCount(3);
+
+    assertEquals(3, recorder.events.size());
+    assertEquals(0, recorder.events.get(0).index);
+    assertEquals(3, recorder.events.get(1).index);
+    assertEquals(4, recorder.events.get(2).index);
+  }
+
+  /**
+   * With the coalesce policy, a full queue replaces its latest event of the same class, and the
+   * new event is delivered after the events notified before it
+   */
+  @Test
+  public void coalesce() throws InterruptedException {
+    eventManager.enableAsyncDispatch(2, BackpressurePolicy.COALESCE);
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    recorder.awaitStarted();
+    eventManager.notifyObservers(new SequenceEvent(0, 1));
+    eventManager.notifyObservers(new CustomEvent());
+    eventManager.notifyObservers(new SequenceEvent(0, 2));
+    eventManager.notifyObservers(new SequenceEvent(0, 3));
+    recorder.release();
+    recorder.awaitCount(2);
+    recorder.awaitCustomEvents(1);
+
+    assertEquals(2, recorder.events.size());
+    assertEquals(0, recorder.events.get(0).index);
+    assertEquals(3, recorder.events.get(1).index);
+    assertEquals(Arrays.asList(SequenceEvent.class, CustomEvent.class, SequenceEvent.class),
+            recorder.deliveredClasses());
+  }
+
+  /**
+   * Coalescible events waiting in the queue collapse into the newest one, which is delivered
+   * after the events notified before it: a move, a fire and a move give the fire, then the
+   * latest move
+   */
+  @Test
+  public void coalescibleEvents() throws InterruptedException {
+    eventManager.enableAsyncDispatch(16, BackpressurePolicy.BLOCK);
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    recorder.awaitStarted();
+    for (int i = 1; i <= 5; i++) {
+      eventManager.notifyObservers(new RepaintEvent(i));
+    }
+    eventManager.notifyObservers(new SequenceEvent(0, 1));
+    eventManager.notifyObservers(new RepaintEvent(6));
+    recorder.release();
+    recorder.awaitCount(2);
+    recorder.awaitRepaints(1);
+
+    assertEquals(6, recorder.repaints.get(0).frame);
+    assertEquals(Arrays.asList(SequenceEvent.class, SequenceEvent.class, RepaintEvent.class),
+            recorder.deliveredClasses());
+  }
+
+  /**
+   * With the block policy, the notifying thread waits until the queue has room
+   */
+  @Test
+  public void block() throws InterruptedException {
+    eventManager.enableAsyncDispatch(1, BackpressurePolicy.BLOCK);
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    recorder.awaitStarted();
+    eventManager.notifyObservers(new SequenceEvent(0, 1));
+
+    Thread producer = new Thread(() -> eventManager.notifyObservers(new SequenceEvent(0, 2)));
+    producer.start();
+    producer.join(100);
+    assertTrue(producer.isAlive());
+
+    recorder.release();
+    producer.join(1000);
+    assertFalse(producer.isAlive());
+    recorder.awaitCount(3);
+  }
+
+  /**
+   * Disabling the asynchronous dispatch waits for the queued events to be delivered,
+   * then the events are delivered on the notifying thread
+   */
+  @Test
+  public void disable() throws InterruptedException {
+    eventManager.enableAsyncDispatch(8, BackpressurePolicy.BLOCK);
+    assertTrue(eventManager.isAsyncDispatchEnabled());
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    recorder.awaitStarted();
+    eventManager.notifyObservers(new SequenceEvent(0, 1));
+
+    Thread disabler = new Thread(eventManager::disableAsyncDispatch);
+    disabler.start();
+    disabler.join(100);
+    assertTrue(disabler.isAlive());
+    assertTrue(eventManager.isAsyncDispatchEnabled());
+
+    recorder.release();
+    disabler.join(1000);
+    assertFalse(disabler.isAlive());
+    assertFalse(eventManager.isAsyncDispatchEnabled());
+    assertEquals(2, recorder.events.size());
+
+    eventManager.notifyObservers(new SequenceEvent(0, 2));
+    assertEquals(3, recorder.events.size());
+    assertEquals(Thread.currentThread(), recorder.lastThread);
+  }
+
+  /**
+   * A new dispatcher only delivers its events once the one it replaces has delivered its own
+   */
+  @Test
+  public void replaceDispatcher() throws InterruptedException {
+    eventManager.enableAsyncDispatch(8, BackpressurePolicy.BLOCK);
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    recorder.awaitStarted();
+    eventManager.notifyObservers(new SequenceEvent(0, 1));
+
+    eventManager.enableAsyncDispatch(8, BackpressurePolicy.BLOCK);
+    for (int i = 2; i < 10; i++) {
+      eventManager.notifyObservers(new SequenceEvent(0, i));
+    }
+    // Give the new dispatcher thread the time to wrongly start on its events
+    Thread.sleep(50);
+    recorder.release();
+    recorder.awaitCount(10);
+
+    for (int i = 0; i < 10; i++) {
+      assertEquals(i, recorder.events.get(i).index);
+    }
+    assertEquals(1, recorder.maxConcurrentCalls.get());
+  }
+
+  /**
+   * A handler disabling the asynchronous dispatch delivers the queued events before going on
+   */
+  @Test
+  public void disableFromHandler() throws InterruptedException {
+    eventManager.enableAsyncDispatch(8, BackpressurePolicy.BLOCK);
+    recorder.release();
+    CountDownLatch queued = new CountDownLatch(1);
+    eventManager.addObserver(new Object() {
+      @EventHandler
+      public void onCustomEvent(CustomEvent event) throws InterruptedException {
+        queued.await();
+        eventManager.disableAsyncDispatch();
+        eventManager.notifyObservers(new SequenceEvent(0, 2));
+      }
+    });
+    eventManager.notifyObservers(new CustomEvent());
+    eventManager.notifyObservers(new SequenceEvent(0, 0));
+    eventManager.notifyObservers(new SequenceEvent(0, 1));
+    queued.countDown();
+    recorder.awaitCount(3);
+
+    for (int i = 0; i < 3; i++) {
+      assertEquals(i, recorder.events.get(i).index);
+    }
+    assertFalse(eventManager.isAsyncDispatchEnabled());
+  }
+
+  public static class SequenceEvent implements Event {
+
+    final int producer;
+    final int index;
+
+    SequenceEvent(int producer, int index) {
+      this.producer = producer;
+      this.index = index;
+    }
+  }
+
+  public static class RepaintEvent implements Coalescible {
+
+    final int frame;
+
+    RepaintEvent(int frame) {
+      this.frame = frame;
+    }
+  }
+
+  public static class RecordingObserver {
+
+    final List<SequenceEvent> events = Collections.synchronizedList(new ArrayList<>());
+    final List<RepaintEvent> repaints = Collections.synchronizedList(new ArrayList<>());
+    // Every delivered event, in order
+    final List<Event> delivered = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final AtomicInteger concurrentCalls = new AtomicInteger();
+    private volatile int customEvents;
+    final AtomicInteger maxConcurrentCalls = new AtomicInteger();
+    volatile Thread lastThread;
+
+    @EventHandler
+    public void onSequenceEvent(SequenceEvent event) throws InterruptedException {
+      maxConcurrentCalls.accumulateAndGet(concurrentCalls.incrementAndGet(), Math::max);
+      started.countDown();
+      released.await();
+      lastThread = Thread.currentThread();
+      delivered.add(event);
+      events.add(event);
+      concurrentCalls.decrementAndGet();
+    }
+
+    @EventHandler
+    public void onRepaintEvent(RepaintEvent event) {
+      delivered.add(event);
+      repaints.add(event);
+    }
+
+    @EventHandler
+    public void onCustomEvent(CustomEvent event) {
+      delivered.add(event);
+      customEvents++;
+    }
+
+    List<Class<?>> deliveredClasses() {
+      synchronized (delivered) {
+        return delivered.stream().map(Object::getClass).collect(Collectors.toList());
+      }
+    }
+
+    void awaitStarted() throws InterruptedException {
+      assertTrue(started.await(1, TimeUnit.SECONDS));
+    }
+
+    void release() {
+      released.countDown();
+    }
+
+    void awaitCount(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (events.size() < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(count, events.size());
+    }
+
+    void awaitRepaints(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (repaints.size() < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      Thread.sleep(20);
+      assertEquals(count, repaints.size());
+    }
+
+    void awaitCustomEvents(int count) throws InterruptedException {
+      long deadline = System.currentTimeMillis() + 5000;
+      while (customEvents < count && System.currentTimeMillis() < deadline) {
+        Thread.sleep(1);
+      }
+      assertEquals(count, customEvents);
+    }
+  }
+}
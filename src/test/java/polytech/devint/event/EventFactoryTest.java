@@ -0,0 +1,89 @@
+package polytech.devint.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import org.junit.Test;
+
+import polytech.devint.event.basic.UpEvent;
+
+/**
+ * Testing the creation of events by the event factories
+ *
+ * @author Loris Friedel
+ */
+public class EventFactoryTest {
+
+  private static final int WARM_UP = 20_000;
+  private static final int CALLS = 100_000;
+
+  static Event sink;
+
+  /**
+   * Stateless events are always the same instance
+   */
+  @Test
+  public void statelessEventsAreShared() {
+    EventFactory<UpEvent> factory = EventFactory.of(UpEvent.class);
+    assertEquals(UpEvent.class, factory.getEventType());
+    assertSame(factory.create(), factory.create());
+  }
+
+  /**
+   * Events carrying a state are instantiated on each call
+   */
+  @Test
+  public void statefulEventsAreInstantiated() {
+    EventFactory<StatefulEvent> factory = EventFactory.of(StatefulEvent.class);
+    assertNotSame(factory.create(), factory.create());
+  }
+
+  /**
+   * Events that cannot be instantiated are rejected when the factory is resolved
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void noDefaultConstructor() {
+    EventFactory.of(NoDefaultConstructorEvent.class);
+  }
+
+  /**
+   * Creating a stateless event must not allocate anything once the factory is resolved
+   */
+  @Test
+  public void statelessCreationDoesNotAllocate() {
+    EventFactory<UpEvent> factory = EventFactory.of(UpEvent.class);
+    for (int i = 0; i < WARM_UP; i++) {
+      sink = factory.create();
+    }
+
+    long before = allocatedBytes();
+    for (int i = 0; i < CALLS; i++) {
+      sink = factory.create();
+    }
+    long allocated = allocatedBytes() - before;
+
+    // Less than a byte per call: only the measurement itself allocates
+    assertTrue("Allocated " + allocated + " bytes for " + CALLS + " events", allocated < CALLS);
+  }
+
+  /**
+   * @return The number of bytes allocated so far by the current thread.
+   */
+  static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  public static class StatefulEvent implements Event {
+    int value;
+  }
+
+  public static class NoDefaultConstructorEvent implements Event {
+    public NoDefaultConstructorEvent(int value) {
+    }
+  }
+}
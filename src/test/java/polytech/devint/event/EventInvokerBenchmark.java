@@ -0,0 +1,92 @@
+package polytech.devint.event;
+
+import static org.junit.Assert.assertEquals;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Micro-benchmark of the calls to an event handler: through reflection, through a method handle,
+ * and through the invoker generated by the LambdaMetafactory.
+ * It is excluded from the regular test run, launch it with {@code mvn test -Pbenchmark} (or
+ * {@code -Dtest=EventInvokerBenchmark}) and read the times it prints.
+ * <p>
+ * The build has no JMH dependency, so the harness is written here: each way of calling is warmed
+ * up before being measured, and the best of several rounds is kept, so the JIT has compiled the
+ * call site. The handler accumulates a value that is checked at the end, so the calls cannot be
+ * eliminated. Without the forking and the dead code guards of JMH, the JIT may inline a call site
+ * that sees a single target: compare orders of magnitude, not a few nanoseconds.
+ *
+ * @author Loris Friedel
+ */
+public class EventInvokerBenchmark {
+
+  private static final int WARMUP_ROUNDS = 10;
+  private static final int MEASURED_ROUNDS = 10;
+  private static final int CALLS_PER_ROUND = 1_000_000;
+
+  /**
+   * Compare the ways of calling the same handler
+   */
+  @Test
+  public void compareInvokers() throws Throwable {
+    Method method = Target.class.getMethod("onEvent", CustomEvent.class);
+    MethodHandle handle = MethodHandles.lookup().unreflect(method);
+    EventInvoker lambda = EventInvokers.of(method);
+
+    long reflection = measure("Method.invoke", (observer, event) -> method.invoke(observer, event));
+    long methodHandle = measure("MethodHandle", (observer, event) -> handle.invoke(observer, event));
+    long metafactory = measure("LambdaMetafactory", lambda);
+
+    System.out.println(String.format("Reflection is %.1fx slower than the generated invoker, the method handle %.1fx",
+            (double) reflection / metafactory, (double) methodHandle / metafactory));
+  }
+
+  /**
+   * @param name    Name of the way of calling the handler, to print.
+   * @param invoker Calls the handler.
+   * @return The best time of a round, in nanoseconds.
+   */
+  private static long measure(String name, EventInvoker invoker) throws Throwable {
+    Target target = new Target();
+    Event event = new CustomEvent();
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      runRound(invoker, target, event);
+    }
+
+    long best = Long.MAX_VALUE;
+    for (int round = 0; round < MEASURED_ROUNDS; round++) {
+      best = Math.min(best, runRound(invoker, target, event));
+    }
+    assertEquals((long) (WARMUP_ROUNDS + MEASURED_ROUNDS) * CALLS_PER_ROUND, target.calls);
+
+    System.out.println(String.format("%-18s %6.2f ns/call (best round of %d ms)", name,
+            (double) best / CALLS_PER_ROUND, TimeUnit.NANOSECONDS.toMillis(best)));
+    return best;
+  }
+
+  /**
+   * @return The duration of the round, in nanoseconds.
+   */
+  private static long runRound(EventInvoker invoker, Target target, Event event) throws Throwable {
+    long start = System.nanoTime();
+    for (int i = 0; i < CALLS_PER_ROUND; i++) {
+      invoker.invoke(target, event);
+    }
+    return System.nanoTime() - start;
+  }
+
+  public static class Target {
+
+    long calls;
+
+    @EventHandler
+    public void onEvent(CustomEvent event) {
+      calls++;
+    }
+  }
+}
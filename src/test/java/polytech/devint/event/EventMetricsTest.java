@@ -0,0 +1,115 @@
+package polytech.devint.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+
+import org.junit.Test;
+
+/**
+ * Testing the measures of the event handlers
+ *
+ * @author Loris Friedel
+ */
+public class EventMetricsTest {
+
+  /**
+   * Calls, failures and durations are recorded per handler once the metrics are enabled
+   */
+  @Test
+  public void recordHandlers() {
+    Observable eventManager = new Observable();
+    EventMetrics metrics = new EventMetrics();
+    eventManager.addObserver(new MeasuredObserver());
+
+    eventManager.notifyObservers(new CustomEvent());
+    assertTrue(metrics.snapshot().isEmpty());
+
+    eventManager.enableMetrics(metrics);
+    for (int i = 0; i < 10; i++) {
+      eventManager.notifyObservers(new CustomEvent());
+    }
+
+    List<HandlerMetrics> snapshot = metrics.snapshot();
+    assertEquals(2, snapshot.size());
+    HandlerMetrics slow = find(snapshot, "onSlowEvent");
+    assertEquals(MeasuredObserver.class.getName(), slow.getObserverType());
+    assertEquals(CustomEvent.class.getName(), slow.getEventType());
+    assertEquals(10, slow.getInvocations());
+    assertEquals(0, slow.getErrors());
+    assertTrue(slow.getMedianNanos() >= TimeUnit.MILLISECONDS.toNanos(1) * 7 / 8);
+    assertTrue(slow.getMedianNanos() <= slow.getP99Nanos());
+    assertTrue(slow.getP99Nanos() <= slow.getMaxNanos());
+    assertTrue(slow.getTotalNanos() >= slow.getMaxNanos());
+
+    HandlerMetrics failing = find(snapshot, "onFailingEvent");
+    assertEquals(10, failing.getInvocations());
+    assertEquals(10, failing.getErrors());
+
+    eventManager.disableMetrics();
+    eventManager.notifyObservers(new CustomEvent());
+    assertEquals(10, find(metrics.snapshot(), "onSlowEvent").getInvocations());
+    metrics.reset();
+    assertTrue(metrics.snapshot().isEmpty());
+  }
+
+  /**
+   * The default metrics can be read through JMX
+   */
+  @Test
+  public void readThroughJmx() throws Exception {
+    Observable eventManager = new Observable();
+    eventManager.enableMetrics(EventMetrics.getDefault());
+    eventManager.addObserver(new MeasuredObserver());
+    eventManager.notifyObservers(new CustomEvent());
+
+    CompositeData[] handlers = (CompositeData[]) ManagementFactory.getPlatformMBeanServer()
+            .getAttribute(new ObjectName("polytech.devint:type=EventMetrics"), "Handlers");
+    boolean found = false;
+    for (CompositeData handler : handlers) {
+      if ("onSlowEvent".equals(handler.get("handler"))) {
+        found = true;
+        assertTrue((Long) handler.get("invocations") >= 1);
+      }
+    }
+    assertTrue(found);
+  }
+
+  /**
+   * Durations are counted in buckets keeping them within 12.5% of their value
+   */
+  @Test
+  public void histogramPrecision() {
+    for (long value : new long[] {0, 1, 7, 8, 9, 15, 16, 1000, 123456789, Long.MAX_VALUE}) {
+      int index = LatencyHistogram.indexOf(value);
+      long lowest = LatencyHistogram.lowestValueOf(index);
+      long highest = LatencyHistogram.highestValueOf(index);
+      assertTrue(lowest <= value && value <= highest);
+      assertTrue(highest - lowest <= lowest / 8);
+    }
+  }
+
+  private static HandlerMetrics find(List<HandlerMetrics> snapshot, String handler) {
+    return snapshot.stream().filter(metrics -> metrics.getHandler().equals(handler))
+            .findFirst().orElseThrow(AssertionError::new);
+  }
+
+  public static class MeasuredObserver {
+
+    @EventHandler
+    public void onSlowEvent(CustomEvent event) throws InterruptedException {
+      Thread.sleep(1);
+    }
+
+    @EventHandler
+    public void onFailingEvent(CustomEvent event) {
+      throw new IllegalStateException("expected");
+    }
+  }
+}
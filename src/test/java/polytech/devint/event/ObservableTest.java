@@ -2,8 +2,21 @@ package polytech.devint.event;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.awt.EventQueue;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import org.junit.Test;
 
 /**
@@ -71,6 +84,7 @@ public class ObservableTest {
     eventManager.deleteObservers();
     assertFalse(eventManager.hasObserver(tester));
     assertFalse(eventManager.observers.containsKey(tester));
+    assertTrue(eventManager.subscriptions().isEmpty());
   }
 
   /**
@@ -84,4 +98,462 @@ public class ObservableTest {
     assertEquals(1, eventManager.observers.size());
     assertEquals(2, eventManager.observers.get(tester).size());
   }
+
+  /**
+   * Testing that the dispatch index only holds the handlers of registered observers
+   */
+  @Test
+  public void testDispatchIndex() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    TestObserver otherTester = new TestObserver();
+    eventManager.addObserver(tester);
+    eventManager.addObserver(otherTester);
+    eventManager.addObserver(tester);
+    assertEquals(2, eventManager.subscriptions().get(CustomEvent.class).size());
+    assertEquals(2, eventManager.subscriptions().get(Event.class).size());
+
+    eventManager.deleteObserver(tester);
+    assertEquals(1, eventManager.subscriptions().get(CustomEvent.class).size());
+    eventManager.notifyObservers(new CustomEvent());
+    assertFalse(tester.onCustomEvent);
+    assertTrue(otherTester.onCustomEvent);
+
+    eventManager.deleteObserver(otherTester);
+    assertTrue(eventManager.subscriptions().isEmpty());
+  }
+
+  /**
+   * Testing that the handlers of a class are only resolved once, whatever the number of
+   * observers of this class and the number of observables they are registered to
+   */
+  @Test
+  public void testSharedHandlerTable() {
+    Observable eventManager = new Observable();
+    Observable otherManager = new Observable();
+    TestObserver tester = new TestObserver();
+    TestObserver otherTester = new TestObserver();
+    eventManager.addObserver(tester);
+    eventManager.addObserver(otherTester);
+    otherManager.addObserver(tester);
+    assertSame(eventManager.observers.get(tester), eventManager.observers.get(otherTester));
+    assertSame(eventManager.observers.get(tester), otherManager.observers.get(tester));
+  }
+
+  /**
+   * Testing that polymorphic handlers receive the events of their subtypes,
+   * including for observers registered after a first dispatch of this event type
+   */
+  @Test
+  public void testPolymorphicHandlers() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    PolymorphicObserver polymorphicTester = new PolymorphicObserver();
+    eventManager.addObserver(tester);
+    eventManager.notifyObservers(new SubCustomEvent());
+    // The exact type handler does not receive subtypes
+    assertFalse(tester.onCustomEvent);
+
+    eventManager.addObserver(polymorphicTester);
+    eventManager.notifyObservers(new SubCustomEvent());
+    eventManager.notifyObservers(new CustomEvent());
+    assertEquals(2, polymorphicTester.events);
+    assertEquals(1, polymorphicTester.customEvents);
+    assertFalse(tester.onEvent);
+
+    eventManager.deleteObserver(polymorphicTester);
+    eventManager.notifyObservers(new SubCustomEvent());
+    assertEquals(2, polymorphicTester.events);
+  }
+
+  /**
+   * Testing that the handlers are called on the thread they declare
+   */
+  @Test
+  public void testHandlerThreads() throws InterruptedException {
+    Observable eventManager = new Observable();
+    ThreadObserver tester = new ThreadObserver();
+    eventManager.addObserver(tester);
+    eventManager.notifyObservers(new CustomEvent());
+    assertTrue(tester.done.await(1, TimeUnit.SECONDS));
+
+    assertEquals(Thread.currentThread(), tester.callerThread);
+    assertTrue(tester.onDispatchThread);
+    assertNotEquals(Thread.currentThread(), tester.backgroundThread);
+    assertNotEquals(Thread.currentThread(), tester.soundThread);
+    assertNotEquals(tester.backgroundThread, tester.soundThread);
+  }
+
+  /**
+   * Testing that handlers of classes we cannot generate a lambda for are still called
+   */
+  @Test
+  public void testPrivateObserverClass() {
+    Observable eventManager = new Observable();
+    PrivateObserver tester = new PrivateObserver();
+    eventManager.addObserver(tester);
+    eventManager.notifyObservers(new CustomEvent());
+    assertEquals(1, tester.calls);
+  }
+
+  /**
+   * Testing that an exception thrown by a handler does not prevent the other handlers to be called
+   */
+  @Test
+  public void testFailingHandler() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    eventManager.addObserver(new PrivateObserver() {
+      @Override
+      @EventHandler
+      public void onCustomEvent(CustomEvent event) {
+        throw new IllegalStateException("expected");
+      }
+    });
+    eventManager.addObserver(tester);
+    eventManager.notifyObservers(new CustomEvent());
+    assertTrue(tester.onCustomEvent);
+  }
+
+  /**
+   * Testing that handlers are called by decreasing priority, then in registration order
+   */
+  @Test
+  public void testPriorities() {
+    Observable eventManager = new Observable();
+    List<String> calls = new ArrayList<>();
+    eventManager.addObserver(new PriorityObserver("first", calls));
+    eventManager.addObserver(new PriorityObserver("second", calls));
+
+    eventManager.notifyObservers(new OrderedEvent());
+    assertEquals(Arrays.asList("first:high", "second:high", "first:normal", "second:normal",
+            "first:low", "second:low"), calls);
+  }
+
+  /**
+   * Testing that a cancelled event is not passed to the handlers of lower priority
+   */
+  @Test
+  public void testCancellation() {
+    Observable eventManager = new Observable();
+    List<String> calls = new ArrayList<>();
+    eventManager.addObserver(new PriorityObserver("first", calls));
+    eventManager.addObserver(new Object() {
+      @EventHandler
+      public void onOrderedEvent(OrderedEvent event) {
+        calls.add("cancel");
+        event.cancel();
+      }
+    });
+
+    OrderedEvent event = new OrderedEvent();
+    eventManager.notifyObservers(event);
+    assertTrue(event.isCancelled());
+    assertEquals(Arrays.asList("first:high", "first:normal", "cancel"), calls);
+  }
+
+  /**
+   * Testing that each registration change publishes a new version of the dispatch table
+   */
+  @Test
+  public void testDispatchVersions() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    long version = eventManager.dispatchVersion();
+    eventManager.addObserver(tester);
+    assertTrue(eventManager.dispatchVersion() > version);
+    version = eventManager.dispatchVersion();
+    eventManager.addObserver(tester);
+    assertEquals(version, eventManager.dispatchVersion());
+    eventManager.deleteObserver(tester);
+    assertTrue(eventManager.dispatchVersion() > version);
+  }
+
+  /**
+   * Testing that an observer deleted by a handler is not called by the rest of the dispatch
+   */
+  @Test
+  public void testDeletedDuringDispatch() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    eventManager.addObserver(new Object() {
+      @EventHandler(priority = EventPriority.HIGH)
+      public void onCustomEvent(CustomEvent event) {
+        eventManager.deleteObserver(tester);
+      }
+    });
+    eventManager.addObserver(tester);
+    eventManager.notifyObservers(new CustomEvent());
+    assertFalse(tester.onCustomEvent);
+  }
+
+  /**
+   * Testing that a handler scheduled on another thread is skipped if its observer is deleted
+   * before it runs
+   */
+  @Test
+  public void testDeletedBeforeDeferredCall() throws Exception {
+    Observable eventManager = new Observable();
+    CountDownLatch blocked = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    boolean[] called = new boolean[1];
+    Object view = new Object() {
+      @EventHandler(thread = HandlerThread.EDT)
+      public void onCustomEvent(CustomEvent event) {
+        called[0] = true;
+      }
+    };
+    eventManager.addObserver(view);
+
+    // Keep the event dispatch thread busy so the handler stays scheduled
+    EventQueue.invokeLater(() -> {
+      blocked.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    assertTrue(blocked.await(1, TimeUnit.SECONDS));
+    eventManager.notifyObservers(new CustomEvent());
+    eventManager.deleteObserver(view);
+    release.countDown();
+    EventQueue.invokeAndWait(() -> {
+    });
+    assertFalse(called[0]);
+  }
+
+  /**
+   * Testing that registering and deleting observers while other threads dispatch never calls
+   * an observer from a dispatch that started after it was deleted
+   */
+  @Test
+  public void testConcurrentRegistrations() throws InterruptedException {
+    Observable eventManager = new Observable();
+    AtomicBoolean running = new AtomicBoolean(true);
+    AtomicLong deletions = new AtomicLong();
+    AtomicInteger lateCalls = new AtomicInteger();
+    List<Thread> dispatchers = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      dispatchers.add(new Thread(() -> {
+        while (running.get()) {
+          DeletableObserver.DISPATCH_START.set(deletions.get());
+          eventManager.notifyObservers(new CustomEvent());
+        }
+      }));
+    }
+    dispatchers.forEach(Thread::start);
+
+    for (int i = 0; i < 2000; i++) {
+      DeletableObserver observer = new DeletableObserver(lateCalls);
+      eventManager.addObserver(observer);
+      eventManager.deleteObserver(observer);
+      observer.deletion = deletions.incrementAndGet();
+    }
+    running.set(false);
+    for (Thread dispatcher : dispatchers) {
+      dispatcher.join();
+    }
+    assertEquals(0, lateCalls.get());
+    assertEquals(0, eventManager.countObservers());
+  }
+
+  /**
+   * Testing that a batch delivers its events in order, between the start and the end
+   * notifications of the batch listeners
+   */
+  @Test
+  public void testBatch() {
+    Observable eventManager = new Observable();
+    List<String> calls = new ArrayList<>();
+    eventManager.addObserver(new BatchRecorder(calls));
+    eventManager.addObserver(new BatchRecorder(new ArrayList<>()) {
+      @Override
+      public void onBatchEnd() {
+        throw new IllegalStateException("expected");
+      }
+    });
+
+    try (EventBatch batch = eventManager.beginBatch()) {
+      batch.add(new CustomEvent()).add(new SubCustomEvent());
+    }
+    assertEquals(Arrays.asList("start", "CustomEvent", "SubCustomEvent", "end"), calls);
+
+    calls.clear();
+    eventManager.notifyObservers(new CustomEvent());
+    assertEquals(Arrays.asList("CustomEvent"), calls);
+  }
+
+  /**
+   * A batch listener with handlers on the event dispatch thread is told about the batch there,
+   * around these handlers
+   */
+  @Test
+  public void testBatchOnEdt() throws Exception {
+    Observable eventManager = new Observable();
+    List<String> calls = Collections.synchronizedList(new ArrayList<>());
+    AtomicBoolean onEdt = new AtomicBoolean(true);
+    eventManager.addObserver(new BatchListener() {
+      @EventHandler(thread = HandlerThread.EDT)
+      public void onCustomEvent(CustomEvent event) throws InterruptedException {
+        // Leave the time to a batch end wrongly sent on the publishing thread
+        Thread.sleep(20);
+        record("CustomEvent");
+      }
+
+      @Override
+      public void onBatchStart() {
+        record("start");
+      }
+
+      @Override
+      public void onBatchEnd() {
+        record("end");
+      }
+
+      private void record(String call) {
+        calls.add(call);
+        onEdt.compareAndSet(true, EventQueue.isDispatchThread());
+      }
+    });
+
+    eventManager.publishBatch(Arrays.asList(new CustomEvent(), new CustomEvent()));
+    EventQueue.invokeAndWait(() -> {
+    });
+    assertEquals(Arrays.asList("start", "CustomEvent", "CustomEvent", "end"), calls);
+    assertTrue(onEdt.get());
+  }
+
+  public static class BatchRecorder implements BatchListener {
+
+    private final List<String> calls;
+
+    BatchRecorder(List<String> calls) {
+      this.calls = calls;
+    }
+
+    @EventHandler(polymorphic = true)
+    public void onCustomEvent(CustomEvent event) {
+      calls.add(event.getClass().getSimpleName());
+    }
+
+    @Override
+    public void onBatchStart() {
+      calls.add("start");
+    }
+
+    @Override
+    public void onBatchEnd() {
+      calls.add("end");
+    }
+  }
+
+  public static class DeletableObserver {
+
+    // Number of deletions done when the dispatch of the current thread started
+    static final ThreadLocal<Long> DISPATCH_START = ThreadLocal.withInitial(() -> 0L);
+
+    private final AtomicInteger lateCalls;
+    volatile long deletion;
+
+    DeletableObserver(AtomicInteger lateCalls) {
+      this.lateCalls = lateCalls;
+    }
+
+    @EventHandler
+    public void onCustomEvent(CustomEvent event) {
+      if (deletion != 0 && deletion <= DISPATCH_START.get()) {
+        lateCalls.incrementAndGet();
+      }
+    }
+  }
+
+  private static class PrivateObserver {
+
+    int calls;
+
+    @EventHandler
+    public void onCustomEvent(CustomEvent event) {
+      calls++;
+    }
+  }
+
+  private static class OrderedEvent extends CancellableEvent {
+  }
+
+  private static class PriorityObserver {
+
+    private final String name;
+    private final List<String> calls;
+
+    PriorityObserver(String name, List<String> calls) {
+      this.name = name;
+      this.calls = calls;
+    }
+
+    @EventHandler(priority = EventPriority.LOW)
+    public void onLow(OrderedEvent event) {
+      calls.add(name + ":low");
+    }
+
+    @EventHandler
+    public void onNormal(OrderedEvent event) {
+      calls.add(name + ":normal");
+    }
+
+    @EventHandler(priority = EventPriority.HIGH)
+    public void onHigh(OrderedEvent event) {
+      calls.add(name + ":high");
+    }
+  }
+
+  private static class SubCustomEvent extends CustomEvent {
+  }
+
+  private static class PolymorphicObserver {
+
+    int events, customEvents;
+
+    @EventHandler(polymorphic = true)
+    public void onEvent(Event event) {
+      events++;
+    }
+
+    @EventHandler(polymorphic = true)
+    public void onCustomEvent(CustomEvent event) {
+      if (event.getClass() == CustomEvent.class) {
+        customEvents++;
+      }
+    }
+  }
+
+  private static class ThreadObserver {
+
+    final CountDownLatch done = new CountDownLatch(3);
+    volatile Thread callerThread, backgroundThread, soundThread;
+    volatile boolean onDispatchThread;
+
+    @EventHandler
+    public void onCaller(CustomEvent event) {
+      callerThread = Thread.currentThread();
+    }
+
+    @EventHandler(thread = HandlerThread.EDT)
+    public void onDispatchThread(CustomEvent event) {
+      onDispatchThread = EventQueue.isDispatchThread();
+      done.countDown();
+    }
+
+    @EventHandler(thread = HandlerThread.BACKGROUND)
+    public void onBackground(CustomEvent event) {
+      backgroundThread = Thread.currentThread();
+      done.countDown();
+    }
+
+    @EventHandler(thread = HandlerThread.SOUND)
+    public void onSound(CustomEvent event) {
+      soundThread = Thread.currentThread();
+      done.countDown();
+    }
+  }
 }
@@ -0,0 +1,131 @@
+package polytech.devint.event;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Test;
+
+/**
+ * Testing the weak registration of observers
+ *
+ * @author Loris Friedel
+ */
+public class WeakObserverTest {
+
+  private static final int SCREENS = 5000;
+  private static final int SCREEN_BUFFER_SIZE = 256 * 1024;
+  private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+
+  /**
+   * A weak observer receives events like any other observer, and can be deleted explicitly
+   */
+  @Test
+  public void weakObserverReceivesEvents() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    eventManager.addWeakObserver(tester);
+    assertTrue(eventManager.hasObserver(tester));
+    assertEquals(1, eventManager.countObservers());
+
+    eventManager.notifyObservers(new CustomEvent());
+    assertTrue(tester.onCustomEvent);
+
+    eventManager.deleteObserver(tester);
+    assertFalse(eventManager.hasObserver(tester));
+    assertEquals(0, eventManager.countObservers());
+    assertTrue(eventManager.subscriptions().isEmpty());
+  }
+
+  /**
+   * An observer registered strongly and weakly is only registered once
+   */
+  @Test
+  public void registeredOnce() {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    eventManager.addObserver(tester);
+    eventManager.addWeakObserver(tester);
+    assertEquals(1, eventManager.countObservers());
+    assertEquals(1, eventManager.subscriptions().get(CustomEvent.class).size());
+  }
+
+  /**
+   * A weak observer that is no longer referenced is collected and purged
+   */
+  @Test
+  public void collectedObserverIsPurged() throws InterruptedException {
+    Observable eventManager = new Observable();
+    TestObserver tester = new TestObserver();
+    WeakReference<TestObserver> reference = new WeakReference<>(tester);
+    eventManager.addWeakObserver(tester);
+    tester = null;
+
+    awaitCollection(reference);
+    eventManager.notifyObservers(new CustomEvent());
+    assertEquals(0, eventManager.countObservers());
+    assertTrue(eventManager.weakObservers.isEmpty());
+    assertTrue(eventManager.subscriptions().isEmpty());
+  }
+
+  /**
+   * Cycle through thousands of screens that register weakly to a model and are never
+   * unregistered: the heap and the number of observers must stay bounded
+   */
+  @Test
+  public void screenCyclesDoNotLeak() throws InterruptedException {
+    Observable model = new Observable();
+    long heapBefore = usedHeapAfterGc();
+
+    for (int i = 0; i < SCREENS; i++) {
+      Screen screen = new Screen();
+      model.addWeakObserver(screen);
+      model.notifyObservers(new CustomEvent());
+      assertEquals(1, screen.updates);
+    }
+
+    long heapGrowth = usedHeapAfterGc() - heapBefore;
+    model.notifyObservers(new CustomEvent());
+    assertTrue("Heap grew by " + heapGrowth + " bytes", heapGrowth < MAX_HEAP_GROWTH);
+    assertTrue(model.countObservers() < SCREENS);
+  }
+
+  /**
+   * @return The used heap after asking for a garbage collection.
+   */
+  private static long usedHeapAfterGc() throws InterruptedException {
+    Runtime runtime = Runtime.getRuntime();
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(20);
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Wait for the garbage collector to clear the given reference.
+   *
+   * @param reference Reference to a no longer reachable object.
+   */
+  private static void awaitCollection(WeakReference<?> reference) throws InterruptedException {
+    for (int i = 0; i < 50 && reference.get() != null; i++) {
+      System.gc();
+      Thread.sleep(10);
+    }
+    assertEquals(null, reference.get());
+  }
+
+  public static class Screen {
+
+    // Stands for the frame and sound buffers a real view keeps
+    final byte[] buffer = new byte[SCREEN_BUFFER_SIZE];
+    int updates;
+
+    @EventHandler
+    public void onUpdate(CustomEvent event) {
+      updates++;
+    }
+  }
+}
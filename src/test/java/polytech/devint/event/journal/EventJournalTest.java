@@ -0,0 +1,229 @@
+package polytech.devint.event.journal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InvalidClassException;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import polytech.devint.event.Event;
+import polytech.devint.event.EventHandler;
+import polytech.devint.event.Observable;
+import polytech.devint.event.basic.EscapeEvent;
+import polytech.devint.event.basic.F1Event;
+
+/**
+ * Testing the record and replay of events
+ *
+ * @author Loris Friedel
+ */
+public class EventJournalTest {
+
+  /**
+   * Recorded events are replayed in order, with their state
+   */
+  @Test
+  public void recordAndReplay() throws IOException {
+    Observable recorded = new Observable();
+    ByteArrayOutputStream journal = new ByteArrayOutputStream();
+    try (EventRecorder recorder = new EventRecorder(journal)) {
+      recorded.startRecording(recorder);
+      recorded.notifyObservers(new F1Event());
+      recorded.notifyObservers(new MoveEvent(3, -2));
+      recorded.notifyObservers(new UnrecordableEvent("ignored"));
+      recorded.publishBatch(Arrays.asList(new EscapeEvent(), new MoveEvent(1, 1)));
+      recorded.stopRecording();
+      recorded.notifyObservers(new F1Event());
+    }
+
+    Observable replayed = new Observable();
+    Recorder observer = new Recorder();
+    replayed.addObserver(observer);
+    int count;
+    try (EventReplayer replayer = new EventReplayer(new ByteArrayInputStream(journal.toByteArray()))) {
+      count = replayer.replay(replayed, ReplaySpeed.AS_FAST_AS_POSSIBLE);
+    }
+
+    assertEquals(4, count);
+    assertEquals(4, observer.events.size());
+    assertSame(F1Event.class, observer.events.get(0).getClass());
+    MoveEvent move = (MoveEvent) observer.events.get(1);
+    assertEquals(3, move.dx);
+    assertEquals(-2, move.dy);
+    assertSame(EscapeEvent.class, observer.events.get(2).getClass());
+    assertEquals(1, ((MoveEvent) observer.events.get(3)).dx);
+  }
+
+  /**
+   * A serializable event holding a field that is not serializable is skipped, and the following
+   * events are still recorded
+   */
+  @Test
+  public void unserializableFieldSkipped() throws IOException {
+    Observable recorded = new Observable();
+    ByteArrayOutputStream journal = new ByteArrayOutputStream();
+    try (EventRecorder recorder = new EventRecorder(journal)) {
+      recorded.startRecording(recorder);
+      recorded.notifyObservers(new HoldingEvent(new Object()));
+      recorded.notifyObservers(new MoveEvent(5, 6));
+      recorded.notifyObservers(new HoldingEvent("serializable"));
+    }
+
+    Recorder observer = new Recorder();
+    Observable replayed = new Observable();
+    replayed.addObserver(observer);
+    try (EventReplayer replayer = new EventReplayer(new ByteArrayInputStream(journal.toByteArray()))) {
+      assertEquals(2, replayer.replay(replayed, ReplaySpeed.AS_FAST_AS_POSSIBLE));
+    }
+    assertEquals(5, ((MoveEvent) observer.events.get(0)).dx);
+    assertEquals("serializable", ((HoldingEvent) observer.events.get(1)).value);
+  }
+
+  /**
+   * A payload referring to a class the recorded event does not declare is rejected, unless the
+   * class is explicitly allowed
+   */
+  @Test
+  public void undeclaredClassRejected() throws IOException {
+    ByteArrayOutputStream journal = new ByteArrayOutputStream();
+    try (EventRecorder recorder = new EventRecorder(journal)) {
+      recorder.record(new HoldingEvent(new ArrayList<>(Arrays.asList(1, 2))));
+    }
+
+    try (EventReplayer replayer = new EventReplayer(new ByteArrayInputStream(journal.toByteArray()))) {
+      replayer.replay(new Observable(), ReplaySpeed.AS_FAST_AS_POSSIBLE);
+      fail("An undeclared class was deserialized");
+    } catch (InvalidClassException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains(ArrayList.class.getName()));
+    }
+
+    Recorder observer = new Recorder();
+    Observable replayed = new Observable();
+    replayed.addObserver(observer);
+    try (EventReplayer replayer = new EventReplayer(new ByteArrayInputStream(journal.toByteArray()))) {
+      replayer.allow(ArrayList.class, Integer.class).replay(replayed, ReplaySpeed.AS_FAST_AS_POSSIBLE);
+    }
+    assertEquals(Arrays.asList(1, 2), ((HoldingEvent) observer.events.get(0)).value);
+  }
+
+  /**
+   * At recorded speed, the replay waits between the events as long as when they were recorded
+   */
+  @Test
+  public void recordedSpeed() throws Exception {
+    Observable recorded = new Observable();
+    ByteArrayOutputStream journal = new ByteArrayOutputStream();
+    try (EventRecorder recorder = new EventRecorder(journal)) {
+      recorded.startRecording(recorder);
+      recorded.notifyObservers(new F1Event());
+      Thread.sleep(50);
+      recorded.notifyObservers(new F1Event());
+    }
+
+    long start = System.nanoTime();
+    try (EventReplayer replayer = new EventReplayer(new ByteArrayInputStream(journal.toByteArray()))) {
+      assertEquals(2, replayer.replay(new Observable(), ReplaySpeed.RECORDED));
+    }
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+  }
+
+  /**
+   * A stream that is not a journal is rejected
+   */
+  @Test(expected = IOException.class)
+  public void notAJournal() throws IOException {
+    new EventReplayer(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5}));
+  }
+
+  /**
+   * A corrupt payload length is reported with its offset instead of being allocated, and the
+   * events before it are replayed
+   */
+  @Test
+  public void corruptJournal() throws IOException {
+    ByteArrayOutputStream valid = new ByteArrayOutputStream();
+    try (EventRecorder recorder = new EventRecorder(valid)) {
+      recorder.record(new MoveEvent(1, 2));
+    }
+    // Negative once decoded, above an int and above the largest payload are reported at the
+    // length, after the tag, duration and class of the record; a truncated payload after it
+    long[][] cases = {{-1, 3}, {1L << 32, 3}, {JournalFormat.MAX_PAYLOAD_LENGTH + 1, 3}, {100, 4}};
+    for (long[] corruption : cases) {
+      long length = corruption[0];
+      ByteArrayOutputStream journal = new ByteArrayOutputStream();
+      journal.write(valid.toByteArray());
+      int offset = journal.size();
+      DataOutputStream out = new DataOutputStream(journal);
+      out.writeByte(JournalFormat.EVENT_RECORD);
+      JournalFormat.writeVarLong(out, 0);
+      JournalFormat.writeVarLong(out, 0);
+      JournalFormat.writeVarLong(out, length);
+
+      Recorder observer = new Recorder();
+      Observable replayed = new Observable();
+      replayed.addObserver(observer);
+      try (EventReplayer replayer = new EventReplayer(new ByteArrayInputStream(journal.toByteArray()))) {
+        replayer.replay(replayed, ReplaySpeed.AS_FAST_AS_POSSIBLE);
+        fail("The corrupt length " + length + " was accepted");
+      } catch (IOException e) {
+        assertTrue(e.getMessage(), e.getMessage().contains("at offset " + (offset + corruption[1])));
+      }
+      assertEquals(1, observer.events.size());
+    }
+  }
+
+  public static class MoveEvent implements Event, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    final int dx;
+    final int dy;
+
+    MoveEvent(int dx, int dy) {
+      this.dx = dx;
+      this.dy = dy;
+    }
+  }
+
+  public static class HoldingEvent implements Event, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    final Object value;
+
+    HoldingEvent(Object value) {
+      this.value = value;
+    }
+  }
+
+  public static class UnrecordableEvent implements Event {
+
+    final String name;
+
+    UnrecordableEvent(String name) {
+      this.name = name;
+    }
+  }
+
+  public static class Recorder {
+
+    final List<Event> events = new ArrayList<>();
+
+    @EventHandler(polymorphic = true)
+    public void onEvent(Event event) {
+      events.add(event);
+    }
+  }
+}
@@ -0,0 +1,153 @@
+package polytech.devint.event.processor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Test;
+
+import polytech.devint.controller.DevintController;
+import polytech.devint.controller.menu.SwingMenuController;
+import polytech.devint.event.CancellableEvent;
+import polytech.devint.event.GeneratedDispatcher;
+import polytech.devint.event.HandlerDescriptor;
+import polytech.devint.event.HandlerThread;
+import polytech.devint.event.TestObserver;
+
+/**
+ * Testing the generation of the event dispatchers at compile time
+ *
+ * @author Loris Friedel
+ */
+public class EventHandlerProcessorTest {
+
+  /**
+   * The observers of the tests are compiled with the processor, they have a dispatcher
+   */
+  @Test
+  public void dispatcherGenerated() throws Exception {
+    Class<?> dispatcherType = Class.forName("polytech.devint.event.TestObserver_EventDispatcher");
+    GeneratedDispatcher dispatcher = (GeneratedDispatcher) dispatcherType.newInstance();
+    assertEquals(TestObserver.class, dispatcher.getObserverType());
+    assertEquals(2, dispatcher.getHandlers().length);
+  }
+
+  /**
+   * The observers of the engine itself are compiled with the processor too
+   */
+  @Test
+  public void engineDispatchersGenerated() throws Exception {
+    for (Class<?> observerType : Arrays.asList(DevintController.class, SwingMenuController.class)) {
+      Class<?> dispatcherType = Class.forName(observerType.getName() + "_EventDispatcher");
+      GeneratedDispatcher dispatcher = (GeneratedDispatcher) dispatcherType.newInstance();
+      assertEquals(observerType, dispatcher.getObserverType());
+      assertTrue(dispatcher.getHandlers().length > 0);
+    }
+  }
+
+  /**
+   * A valid observer gets a dispatcher describing and calling its handlers
+   */
+  @Test
+  public void compileObserver() throws Throwable {
+    File output = Files.createTempDirectory("dispatchers").toFile();
+    DiagnosticCollector<JavaFileObject> diagnostics = compile(output,
+            source("test.Game", "package test;\n"
+                    + "import polytech.devint.event.*;\n"
+                    + "public class Game {\n"
+                    + "  public static class Player {\n"
+                    + "    public int moves;\n"
+                    + "    @EventHandler(priority = 5, thread = HandlerThread.EDT)\n"
+                    + "    public void onMove(CancellableEvent event) { moves++; }\n"
+                    + "  }\n"
+                    + "}\n"));
+    assertTrue(diagnostics.getDiagnostics().toString(), errors(diagnostics).isEmpty());
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {output.toURI().toURL()},
+            getClass().getClassLoader())) {
+      GeneratedDispatcher dispatcher = (GeneratedDispatcher)
+              loader.loadClass("test.Game_Player_EventDispatcher").newInstance();
+      HandlerDescriptor handler = dispatcher.getHandlers()[0];
+      assertEquals("onMove", handler.getName());
+      assertEquals(5, handler.getPriority());
+      assertEquals(HandlerThread.EDT, handler.getThread());
+
+      Object player = loader.loadClass("test.Game$Player").newInstance();
+      dispatcher.invoke(player, 0, new CancellableEvent() {
+      });
+      assertEquals(1, player.getClass().getField("moves").getInt(player));
+    }
+  }
+
+  /**
+   * Malformed handlers are reported as compilation errors
+   */
+  @Test
+  public void malformedHandlers() throws IOException {
+    File output = Files.createTempDirectory("dispatchers").toFile();
+    DiagnosticCollector<JavaFileObject> diagnostics = compile(output,
+            source("test.Broken", "package test;\n"
+                    + "import polytech.devint.event.*;\n"
+                    + "public class Broken {\n"
+                    + "  @EventHandler void notPublic(Event event) {}\n"
+                    + "  @EventHandler public static void isStatic(Event event) {}\n"
+                    + "  @EventHandler public void twoParameters(Event event, int i) {}\n"
+                    + "  @EventHandler public void notAnEvent(String event) {}\n"
+                    + "}\n"));
+    List<Diagnostic<? extends JavaFileObject>> errors = errors(diagnostics);
+    assertEquals(errors.toString(), 4, errors.size());
+    assertFalse(new File(output, "test/Broken_EventDispatcher.class").exists());
+  }
+
+  private static DiagnosticCollector<JavaFileObject> compile(File output, JavaFileObject source) {
+    JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+    assertNotNull("A JDK is needed to run this test", compiler);
+    DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+    List<String> options = Arrays.asList("-classpath", new File("target/classes").getAbsolutePath(),
+            "-processor", EventHandlerProcessor.class.getName(),
+            "-d", output.getAbsolutePath(), "-s", output.getAbsolutePath());
+    compiler.getTask(null, null, diagnostics, options, null, Collections.singletonList(source))
+            .call();
+    return diagnostics;
+  }
+
+  private static List<Diagnostic<? extends JavaFileObject>> errors(
+          DiagnosticCollector<JavaFileObject> diagnostics) {
+    List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+    for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+      if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+        errors.add(diagnostic);
+      }
+    }
+    return errors;
+  }
+
+  private static JavaFileObject source(String name, String code) {
+    return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"),
+            JavaFileObject.Kind.SOURCE) {
+      @Override
+      public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+        return code;
+      }
+    };
+  }
+}
@@ -0,0 +1,148 @@
+package polytech.devint.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Testing the executor backends of the shared scheduler
+ *
+ * @author Loris Friedel
+ */
+public class ExecutorBackendTest {
+
+  @After
+  public void tearDown() {
+    System.clearProperty(ExecutorBackend.PROPERTY);
+  }
+
+  /**
+   * The platform backend runs the tasks on named daemon threads
+   */
+  @Test
+  public void platformThreads() throws Exception {
+    assertRunsOnDaemonThreads(ExecutorBackend.platform());
+  }
+
+  /**
+   * The virtual backend is available exactly when the runtime has virtual threads, and runs the
+   * tasks on named daemon threads
+   */
+  @Test
+  public void virtualThreads() throws Exception {
+    Optional<ExecutorBackend> virtual = ExecutorBackend.virtual();
+    assertEquals(hasVirtualThreads(), virtual.isPresent());
+    if (virtual.isPresent()) {
+      assertEquals("virtual", virtual.get().getName());
+      assertRunsOnDaemonThreads(virtual.get());
+    }
+  }
+
+  /**
+   * The system property can force platform threads, else virtual threads are preferred when
+   * available
+   */
+  @Test
+  public void preferredBackend() {
+    System.setProperty(ExecutorBackend.PROPERTY, "platform");
+    assertEquals("platform", ExecutorBackend.preferred().getName());
+
+    System.setProperty(ExecutorBackend.PROPERTY, "virtual");
+    assertEquals(hasVirtualThreads() ? "virtual" : "platform", ExecutorBackend.preferred().getName());
+
+    System.clearProperty(ExecutorBackend.PROPERTY);
+    assertEquals(hasVirtualThreads() ? "virtual" : "platform", ExecutorBackend.preferred().getName());
+  }
+
+  /**
+   * Swapping the backend of the shared scheduler replaces its workers and lets the previous ones
+   * finish their tasks
+   */
+  @Test
+  public void swapBackend() throws Exception {
+    ExecutorBackend initial = SchedulerReady.getBackend();
+    ExecutorService previous = SchedulerReady.getDefaultWorkers();
+    try {
+      ExecutorBackend platform = ExecutorBackend.platform();
+      SchedulerReady.useBackend(platform);
+      assertSame(platform, SchedulerReady.getBackend());
+      assertNotSame(previous, SchedulerReady.getDefaultWorkers());
+      assertTrue(previous.awaitTermination(1, TimeUnit.SECONDS));
+
+      String name = SchedulerReady.getDefaultWorkers().submit(() -> Thread.currentThread().getName())
+              .get(1, TimeUnit.SECONDS);
+      assertTrue(name, name.startsWith("devint-worker-"));
+    } finally {
+      SchedulerReady.useBackend(initial);
+    }
+  }
+
+  /**
+   * Tasks submitted while the backend is swapped are run by one executor or the other, none of
+   * them is rejected
+   */
+  @Test
+  public void executeDuringSwap() throws Exception {
+    ExecutorBackend initial = SchedulerReady.getBackend();
+    int tasks = 2000;
+    CountDownLatch done = new CountDownLatch(tasks);
+    AtomicReference<Throwable> failure = new AtomicReference<>();
+    Thread submitter = new Thread(() -> {
+      try {
+        for (int i = 0; i < tasks; i++) {
+          SchedulerReady.execute(done::countDown);
+        }
+      } catch (RuntimeException e) {
+        failure.set(e);
+      }
+    });
+    try {
+      submitter.start();
+      while (submitter.isAlive()) {
+        SchedulerReady.useBackend(ExecutorBackend.platform());
+      }
+      assertNull(failure.get());
+      assertTrue(done.await(5, TimeUnit.SECONDS));
+    } finally {
+      SchedulerReady.useBackend(initial);
+    }
+  }
+
+  /**
+   * @param backend Backend to check.
+   */
+  private static void assertRunsOnDaemonThreads(ExecutorBackend backend) throws Exception {
+    ExecutorService executor = backend.newExecutor("test-backend-");
+    try {
+      Thread thread = executor.submit(Thread::currentThread).get(1, TimeUnit.SECONDS);
+      assertTrue(thread.getName(), thread.getName().startsWith("test-backend-"));
+      assertTrue(thread.isDaemon());
+    } finally {
+      executor.shutdown();
+      assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+    }
+  }
+
+  /**
+   * @return True if the running Java has virtual threads.
+   */
+  private static boolean hasVirtualThreads() {
+    try {
+      Thread.class.getMethod("ofVirtual");
+      return true;
+    } catch (NoSuchMethodException e) {
+      return false;
+    }
+  }
+}
@@ -0,0 +1,242 @@
+package polytech.devint.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import polytech.devint.event.EventHandler;
+import polytech.devint.scheduler.event.RenderPhaseEvent;
+import polytech.devint.scheduler.event.UpdatePhaseEvent;
+
+/**
+ * Testing the fixed step game loop
+ *
+ * @author Loris Friedel
+ */
+public class GameLoopTest {
+
+  private GameLoop loop;
+
+  @After
+  public void tearDown() {
+    if (loop != null) {
+      loop.stop();
+    }
+  }
+
+  /**
+   * Updates are sent at the fixed rate, numbered in order, and the frames are interpolated
+   * between them
+   */
+  @Test
+  public void fixedStep() throws InterruptedException {
+    loop = new GameLoop(100, 50);
+    PhaseCounter counter = new PhaseCounter();
+    loop.addObserver(counter);
+
+    long start = System.nanoTime();
+    loop.start();
+    Thread.sleep(500);
+    loop.stop();
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    assertFalse(loop.isRunning());
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10), loop.getStepNanos());
+    assertTrue(counter.updates + " updates in " + elapsedMs + "ms",
+            counter.updates >= 40 && counter.updates <= elapsedMs / 10 + 1);
+    assertTrue(counter.renders + " frames in " + elapsedMs + "ms",
+            counter.renders >= 20 && counter.renders <= elapsedMs / 20 + 2);
+    assertTrue(counter.ordered);
+    assertTrue(counter.alphaInRange);
+
+    FrameStats stats = loop.getStats();
+    assertEquals(counter.updates, stats.getUpdates());
+    assertEquals(counter.renders, stats.getFrames());
+    assertEquals(0, stats.getDroppedUpdates());
+    assertTrue(stats.toString(), stats.getFramesPerSecond() > 30 && stats.getFramesPerSecond() < 70);
+  }
+
+  /**
+   * Slow frames are skipped, and the following frames catch up with the missed updates
+   */
+  @Test
+  public void skipsFramesUnderLoad() throws InterruptedException {
+    loop = new GameLoop(100, 100);
+    PhaseCounter counter = new PhaseCounter();
+    counter.renderDelayMs = 35;
+    loop.addObserver(counter);
+
+    long start = System.nanoTime();
+    loop.start();
+    Thread.sleep(400);
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    loop.stop();
+
+    FrameStats stats = loop.getStats();
+    assertTrue(stats.toString(), stats.getSkippedFrames() > 0);
+    assertEquals(0, stats.getDroppedUpdates());
+    // The game time keeps up with the real time even if few frames are rendered, give or take
+    // the slow frames in progress
+    assertTrue(counter.updates + " updates in " + elapsedMs + "ms",
+            counter.updates >= (elapsedMs - 80) / 10);
+    assertTrue(stats.getMaxFrameNanos() >= TimeUnit.MILLISECONDS.toNanos(35));
+  }
+
+  /**
+   * Updates too late to be caught up within a frame are dropped
+   */
+  @Test
+  public void dropsLateUpdates() throws InterruptedException {
+    loop = new GameLoop(100, 100);
+    loop.setMaxUpdatesPerFrame(2);
+    PhaseCounter counter = new PhaseCounter();
+    counter.updateDelayMs = 30;
+    loop.addObserver(counter);
+
+    loop.start();
+    Thread.sleep(300);
+    loop.stop();
+
+    FrameStats stats = loop.getStats();
+    assertTrue(stats.toString(), stats.getDroppedUpdates() > 0);
+    assertTrue(counter.ordered);
+    assertTrue(counter.alphaInRange);
+  }
+
+  /**
+   * A handler can stop the loop, which then restarts where it stopped
+   */
+  @Test
+  public void stopFromHandler() throws InterruptedException {
+    loop = new GameLoop(200, 200);
+    Stopper stopper = new Stopper(loop, 10);
+    loop.addObserver(stopper);
+
+    loop.start();
+    assertTrue(stopper.stopped.await(1, TimeUnit.SECONDS));
+    Thread.sleep(50);
+    assertFalse(loop.isRunning());
+    assertEquals(10, stopper.updates);
+
+    stopper.stopped = new CountDownLatch(1);
+    stopper.stopAt = 20;
+    loop.start();
+    assertTrue(stopper.stopped.await(1, TimeUnit.SECONDS));
+    assertEquals(20, stopper.updates);
+  }
+
+  /**
+   * Restarting the loop right after stopping it, before the old thread has ended, runs a single
+   * loop: the old thread ends its run and the new one goes on from where it stopped
+   */
+  @Test
+  public void restartRightAfterStop() throws InterruptedException {
+    loop = new GameLoop(200, 200);
+    Restarter restarter = new Restarter(loop);
+    loop.addObserver(restarter);
+
+    loop.start();
+    Thread.sleep(300);
+    loop.stop();
+
+    assertTrue(restarter.restarts > 0);
+    assertEquals(1, restarter.maxConcurrentCalls);
+    assertTrue(restarter.ordered);
+  }
+
+    @Test(expected = IllegalArgumentException.class)
+  public void invalidRate() {
+    new GameLoop(0, 60);
+  }
+
+  public static class PhaseCounter {
+
+    volatile int updates;
+    volatile int renders;
+    volatile boolean ordered = true;
+    volatile boolean alphaInRange = true;
+    long updateDelayMs;
+    long renderDelayMs;
+
+    @EventHandler
+    public void onUpdate(UpdatePhaseEvent event) throws InterruptedException {
+      if (event.getTick() != updates) {
+        ordered = false;
+      }
+      updates++;
+      Thread.sleep(updateDelayMs);
+    }
+
+    @EventHandler
+    public void onRender(RenderPhaseEvent event) throws InterruptedException {
+      if (event.getFrame() != renders) {
+        ordered = false;
+      }
+      if (event.getAlpha() < 0 || event.getAlpha() >= 1) {
+        alphaInRange = false;
+      }
+      renders++;
+      Thread.sleep(renderDelayMs);
+    }
+  }
+
+  public static class Stopper {
+
+    private final GameLoop loop;
+    volatile int updates;
+    volatile int stopAt;
+    volatile CountDownLatch stopped = new CountDownLatch(1);
+
+    Stopper(GameLoop loop, int stopAt) {
+      this.loop = loop;
+      this.stopAt = stopAt;
+    }
+
+    @EventHandler
+    public void onUpdate(UpdatePhaseEvent event) {
+      updates++;
+      if (updates == stopAt) {
+        loop.stop();
+        stopped.countDown();
+      }
+    }
+  }
+
+  public static class Restarter {
+
+    private final GameLoop loop;
+    private final AtomicInteger calls = new AtomicInteger();
+    volatile int maxConcurrentCalls;
+    volatile int updates;
+    volatile int restarts;
+    volatile boolean ordered = true;
+
+    Restarter(GameLoop loop) {
+      this.loop = loop;
+    }
+
+    @EventHandler
+    public void onUpdate(UpdatePhaseEvent event) throws InterruptedException {
+      maxConcurrentCalls = Math.max(maxConcurrentCalls, calls.incrementAndGet());
+      if (event.getTick() != updates) {
+        ordered = false;
+      }
+      updates++;
+      if (updates % 10 == 0) {
+        loop.stop();
+        loop.start();
+        restarts++;
+        // Leave time to a second loop thread to run beside this one
+        Thread.sleep(20);
+      }
+      calls.decrementAndGet();
+    }
+  }
+}
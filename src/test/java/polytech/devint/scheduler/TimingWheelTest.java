@@ -0,0 +1,240 @@
+package polytech.devint.scheduler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import polytech.devint.util.time.Timer;
+
+/**
+ * Testing the timing wheel and the shared scheduler of the timers
+ *
+ * @author Loris Friedel
+ */
+public class TimingWheelTest {
+
+  private TimingWheel wheel;
+
+  @Before
+  public void setUp() {
+    // A small wheel, so that the tests also cover tasks waiting for several turns
+    wheel = new TimingWheel("test-wheel", 1, TimeUnit.MILLISECONDS, 16);
+  }
+
+  @After
+  public void tearDown() throws InterruptedException {
+    wheel.shutdown();
+    assertTrue(wheel.awaitTermination(1, TimeUnit.SECONDS));
+  }
+
+  /**
+   * Tasks run in the order of their deadlines, including those further than a turn of the wheel
+   */
+  @Test
+  public void deadlineOrder() throws Exception {
+    List<Integer> runs = Collections.synchronizedList(new ArrayList<>());
+    int[] delays = {70, 5, 40, 16, 32, 1};
+    List<ScheduledFuture<?>> tasks = new ArrayList<>();
+    long start = System.nanoTime();
+    for (int delay : delays) {
+      tasks.add(wheel.schedule(() -> runs.add(delay), delay, TimeUnit.MILLISECONDS));
+    }
+    for (ScheduledFuture<?> task : tasks) {
+      task.get(1, TimeUnit.SECONDS);
+    }
+
+    assertEquals(Arrays.asList(1, 5, 16, 32, 40, 70), runs);
+    assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(70));
+  }
+
+  /**
+   * A cancelled task does not run
+   */
+  @Test
+  public void cancel() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    ScheduledFuture<?> task = wheel.schedule(runs::incrementAndGet, 30, TimeUnit.MILLISECONDS);
+    assertTrue(task.cancel(false));
+    assertTrue(task.isCancelled());
+    assertTrue(task.isDone());
+    assertFalse(task.cancel(false));
+    Thread.sleep(60);
+    assertEquals(0, runs.get());
+  }
+
+  /**
+   * A periodic task runs at a fixed rate until it cancels itself
+   */
+  @Test
+  public void fixedRate() throws InterruptedException {
+    AtomicInteger runs = new AtomicInteger();
+    CountDownLatch done = new CountDownLatch(1);
+    ScheduledFuture<?>[] task = new ScheduledFuture<?>[1];
+    long start = System.nanoTime();
+    task[0] = wheel.scheduleAtFixedRate(() -> {
+      if (runs.incrementAndGet() == 20) {
+        task[0].cancel(false);
+        done.countDown();
+      }
+    }, 0, 10, TimeUnit.MILLISECONDS);
+
+    assertTrue(done.await(2, TimeUnit.SECONDS));
+    long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertTrue("Took " + elapsedMs + " ms", elapsedMs >= 190 && elapsedMs < 400);
+    Thread.sleep(30);
+    assertEquals(20, runs.get());
+  }
+
+  /**
+   * A failing task is logged and does not stop the wheel
+   */
+  @Test
+  public void failingTask() throws Exception {
+    ScheduledFuture<?> failing = wheel.scheduleAtFixedRate(() -> {
+      throw new IllegalStateException("expected");
+    }, 1, 1, TimeUnit.MILLISECONDS);
+    ScheduledFuture<?> next = wheel.schedule(() -> { }, 10, TimeUnit.MILLISECONDS);
+    next.get(1, TimeUnit.SECONDS);
+    assertTrue(failing.isDone());
+    assertFalse(failing.isCancelled());
+  }
+
+  /**
+   * Shutting down cancels the waiting tasks and rejects new ones
+   */
+  @Test(expected = RejectedExecutionException.class)
+  public void shutdown() throws InterruptedException {
+    ScheduledFuture<?> task = wheel.schedule(() -> { }, 1, TimeUnit.SECONDS);
+    wheel.shutdown();
+    assertTrue(wheel.awaitTermination(1, TimeUnit.SECONDS));
+    assertTrue(task.isCancelled());
+    wheel.schedule(() -> { }, 1, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Tasks scheduled while the wheel shuts down are either rejected, or run or cancelled: no
+   * future is left waiting forever
+   */
+  @Test
+  public void scheduleDuringShutdown() throws Exception {
+    for (int round = 0; round < 20; round++) {
+      TimingWheel racing = new TimingWheel("racing-wheel", 1, TimeUnit.MILLISECONDS, 16);
+      List<ScheduledFuture<?>> tasks = Collections.synchronizedList(new ArrayList<>());
+      List<Thread> schedulers = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        Thread scheduler = new Thread(() -> {
+          try {
+            // Schedule until rejected, so some tasks are added while the tick thread stops
+            while (true) {
+              tasks.add(racing.schedule(() -> { }, 0, TimeUnit.MILLISECONDS));
+            }
+          } catch (RejectedExecutionException e) {
+            // Expected once the wheel is shut down
+          }
+        });
+        schedulers.add(scheduler);
+        scheduler.start();
+      }
+      Thread.sleep(5);
+      racing.shutdown();
+      for (Thread scheduler : schedulers) {
+        scheduler.join();
+      }
+      assertTrue(racing.awaitTermination(1, TimeUnit.SECONDS));
+      for (ScheduledFuture<?> task : tasks) {
+        assertTrue(task.isDone());
+      }
+    }
+  }
+
+  /**
+   * The shared wheel is created again after the shared scheduler is shut down
+   */
+  @Test
+  public void sharedWheelAfterShutdown() throws Exception {
+    TimingWheel before = SchedulerReady.getDefaultWheel();
+    SchedulerReady.shutdown();
+    assertTrue(before.isShutdown());
+
+    TimingWheel after = SchedulerReady.getDefaultWheel();
+    assertFalse(after.isShutdown());
+    SchedulerReady.schedule(() -> { }, 1).get(1, TimeUnit.SECONDS);
+    SchedulerReady.getDefaultWorkers().submit(() -> { }).get(1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * The deprecated executor accessors still schedule tasks, on one executor shared by all
+   * the instances
+   */
+  @Test
+  @SuppressWarnings("deprecation")
+  public void deprecatedExecutor() throws Exception {
+    SchedulerReady ready = new SchedulerReady() {
+    };
+    assertSame(SchedulerReady.getDefaultExecutor(), ready.getExecutor());
+    ready.getExecutor().schedule(() -> { }, 1, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * A task far in the future, beyond a turn of the wheel, does not make the tick thread wake up
+   * on each tick
+   */
+  @Test
+  public void sleepsUntilDueTask() throws Exception {
+    ScheduledFuture<?> task = wheel.schedule(() -> { }, 400, TimeUnit.MILLISECONDS);
+    Thread.sleep(300);
+    assertTrue("Woke up " + wheel.getWakeUps() + " times", wheel.getWakeUps() < 10);
+    task.get(1, TimeUnit.SECONDS);
+  }
+
+  /**
+   * Running many timers at once does not create a thread per timer: the wheel triggers them and
+   * the shared workers only grow with the callbacks running at the same time
+   */
+  @Test
+  public void timersShareThreads() throws InterruptedException {
+    int threadsBefore = Thread.activeCount();
+    List<CountingTimer> timers = new ArrayList<>();
+    for (int i = 0; i < 50; i++) {
+      CountingTimer timer = new CountingTimer();
+      timers.add(timer);
+      timer.start();
+    }
+    Thread.sleep(100);
+    int threadsDuring = Thread.activeCount();
+    timers.forEach(Timer::cancel);
+
+    assertTrue("Went from " + threadsBefore + " to " + threadsDuring + " threads",
+            threadsDuring - threadsBefore <= timers.size() / 5);
+    assertTrue(timers.stream().allMatch(timer -> timer.ticks.get() > 0));
+  }
+
+  private static class CountingTimer extends Timer {
+
+    final AtomicInteger ticks = new AtomicInteger();
+
+    CountingTimer() {
+      super(10_000, 5);
+    }
+
+    @Override
+    protected void onTick() {
+      ticks.incrementAndGet();
+    }
+  }
+}
@@ -0,0 +1,138 @@
+package polytech.devint.util.time;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import polytech.devint.util.time.RateLimit.Edge;
+
+/**
+ * Testing the rate limiter policies
+ *
+ * @author Loris Friedel
+ */
+public class RateLimiterTest {
+
+  private final AtomicInteger trailingRuns = new AtomicInteger();
+
+  /**
+   * A leading throttle runs the first call, then one call per interval
+   */
+  @Test
+  public void throttleLeading() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(RateLimit.throttle(100, Edge.LEADING), trailingRuns::incrementAndGet);
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    Thread.sleep(150);
+    assertTrue(limiter.tryAcquire());
+    Thread.sleep(150);
+    assertEquals(0, trailingRuns.get());
+  }
+
+  /**
+   * A leading debounce ignores chattering: calls closer than the interval are all suppressed,
+   * even if the burst lasts longer than the interval
+   */
+  @Test
+  public void debounceLeading() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(RateLimit.debounce(100, Edge.LEADING), trailingRuns::incrementAndGet);
+    assertTrue(limiter.tryAcquire());
+    for (int i = 0; i < 6; i++) {
+      Thread.sleep(30);
+      assertFalse(limiter.tryAcquire());
+    }
+    Thread.sleep(150);
+    assertTrue(limiter.tryAcquire());
+  }
+
+  /**
+   * A trailing debounce runs once, after the calls stop
+   */
+  @Test
+  public void debounceTrailing() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(RateLimit.debounce(100, Edge.TRAILING), trailingRuns::incrementAndGet);
+    for (int i = 0; i < 5; i++) {
+      assertFalse(limiter.tryAcquire());
+      Thread.sleep(30);
+    }
+    assertEquals(0, trailingRuns.get());
+    awaitTrailingRuns(1);
+    Thread.sleep(200);
+    assertEquals(1, trailingRuns.get());
+  }
+
+  /**
+   * The trailing run is scheduled on the shared timing wheel and run by a shared worker, never
+   * on the thread of the calls
+   */
+  @Test
+  public void trailingThread() throws Exception {
+    CompletableFuture<String> thread = new CompletableFuture<>();
+    RateLimiter limiter = new RateLimiter(RateLimit.debounce(20, Edge.TRAILING),
+            () -> thread.complete(Thread.currentThread().getName()));
+    assertFalse(limiter.tryAcquire());
+    String name = thread.get(1, TimeUnit.SECONDS);
+    assertTrue(name, name.startsWith("devint-worker-"));
+  }
+
+  /**
+   * The trailing run can be handed to another executor, like the EDT of a Swing input
+   */
+  @Test
+  public void trailingExecutor() throws Exception {
+    CompletableFuture<String> thread = new CompletableFuture<>();
+    RateLimiter limiter = new RateLimiter(RateLimit.debounce(20, Edge.TRAILING),
+            () -> thread.complete(Thread.currentThread().getName()),
+            task -> new Thread(task, "trailing-executor").start());
+    assertFalse(limiter.tryAcquire());
+    assertEquals("trailing-executor", thread.get(1, TimeUnit.SECONDS));
+  }
+
+  /**
+   * A throttle on both edges runs the first call at once and the suppressed ones at the end of
+   * the interval, but a single call has no trailing run
+   */
+  @Test
+  public void throttleBoth() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(RateLimit.throttle(100, Edge.BOTH), trailingRuns::incrementAndGet);
+    assertTrue(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    assertFalse(limiter.tryAcquire());
+    awaitTrailingRuns(1);
+
+    Thread.sleep(200);
+    assertTrue(limiter.tryAcquire());
+    Thread.sleep(200);
+    assertEquals(1, trailingRuns.get());
+  }
+
+  /**
+   * Resetting drops the pending trailing run
+   */
+  @Test
+  public void reset() throws InterruptedException {
+    RateLimiter limiter = new RateLimiter(RateLimit.debounce(50, Edge.TRAILING), trailingRuns::incrementAndGet);
+    limiter.tryAcquire();
+    limiter.reset();
+    Thread.sleep(150);
+    assertEquals(0, trailingRuns.get());
+  }
+
+  /**
+   * @param count Expected number of trailing runs.
+   */
+  private void awaitTrailingRuns(int count) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (trailingRuns.get() < count && System.currentTimeMillis() < deadline) {
+      Thread.sleep(5);
+    }
+    assertEquals(count, trailingRuns.get());
+  }
+}
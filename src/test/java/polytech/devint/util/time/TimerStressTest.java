@@ -0,0 +1,171 @@
+package polytech.devint.util.time;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Hammering timers with concurrent calls, in the spirit of a jcstress test: each round races
+ * threads on the same timer, then checks the invariants of its state machine
+ *
+ * @author Loris Friedel
+ */
+public class TimerStressTest {
+
+  private static final int THREADS = 4;
+  private static final int ROUNDS = 300;
+
+  /**
+   * Concurrent starts, pauses, resumes and cancels never fire onFinish more than once per start,
+   * and leave no task running once the timer is stopped
+   */
+  @Test
+  public void tickCounting() throws Exception {
+    stress(Timer.Mode.TICK_COUNTING);
+  }
+
+  @Test
+  public void monotonic() throws Exception {
+    stress(Timer.Mode.MONOTONIC);
+  }
+
+  /**
+   * Two threads racing to pause and cancel a running timer: exactly one of the two transitions
+   * wins for each start
+   */
+  @Test
+  public void pauseCancelRace() throws Exception {
+    for (int round = 0; round < ROUNDS; round++) {
+      CountingTimer timer = new CountingTimer(10_000, Timer.Mode.TICK_COUNTING);
+      timer.start();
+      CyclicBarrier barrier = new CyclicBarrier(2);
+      Thread pausing = new Thread(() -> {
+        await(barrier);
+        timer.pause();
+      });
+      pausing.start();
+      await(barrier);
+      timer.cancel();
+      pausing.join();
+
+      // Either cancelled directly, or paused then cancelled
+      assertTrue(timer.hasBeenCanceled());
+      assertEquals(0, timer.getElapsedTime());
+      assertEquals(1, timer.starts.get());
+    }
+  }
+
+  /**
+   * @param mode Mode of the hammered timers.
+   */
+  private static void stress(Timer.Mode mode) throws Exception {
+    List<CountingTimer> timers = new ArrayList<>();
+    AtomicInteger negativeElapsed = new AtomicInteger();
+    for (int round = 0; round < ROUNDS / 10; round++) {
+      CountingTimer timer = new CountingTimer(5, mode);
+      timers.add(timer);
+      CyclicBarrier barrier = new CyclicBarrier(THREADS);
+      List<Thread> threads = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        threads.add(new Thread(() -> {
+          await(barrier);
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int i = 0; i < 200; i++) {
+            switch (random.nextInt(6)) {
+              case 0:
+                timer.start();
+                break;
+              case 1:
+                timer.pause();
+                break;
+              case 2:
+                timer.resume();
+                break;
+              case 3:
+                timer.cancel();
+                break;
+              case 4:
+                timer.reset();
+                break;
+              default:
+                timer.restart();
+                break;
+            }
+            if (timer.getElapsedTime() < 0) {
+              negativeElapsed.incrementAndGet();
+            }
+          }
+        }));
+      }
+      threads.forEach(Thread::start);
+      for (Thread thread : threads) {
+        thread.join();
+      }
+    }
+
+    assertEquals(0, negativeElapsed.get());
+
+    // Let the last runs end, then stop every timer for good
+    Thread.sleep(50);
+    timers.forEach(Timer::cancel);
+    Thread.sleep(20);
+    int[] ticks = new int[timers.size()];
+    for (int i = 0; i < ticks.length; i++) {
+      ticks[i] = timers.get(i).ticks.get();
+    }
+    Thread.sleep(50);
+
+    for (int i = 0; i < ticks.length; i++) {
+      CountingTimer timer = timers.get(i);
+      assertTrue(timer.finishes.get() <= timer.starts.get());
+      assertEquals("A stopped timer kept ticking", ticks[i], timer.ticks.get());
+      assertTrue(timer.getTickTask() == null);
+      assertFalse(timer.isRunning());
+    }
+  }
+
+  /**
+   * @param barrier Barrier to wait for.
+   */
+  private static void await(CyclicBarrier barrier) {
+    try {
+      barrier.await();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static class CountingTimer extends Timer {
+
+    final AtomicInteger starts = new AtomicInteger();
+    final AtomicInteger ticks = new AtomicInteger();
+    final AtomicInteger finishes = new AtomicInteger();
+
+    CountingTimer(long duration, Mode mode) {
+      super(duration, 1, mode);
+    }
+
+    @Override
+    protected void onStart() {
+      starts.incrementAndGet();
+    }
+
+    @Override
+    protected void onTick() {
+      ticks.incrementAndGet();
+    }
+
+    @Override
+    protected void onFinish() {
+      finishes.incrementAndGet();
+    }
+  }
+}
@@ -2,9 +2,13 @@ package polytech.devint.util.time;
 
 import org.junit.Before;
 import org.junit.Test;
+import polytech.devint.scheduler.SchedulerReady;
 import polytech.devint.util.time.Timer;
 
 import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 
@@ -47,7 +51,8 @@ public class TimerTest {
   public void noElapsedTime() {
     timer.start();
     timer.pause();
-    assertEquals(0, timer.getElapsedTime());
+    // The first tick runs on start, it may be counted before the pause
+    assertTrue(timer.getElapsedTime() <= timer.interval);
   }
 
   @Test
@@ -195,6 +200,152 @@ public class TimerTest {
     assertEquals(TimerDefault.DEFAULT_DURATION - toWait, timer.getRemainingTime(), ERROR_MARGIN*Timer.DEFAULT_INTERVAL_MS);
   }
 
+  /**
+   * A monotonic timer finishes on time, without ticking if it does not override onTick
+   */
+  @Test
+  public void monotonicFinish() throws InterruptedException {
+    CountDownLatch finished = new CountDownLatch(1);
+    Timer monotonic = new Timer(150, 10, Timer.Mode.MONOTONIC) {
+      @Override
+      protected void onFinish() {
+        finished.countDown();
+      }
+    };
+    long start = System.nanoTime();
+    monotonic.start();
+    waitMs(50);
+    assertInRange(50, monotonic.getElapsedTime());
+    assertNull(monotonic.getTickTask());
+
+    assertTrue(finished.await(1, TimeUnit.SECONDS));
+    long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    assertInRange(150, tookMs);
+    assertTrue(monotonic.hasFinished());
+    assertEquals(150, monotonic.getElapsedTime());
+    assertEquals(0, monotonic.getRemainingTime());
+  }
+
+  /**
+   * A monotonic timer measures the real elapsed time even if its ticks are late
+   */
+  @Test
+  public void monotonicDoesNotDrift() throws Exception {
+    Timer monotonic = new Timer(10_000, 10, Timer.Mode.MONOTONIC) {
+      @Override
+      protected void onTick() {
+        // Ticks are scheduled
+      }
+    };
+    long start = System.nanoTime();
+    monotonic.start();
+    waitMs(30);
+    // Stall the shared tick thread, like a long garbage collection would
+    SchedulerReady.schedule(() -> waitMs(200), 0).get();
+    waitMs(30);
+    monotonic.pause();
+    long realMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+    // The timer runs within the measured time, and counts the stall that a tick count would miss
+    long elapsed = monotonic.getElapsedTime();
+    assertTrue(elapsed + " ms measured in " + realMs + " ms", elapsed <= realMs && elapsed >= 260);
+  }
+
+  /**
+   * The ticks of a monotonic timer follow the delay it gives, and pausing keeps the elapsed time
+   */
+  @Test
+  public void monotonicAdaptiveTicks() {
+    AtomicInteger ticks = new AtomicInteger();
+    Timer monotonic = new Timer(10_000, 10, Timer.Mode.MONOTONIC) {
+      @Override
+      protected void onTick() {
+        ticks.incrementAndGet();
+      }
+
+      @Override
+      protected long nextTickDelay(long remainingTime) {
+        return 50;
+      }
+    };
+    monotonic.start();
+    waitMs(230);
+    monotonic.pause();
+    long elapsed = monotonic.getElapsedTime();
+    waitMs(50);
+
+    // Ticks at 0, 50, 100, 150 and 200 ms, some of them can only be late
+    assertTrue(ticks.get() + " ticks", ticks.get() >= 3 && ticks.get() <= 5);
+    assertEquals(elapsed, monotonic.getElapsedTime());
+    monotonic.resume();
+    waitMs(50);
+    monotonic.cancel();
+    assertEquals(0, monotonic.getElapsedTime());
+  }
+
+  /**
+   * Both modes tick as soon as they start, then after each interval
+   */
+  @Test
+  public void firstTickOnStart() throws InterruptedException {
+    for (Timer.Mode mode : Timer.Mode.values()) {
+      CountDownLatch ticked = new CountDownLatch(1);
+      Timer ticking = new Timer(10_000, 500, mode) {
+        @Override
+        protected void onTick() {
+          ticked.countDown();
+        }
+      };
+      ticking.start();
+      try {
+        assertTrue(mode + " did not tick on start", ticked.await(250, TimeUnit.MILLISECONDS));
+      } finally {
+        ticking.cancel();
+      }
+    }
+  }
+
+  /**
+   * A slow tick runs off the shared timing wheel, so another timer still finishes on time
+   */
+  @Test
+  public void slowTickDoesNotDelayOtherTimers() throws InterruptedException {
+    CountDownLatch slowTicking = new CountDownLatch(1);
+    Timer slow = new Timer(10_000, 10) {
+      @Override
+      protected void onTick() {
+        slowTicking.countDown();
+        waitMs(500);
+      }
+    };
+    CountDownLatch finished = new CountDownLatch(1);
+    Timer other = new Timer(50, 10, Timer.Mode.MONOTONIC) {
+      @Override
+      protected void onFinish() {
+        finished.countDown();
+      }
+    };
+    slow.start();
+    try {
+      assertTrue(slowTicking.await(1, TimeUnit.SECONDS));
+      long start = System.nanoTime();
+      other.start();
+      assertTrue(finished.await(1, TimeUnit.SECONDS));
+      assertInRange(50, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } finally {
+      slow.cancel();
+    }
+  }
+
+  /**
+   * @param expected Expected time in milliseconds.
+   * @param actual   Measured time in milliseconds, which can only be late.
+   */
+  private static void assertInRange(long expected, long actual) {
+    assertTrue("Expected " + expected + " ms but was " + actual,
+            actual >= expected && actual <= expected + ERROR_MARGIN * 3);
+  }
+
   /**
    * Blocking method: make the program wait a given amount of time
    *
@@ -1,5 +1,6 @@
 package polytech.devint.view;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.mock;
@@ -8,8 +9,13 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Arrays;
+
 import org.junit.Test;
 
+import polytech.devint.event.CustomEvent;
+import polytech.devint.event.EventHandler;
+
 import polytech.devint.controller.Controller;
 import polytech.devint.model.Model;
 
@@ -45,4 +51,44 @@ public class ViewTest {
 
     verify(v, times(1)).destroyContent();
   }
+
+  /**
+   * Verify that a batch of events from the model updates a view once
+   */
+  @Test
+  public void testBatchUpdatesOnce() {
+    Model m = new Model() {};
+
+    @SuppressWarnings("unchecked")
+    Controller<Model, TestView> c = mock(Controller.class);
+    when(c.getModel()).thenReturn(m);
+
+    UpdateCountingView v = new UpdateCountingView();
+    v.setController(c);
+    v.init();
+
+    m.notifyViews(new CustomEvent());
+    m.notifyViews(new CustomEvent());
+    assertEquals(2, v.updates);
+
+    m.notifyViews(Arrays.asList(new CustomEvent(), new CustomEvent(), new CustomEvent()));
+    assertEquals(5, v.events);
+    assertEquals(3, v.updates);
+  }
+
+  public static class UpdateCountingView extends TestView {
+
+    int events, updates;
+
+    @EventHandler
+    public void onCustomEvent(CustomEvent event) {
+      events++;
+      requestUpdate();
+    }
+
+    @Override
+    public void update() {
+      updates++;
+    }
+  }
 }
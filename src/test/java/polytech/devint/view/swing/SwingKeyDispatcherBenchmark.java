@@ -0,0 +1,120 @@
+package polytech.devint.view.swing;
+
+import static org.junit.Assert.assertTrue;
+
+import java.awt.event.KeyEvent;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import org.junit.Test;
+
+import polytech.devint.controller.Controller;
+import polytech.devint.controller.DevintController;
+import polytech.devint.controller.input.InputConfiguration;
+import polytech.devint.controller.input.SwingInputConfiguration;
+import polytech.devint.event.BackpressurePolicy;
+import polytech.devint.event.EventHandler;
+import polytech.devint.event.basic.UpEvent;
+import polytech.devint.model.Model;
+
+/**
+ * Benchmark of the time the event dispatch thread spends on a key event when the controller has
+ * a slow handler, with the synchronous dispatch and then with the asynchronous one.
+ * It is excluded from the regular test run, launch it with {@code mvn test -Pbenchmark} (or
+ * {@code -Dtest=SwingKeyDispatcherBenchmark}) and read the times it prints.
+ * <p>
+ * The key events are dispatched on the real event dispatch thread, and only the time spent in
+ * {@link SwingKeyDispatcher#dispatchKeyEvent(KeyEvent)} is measured.
+ *
+ * @author Loris Friedel
+ */
+public class SwingKeyDispatcherBenchmark {
+
+  private static final int WARM_UP = 20_000;
+  private static final int PRESSES = 200;
+  private static final long HANDLER_MILLIS = 1;
+
+  /**
+   * Compare the time spent on the event dispatch thread per key event
+   */
+  @Test
+  public void edtTimePerKeyEvent() throws Exception {
+    SlowController controller = new SlowController(new Model() {}, new InputConfiguration()
+            .addConfig(DevintController.SWING_CONFIG_KEY, new SwingInputConfiguration()));
+    SwingKeyDispatcher<Model> dispatcher = new SwingKeyDispatcher<>(controller);
+    JPanel source = new JPanel();
+    KeyEvent upPressed = new KeyEvent(source, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_UP, KeyEvent.CHAR_UNDEFINED);
+    KeyEvent upReleased = new KeyEvent(source, KeyEvent.KEY_RELEASED, 0, 0, KeyEvent.VK_UP, KeyEvent.CHAR_UNDEFINED);
+
+    measure(dispatcher, upPressed, upReleased, WARM_UP);
+    controller.slow = true;
+
+    long[] synchronous = measure(dispatcher, upPressed, upReleased, PRESSES);
+    print("Synchronous", synchronous);
+
+    dispatcher.enableAsyncDispatch(PRESSES, BackpressurePolicy.DROP_OLDEST);
+    try {
+      long[] asynchronous = measure(dispatcher, upPressed, upReleased, PRESSES);
+      print("Asynchronous", asynchronous);
+      System.out.println(String.format("The asynchronous dispatch takes %.1fx less time on the EDT",
+              (double) synchronous[0] / asynchronous[0]));
+    } finally {
+      controller.slow = false;
+      dispatcher.disableAsyncDispatch();
+    }
+    assertTrue(controller.ups.get() > WARM_UP);
+  }
+
+  /**
+   * Press and release a key on the event dispatch thread.
+   *
+   * @return The total and the maximum time spent in the dispatcher per key event, in nanoseconds.
+   */
+  private static long[] measure(SwingKeyDispatcher<Model> dispatcher, KeyEvent pressed,
+          KeyEvent released, int presses) throws Exception {
+    long[] times = new long[2];
+    SwingUtilities.invokeAndWait(() -> {
+      for (int i = 0; i < presses; i++) {
+        for (KeyEvent event : new KeyEvent[] {pressed, released}) {
+          long start = System.nanoTime();
+          dispatcher.dispatchKeyEvent(event);
+          long duration = System.nanoTime() - start;
+          times[0] += duration;
+          times[1] = Math.max(times[1], duration);
+        }
+      }
+    });
+    times[0] /= 2 * presses;
+    return times;
+  }
+
+  /**
+   * @param mode  Name of the dispatch mode, to print.
+   * @param times Mean and maximum time per key event, in nanoseconds.
+   */
+  private static void print(String mode, long[] times) {
+    System.out.println(String.format("%-13s %8.1f us/key event on the EDT, at most %.1f us", mode,
+            times[0] / 1000.0, times[1] / 1000.0));
+  }
+
+  public static class SlowController extends Controller<Model, SwingView<Model>> {
+
+    final AtomicInteger ups = new AtomicInteger();
+    volatile boolean slow;
+
+    public SlowController(Model model, InputConfiguration inputConfiguration) {
+      super(model, inputConfiguration);
+    }
+
+    @EventHandler
+    public void onUp(UpEvent event) throws InterruptedException {
+      ups.incrementAndGet();
+      if (slow) {
+        TimeUnit.MILLISECONDS.sleep(HANDLER_MILLIS);
+      }
+    }
+  }
+}
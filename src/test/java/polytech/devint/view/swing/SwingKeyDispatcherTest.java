@@ -0,0 +1,342 @@
+package polytech.devint.view.swing;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.awt.event.KeyEvent;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import polytech.devint.controller.Controller;
+import polytech.devint.controller.DevintController;
+import polytech.devint.controller.input.InputConfiguration;
+import polytech.devint.controller.input.InputSource;
+import polytech.devint.controller.input.KeySink;
+import polytech.devint.controller.input.SwingInputConfiguration;
+import polytech.devint.event.EventHandler;
+import polytech.devint.event.basic.F1Event;
+import polytech.devint.event.basic.F2Event;
+import polytech.devint.event.basic.UpEvent;
+import polytech.devint.model.Model;
+import polytech.devint.util.time.RateLimit;
+
+/**
+ * Testing the dispatch of key events to the controller
+ *
+ * @author Loris Friedel
+ */
+public class SwingKeyDispatcherTest {
+
+  private static final int WARM_UP = 20_000;
+  private static final int PRESSES = 100_000;
+
+  private SwingInputConfiguration swingConfig;
+  private InputConfiguration config;
+  private CountingController controller;
+  private SwingKeyDispatcher<Model> dispatcher;
+  private KeyEvent upPressed;
+  private KeyEvent upReleased;
+
+  @Before
+  public void setUp() {
+    swingConfig = new SwingInputConfiguration();
+    config = new InputConfiguration()
+            .addConfig(DevintController.SWING_CONFIG_KEY, swingConfig);
+    controller = new CountingController(new Model() {}, config);
+    dispatcher = new SwingKeyDispatcher<>(controller);
+    JPanel source = new JPanel();
+    upPressed = new KeyEvent(source, KeyEvent.KEY_PRESSED, 0, 0, KeyEvent.VK_UP, KeyEvent.CHAR_UNDEFINED);
+    upReleased = new KeyEvent(source, KeyEvent.KEY_RELEASED, 0, 0, KeyEvent.VK_UP, KeyEvent.CHAR_UNDEFINED);
+  }
+
+  /**
+   * A key bound on the first press only triggers its event again after being released
+   */
+  @Test
+  public void pressOnce() {
+    dispatcher.dispatchKeyEvent(upPressed);
+    dispatcher.dispatchKeyEvent(upPressed);
+    assertEquals(1, controller.ups);
+    dispatcher.dispatchKeyEvent(upReleased);
+    dispatcher.dispatchKeyEvent(upPressed);
+    assertEquals(2, controller.ups);
+  }
+
+  /**
+   * A swing configuration replaced while the dispatcher runs applies to the next key press
+   */
+  @Test
+  public void configurationSwap() {
+    dispatcher.pressKey(KeyEvent.VK_UP);
+    dispatcher.releaseKey(KeyEvent.VK_UP);
+    SwingInputConfiguration remapped = new SwingInputConfiguration();
+    remapped.unbind(UpEvent.class);
+    remapped.bindOnPressOnce(KeyEvent.VK_W, UpEvent.class);
+    config.addConfig(DevintController.SWING_CONFIG_KEY, remapped);
+
+    dispatcher.pressKey(KeyEvent.VK_UP);
+    dispatcher.pressKey(KeyEvent.VK_W);
+    assertEquals(2, controller.ups);
+  }
+
+  /**
+   * A debounced key ignores the chattering presses of a switch
+   */
+  @Test
+  public void debounce() throws InterruptedException {
+    swingConfig.setRateLimit(UpEvent.class, RateLimit.debounce(100, RateLimit.Edge.LEADING));
+    for (int i = 0; i < 5; i++) {
+      dispatcher.pressKey(KeyEvent.VK_UP);
+      dispatcher.releaseKey(KeyEvent.VK_UP);
+    }
+    assertEquals(1, controller.ups);
+
+    Thread.sleep(150);
+    dispatcher.pressKey(KeyEvent.VK_UP);
+    assertEquals(2, controller.ups);
+  }
+
+  /**
+   * The trailing run of a key pressed in the window is notified on the EDT too, so handlers
+   * without a thread never run on two threads at once
+   */
+  @Test
+  public void trailingOnEdt() throws Exception {
+    swingConfig.setRateLimit(UpEvent.class, RateLimit.debounce(30, RateLimit.Edge.TRAILING));
+    SwingUtilities.invokeAndWait(() -> {
+      dispatcher.pressKey(KeyEvent.VK_UP);
+      dispatcher.releaseKey(KeyEvent.VK_UP);
+    });
+    long deadline = System.currentTimeMillis() + 1000;
+    while (controller.ups == 0 && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(1, controller.ups);
+    assertTrue(controller.lastUpOnEdt);
+  }
+
+  /**
+   * A chord is triggered instead of the first press of its last key, only while its other keys
+   * are held down
+   */
+  @Test
+  public void chord() {
+    swingConfig.bindChord(F2Event.class, KeyEvent.VK_CONTROL, KeyEvent.VK_F1);
+
+    dispatcher.pressKey(KeyEvent.VK_F1);
+    dispatcher.releaseKey(KeyEvent.VK_F1);
+    assertEquals(1, controller.f1s);
+    assertEquals(0, controller.f2s);
+
+    dispatcher.pressKey(KeyEvent.VK_CONTROL);
+    dispatcher.pressKey(KeyEvent.VK_F1);
+    assertEquals(1, controller.f1s);
+    assertEquals(1, controller.f2s);
+    // Repeated presses of the trigger do not trigger the chord again
+    dispatcher.pressKey(KeyEvent.VK_F1);
+    assertEquals(1, controller.f2s);
+  }
+
+  /**
+   * A sequence is triggered by its keys pressed in order, even after a partial match, unless a
+   * key comes too late
+   */
+  @Test
+  public void sequence() throws InterruptedException {
+    swingConfig.bindSequence(F2Event.class, KeyEvent.VK_UP, KeyEvent.VK_UP, KeyEvent.VK_DOWN);
+    swingConfig.setSequenceTimeout(200);
+
+    tap(KeyEvent.VK_UP);
+    tap(KeyEvent.VK_UP);
+    tap(KeyEvent.VK_UP);
+    tap(KeyEvent.VK_DOWN);
+    assertEquals(1, controller.f2s);
+    // The single key bindings are still triggered
+    assertEquals(3, controller.ups);
+
+    tap(KeyEvent.VK_UP);
+    tap(KeyEvent.VK_UP);
+    Thread.sleep(300);
+    tap(KeyEvent.VK_DOWN);
+    assertEquals(1, controller.f2s);
+  }
+
+  /**
+   * Press and release a key.
+   *
+   * @param keyCode Code of the key.
+   */
+  private void tap(int keyCode) {
+    dispatcher.pressKey(keyCode);
+    dispatcher.releaseKey(keyCode);
+  }
+
+  /**
+   * Several input sources pressing the same key concurrently trigger the events bound to its
+   * first press once per release
+   */
+  @Test
+  public void concurrentSources() throws Exception {
+    int sources = 4;
+    int rounds = 500;
+    CyclicBarrier barrier = new CyclicBarrier(sources, () -> dispatcher.releaseKey(KeyEvent.VK_UP));
+    List<ThreadSource> started = new ArrayList<>();
+    for (int s = 0; s < sources; s++) {
+      ThreadSource source = new ThreadSource(sink -> {
+        for (int i = 0; i < rounds; i++) {
+          sink.pressKey(KeyEvent.VK_UP);
+          barrier.await();
+        }
+      });
+      started.add(source);
+      dispatcher.addInputSource(source);
+    }
+    for (ThreadSource source : started) {
+      source.thread.join();
+    }
+    dispatcher.removeInputSources();
+
+    assertEquals(rounds, controller.concurrentUps.get());
+    assertTrue(started.stream().allMatch(source -> source.stopped));
+  }
+
+  /**
+   * Input sources hitting a rate limited event at the same time share one limiter, so the limit
+   * holds from the first press
+   */
+  @Test
+  public void concurrentRateLimit() throws Exception {
+    int sources = 8;
+    swingConfig.bindOnPress(KeyEvent.VK_A, UpEvent.class);
+    swingConfig.setRateLimit(UpEvent.class, RateLimit.throttle(10_000, RateLimit.Edge.LEADING));
+    for (int round = 0; round < 50; round++) {
+      SwingKeyDispatcher<Model> fresh = new SwingKeyDispatcher<>(controller);
+      controller.concurrentUps.set(0);
+      CyclicBarrier barrier = new CyclicBarrier(sources);
+      List<ThreadSource> started = new ArrayList<>();
+      for (int s = 0; s < sources; s++) {
+        ThreadSource source = new ThreadSource(sink -> {
+          barrier.await();
+          for (int i = 0; i < 20; i++) {
+            sink.pressKey(KeyEvent.VK_A);
+          }
+        });
+        started.add(source);
+        fresh.addInputSource(source);
+      }
+      for (ThreadSource source : started) {
+        source.thread.join();
+      }
+      fresh.removeInputSources();
+      assertEquals(1, controller.concurrentUps.get());
+    }
+  }
+
+  /**
+   * Once warmed up, pressing and releasing a key bound to a stateless event allocates nothing,
+   * even when chords and sequences are bound
+   */
+  @Test
+  public void keyPressDoesNotAllocate() {
+    swingConfig.bindChord(F2Event.class, KeyEvent.VK_CONTROL, KeyEvent.VK_UP);
+    swingConfig.bindSequence(F2Event.class, KeyEvent.VK_UP, KeyEvent.VK_DOWN);
+    for (int i = 0; i < WARM_UP; i++) {
+      dispatcher.dispatchKeyEvent(upPressed);
+      dispatcher.dispatchKeyEvent(upReleased);
+    }
+
+    long before = allocatedBytes();
+    for (int i = 0; i < PRESSES; i++) {
+      dispatcher.dispatchKeyEvent(upPressed);
+      dispatcher.dispatchKeyEvent(upReleased);
+    }
+    long allocated = allocatedBytes() - before;
+
+    assertEquals(WARM_UP + PRESSES, controller.ups);
+    // Less than a byte per press: only the measurement itself allocates
+    assertTrue("Allocated " + allocated + " bytes for " + PRESSES + " presses", allocated < PRESSES);
+  }
+
+  /**
+   * @return The number of bytes allocated so far by the current thread.
+   */
+  private static long allocatedBytes() {
+    return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+            .getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Input source feeding its sink from a thread of its own.
+   */
+  private static class ThreadSource implements InputSource {
+
+    private final KeyScript script;
+    Thread thread;
+    volatile boolean stopped;
+
+    ThreadSource(KeyScript script) {
+      this.script = script;
+    }
+
+    @Override
+    public void start(KeySink sink) {
+      thread = new Thread(() -> {
+        try {
+          script.play(sink);
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      });
+      thread.start();
+    }
+
+    @Override
+    public void stop() {
+      stopped = true;
+    }
+  }
+
+  @FunctionalInterface
+  private interface KeyScript {
+    void play(KeySink sink) throws Exception;
+  }
+
+  public static class CountingController extends Controller<Model, SwingView<Model>> {
+
+    volatile int ups;
+    volatile boolean lastUpOnEdt;
+    int f1s;
+    int f2s;
+    final AtomicInteger concurrentUps = new AtomicInteger();
+
+    public CountingController(Model model, InputConfiguration inputConfiguration) {
+      super(model, inputConfiguration);
+    }
+
+    @EventHandler
+    public void onUp(UpEvent event) {
+      ups++;
+      lastUpOnEdt = SwingUtilities.isEventDispatchThread();
+      concurrentUps.incrementAndGet();
+    }
+
+    @EventHandler
+    public void onF1(F1Event event) {
+      f1s++;
+    }
+
+    @EventHandler
+    public void onF2(F2Event event) {
+      f2s++;
+    }
+  }
+}